@@ -0,0 +1,63 @@
+package revert.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import revert.Entities.Enemy;
+
+/**
+ * Cost of moving every actor once and running the enemies' ai timers, without
+ * the rest of the world's tick (bullets, visibility, waves).
+ * @author nhydock
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActorBench {
+
+	@Param({"1", "50", "200"})
+	int enemies;
+	
+	private Fixture fixture;
+	private Enemy[] actors;
+	
+	@Setup(Level.Trial)
+	public void load()
+	{
+		fixture = new Fixture();
+	}
+	
+	@Setup(Level.Iteration)
+	public void reset()
+	{
+		fixture.reset(enemies);
+		actors = fixture.world.getEnemies().toArray(new Enemy[0]);
+	}
+	
+	@Benchmark
+	public void updateSprite()
+	{
+		fixture.player.updateSprite();
+		for (Enemy e : actors)
+		{
+			e.updateSprite();
+			e.think();
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package revert.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import revert.util.BrickManager;
+import revert.util.Contact;
+import revert.util.Sweep;
+
+import com.kgp.util.Vector2;
+
+/**
+ * Tile lookups, run over a fixed set of random points in the level
+ * @author nhydock
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BrickBench {
+
+	private static final int POINTS = 1024;
+	
+	private BrickManager level;
+	private final float[] xs = new float[POINTS];
+	private final float[] ys = new float[POINTS];
+	private final int[] cols = new int[POINTS];
+	private final int[] rows = new int[POINTS];
+	private final int[] toCols = new int[POINTS];
+	private final int[] toRows = new int[POINTS];
+	private final Vector2 map = new Vector2();
+	private final Contact contact = new Contact();
+	
+	@Setup(Level.Trial)
+	public void load()
+	{
+		level = new Fixture().world.getLevel();
+		
+		Random r = new Random(42);
+		for (int i = 0; i < POINTS; i++)
+		{
+			//stay clear of the bottom edge, the lookups don't clamp it
+			xs[i] = r.nextFloat() * level.getMapWidth();
+			ys[i] = r.nextFloat() * (level.getMapHeight() - 1);
+			cols[i] = level.worldToMapX(xs[i]);
+			rows[i] = level.worldToMapY(ys[i]);
+		}
+		
+		//line of sight targets about as far away as an enemy can see
+		for (int i = 0; i < POINTS; i++)
+		{
+			toCols[i] = level.clampToMap(cols[i] + r.nextInt(25) - 12);
+			toRows[i] = Math.max(0, Math.min(level.getHeight() - 1, rows[i] + r.nextInt(25) - 12));
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public float worldToMap()
+	{
+		float sum = 0;
+		for (int i = 0; i < POINTS; i++)
+		{
+			Vector2 v = level.worldToMap(xs[i], ys[i], map);
+			sum += v.x + v.y;
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public int brickExists()
+	{
+		int hits = 0;
+		for (int i = 0; i < POINTS; i++)
+		{
+			if (level.brickExists(cols[i], rows[i]))
+			{
+				hits++;
+			}
+		}
+		return hits;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public int lineOfSight()
+	{
+		int clear = 0;
+		for (int i = 0; i < POINTS; i++)
+		{
+			if (level.lineOfSight(cols[i], rows[i], toCols[i], toRows[i]))
+			{
+				clear++;
+			}
+		}
+		return clear;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public int sweepBox()
+	{
+		int hits = 0;
+		for (int i = 0; i < POINTS; i++)
+		{
+			//what an actor the size of the player does each update, walk then look for the floor
+			float left = xs[i] - 20;
+			float top = ys[i] - 98;
+			if (level.sweepBox(left, top, left + 40, ys[i], 2f, 0f, contact) != Sweep.MISS)
+			{
+				hits++;
+			}
+			if (level.sweepBox(left, top, left + 40, ys[i], 0f, 1.6f, contact) != Sweep.MISS)
+			{
+				hits++;
+			}
+		}
+		return hits;
+	}
+}
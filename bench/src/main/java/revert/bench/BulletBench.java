@@ -0,0 +1,90 @@
+package revert.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import revert.Entities.Bullet;
+import revert.Entities.BulletStore;
+
+/**
+ * Finding bullets by handle while bullets land and new ones take their spots
+ * @author nhydock
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulletBench {
+
+	private static final Bullet.Mode[] MODES = Bullet.Mode.values();
+	
+	@Param({"20", "200"})
+	int bullets;
+	
+	private BulletStore store;
+	private int[] handles;
+	private int oldest;
+	
+	@Setup(Level.Trial)
+	public void fire()
+	{
+		store = new BulletStore();
+		handles = new int[bullets];
+		for (int i = 0; i < bullets; i++)
+		{
+			handles[i] = store.add(i, i, 10f, 0f, 0f, MODES[i % MODES.length]);
+		}
+		oldest = 0;
+	}
+	
+	/**
+	 * The oldest bullet lands and a new one is fired, which takes the spot it
+	 * left.  The landed bullet's handle must not find the new one.
+	 */
+	@Benchmark
+	public boolean reuse()
+	{
+		int landed = handles[oldest];
+		store.remove(store.indexOf(landed));
+		handles[oldest] = store.add(0f, 0f, 10f, 0f, 0f, MODES[oldest % MODES.length]);
+		oldest = (oldest + 1) % bullets;
+		
+		if (store.contains(landed))
+		{
+			throw new IllegalStateException("Handle of a removed bullet found a new one");
+		}
+		return store.contains(handles[oldest]);
+	}
+	
+	/**
+	 * Goes from every bullet's index to its handle and back
+	 */
+	@Benchmark
+	public int lookup()
+	{
+		int found = 0;
+		for (int i = 0; i < store.size(); i++)
+		{
+			if (store.indexOf(store.getHandle(i)) == i)
+			{
+				found++;
+			}
+		}
+		return found;
+	}
+}
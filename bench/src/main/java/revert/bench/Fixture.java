@@ -0,0 +1,105 @@
+package revert.bench;
+
+import revert.Entities.Player;
+import revert.MainScene.World;
+import revert.MainScene.notifications.PlayerAttackNotification;
+import revert.util.JsonBricksManager;
+
+import com.kgp.core.AssetsManager;
+import com.kgp.core.HeadlessGame;
+import com.kgp.util.Vector2;
+
+/**
+ * Builds the world the benchmarks run against, the same way the main scene does
+ * but without any display.  Benchmarks drive the world directly instead of
+ * through {@link #run(long)}.
+ * @author nhydock
+ *
+ */
+final class Fixture extends HeadlessGame {
+
+	static final String LEVEL = "level01";
+	static final int UPS = 60;
+	
+	World world;
+	Player player;
+	
+	//stand in for the player's input
+	private final PlayerAttackNotification attack = new PlayerAttackNotification();
+	
+	private static boolean loaded;
+	
+	Fixture()
+	{
+		super(UPS);
+		initGame();
+	}
+	
+	@Override
+	protected void initGame()
+	{
+		synchronized (Fixture.class)
+		{
+			if (!loaded)
+			{
+				AssetsManager.initHeadless(true);
+				loaded = true;
+			}
+		}
+		
+		JsonBricksManager bricksMan = JsonBricksManager.load(LEVEL);
+		world = new World();
+		world.setLevel(bricksMan);
+		
+		player = new Player(world, AssetsManager.Images);
+		world.setPlayer(player);
+		
+		player.init();
+		world.init();
+		
+		//let the player land so it can shoot
+		for (int i = 0; i < UPS * 5 && player.isJumping(); i++)
+		{
+			world.update();
+		}
+	}
+	
+	@Override
+	protected void gameUpdate()
+	{
+		world.update();
+	}
+	
+	/**
+	 * Starts a new game with a single wave of enemies
+	 * @param enemies - number of enemies in the wave
+	 */
+	void reset(int enemies)
+	{
+		player.init();
+		world.init();
+		if (enemies > 0)
+		{
+			world.startWave(enemies);
+		}
+	}
+	
+	/**
+	 * Aims the player at a point relative to it
+	 */
+	void aim(float dx, float dy)
+	{
+		player.lookAt(new Vector2(player.getCenterXPosn() + dx, player.getCenterYPosn() + dy));
+	}
+	
+	/**
+	 * Queues up shots until the given number of bullets will be in flight after the next update
+	 */
+	void fill(int bullets)
+	{
+		for (int i = world.getBulletCount(); i < bullets; i++)
+		{
+			world.handle(attack);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package revert.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import revert.Entities.Enemy;
+import revert.Entities.Player;
+
+/**
+ * Line of sight checks from every enemy to the player
+ * @author nhydock
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InRangeBench {
+
+	@Param({"5", "50", "200"})
+	int enemies;
+	
+	private Player player;
+	private Enemy[] actors;
+	
+	@Setup(Level.Trial)
+	public void load()
+	{
+		Fixture fixture = new Fixture();
+		fixture.reset(enemies);
+		
+		//let the wave fall to the ground and spread out
+		for (int i = 0; i < Fixture.UPS * 2; i++)
+		{
+			fixture.world.update();
+		}
+		
+		player = fixture.player;
+		actors = fixture.world.getEnemies().toArray(new Enemy[0]);
+	}
+	
+	@Benchmark
+	public int inRange()
+	{
+		int seen = 0;
+		for (Enemy e : actors)
+		{
+			if (e.inRange(player))
+			{
+				seen++;
+			}
+		}
+		return seen;
+	}
+}
@@ -0,0 +1,125 @@
+package revert.bench;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import revert.Entities.Enemy;
+import revert.Entities.Player;
+
+import com.kgp.imaging.SpriteSnapshot;
+
+/**
+ * Drawing the player and enemies into an offscreen image the size of the game's panel,
+ * with the view centered on the player like the scene's camera, and capturing them
+ * for drawing on another thread.
+ * @author nhydock
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpriteBench {
+
+	private static final int PWIDTH = 1024;
+	private static final int PHEIGHT = 600;
+	
+	@Param({"1", "50", "200"})
+	int enemies;
+	
+	@Param({"1.0", "0.5"})
+	float alpha;
+	
+	private Player player;
+	private Enemy[] actors;
+	private BufferedImage screen;
+	private Graphics2D g;
+	private Rectangle2D view;
+	private int wrap;
+	private SpriteSnapshot[] snapshots;
+	
+	@Setup(Level.Trial)
+	public void load()
+	{
+		Fixture fixture = new Fixture();
+		fixture.reset(enemies);
+		fixture.world.update();
+		
+		player = fixture.player;
+		actors = fixture.world.getEnemies().toArray(new Enemy[0]);
+		
+		screen = new BufferedImage(PWIDTH, PHEIGHT, BufferedImage.TYPE_INT_ARGB);
+		g = screen.createGraphics();
+		g.setTransform(AffineTransform.getTranslateInstance(
+				PWIDTH / 2f - player.getCenterXPosn(), PHEIGHT / 2f - player.getCenterYPosn()));
+		view = new Rectangle2D.Float(player.getCenterXPosn() - PWIDTH / 2f, player.getCenterYPosn() - PHEIGHT / 2f, PWIDTH, PHEIGHT);
+		wrap = fixture.world.getWidth();
+		
+		snapshots = new SpriteSnapshot[actors.length + 1];
+		for (int i = 0; i < snapshots.length; i++)
+		{
+			snapshots[i] = new SpriteSnapshot();
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void dispose()
+	{
+		g.dispose();
+	}
+	
+	@Benchmark
+	public BufferedImage drawSprite()
+	{
+		player.drawSprite(g, alpha);
+		for (Enemy e : actors)
+		{
+			e.drawSprite(g, alpha);
+		}
+		return screen;
+	}
+	
+	@Benchmark
+	public BufferedImage drawSpriteCulled()
+	{
+		player.drawSprite(g, alpha, view, wrap);
+		for (Enemy e : actors)
+		{
+			e.drawSprite(g, alpha, view, wrap);
+		}
+		return screen;
+	}
+	
+	/**
+	 * What the update thread pays every tick for drawing to happen elsewhere
+	 */
+	@Benchmark
+	public SpriteSnapshot[] capture()
+	{
+		player.capture(snapshots[0]);
+		for (int i = 0; i < actors.length; i++)
+		{
+			actors[i].capture(snapshots[i + 1]);
+		}
+		return snapshots;
+	}
+}
@@ -0,0 +1,78 @@
+package revert.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kgp.core.JobPool;
+
+/**
+ * Cost of a full world tick.
+ * <p/>
+ * A fresh wave is started each iteration, and shots are queued before every
+ * update so the requested number of bullets stay in flight.  Enemies think on
+ * the given number of threads.
+ * @author nhydock
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldBench {
+
+	@Param({"5", "50", "200"})
+	int enemies;
+	
+	@Param({"0", "20", "100"})
+	int bullets;
+	
+	@Param({"1", "4"})
+	int threads;
+	
+	private Fixture fixture;
+	private JobPool jobs;
+	
+	@Setup(Level.Trial)
+	public void load()
+	{
+		fixture = new Fixture();
+		jobs = new JobPool(threads);
+		fixture.world.setJobs(jobs);
+	}
+	
+	@TearDown(Level.Trial)
+	public void unload()
+	{
+		jobs.shutdown();
+	}
+	
+	@Setup(Level.Iteration)
+	public void reset()
+	{
+		fixture.reset(enemies);
+		fixture.aim(1f, -.5f);
+	}
+	
+	@Benchmark
+	public int update()
+	{
+		fixture.fill(bullets);
+		fixture.world.update();
+		return fixture.world.getBulletCount();
+	}
+}
@@ -7,6 +7,7 @@ import revert.MainScene.Scene;
 
 import com.kgp.core.AssetsManager;
 import com.kgp.core.GameFrame;
+import com.kgp.core.RenderMode;
 
 /**
  * Simple runner class to get the game started
@@ -16,13 +17,33 @@ import com.kgp.core.GameFrame;
 public class GameRunner {
 
 	public static void main(String args[]) {
-		GameFrame g = new GameFrame("Revert", 60);
+		boolean fullscreen = false;
+		RenderMode mode = RenderMode.Software;
+		int fps = GameFrame.DEFAULT_FPS;
+		boolean renderThread = false;
+		for (String arg : args) {
+			if (arg.equals("fullscreen"))
+				fullscreen = true;
+			// draw through a hardware buffer strategy instead of a software back buffer
+			else if (arg.equals("accelerated"))
+				mode = RenderMode.Accelerated;
+			// fps=0 renders uncapped, simulation always steps at the default rate
+			else if (arg.startsWith("fps="))
+				fps = Integer.parseInt(arg.substring(4));
+			// draw on a thread of its own while the next update runs
+			else if (arg.equals("renderthread"))
+				renderThread = true;
+		}
+		
+		GameFrame g = new GameFrame("Revert", GameFrame.DEFAULT_FPS, fps);
 		
 		AssetsManager.init();
 		
 		Scene s = new Scene(g);
+		s.setRenderMode(mode);
+		s.setRenderThread(renderThread);
 		
-		if (args.length > 0 && args[0].equals("fullscreen")) {
+		if (fullscreen) {
 			GraphicsDevice gd = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
 			if (gd.isFullScreenSupported()){
 				try{
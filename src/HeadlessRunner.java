@@ -0,0 +1,164 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+import revert.MainScene.Simulation;
+import revert.util.BrickManager;
+import revert.util.JsonBricksManager;
+import revert.util.LevelData;
+import revert.util.PagedBrickManager;
+import revert.util.SyntheticLevel;
+
+import com.kgp.core.AssetsManager;
+import com.kgp.core.JobPool;
+
+/**
+ * Runs the game's simulation without a window, for soak testing and profiling
+ * the world update on machines without a display.
+ * <p/>
+ * Arguments:
+ * <ul>
+ * <li>ticks=N - number of updates to run (default 10 minutes of game time)</li>
+ * <li>waves=N - waves of enemies per game</li>
+ * <li>level=name - json level to load</li>
+ * <li>noimages - skip loading sprite images</li>
+ * <li>paged=N - play the level from its compiled file, keeping at most N chunks in memory</li>
+ * <li>generate=COLSxROWS - play a {@link SyntheticLevel} of that many tiles instead,
+ * written straight to a compiled file a row at a time and paged (64 chunks unless paged is given)</li>
+ * <li>threads=N - threads enemies think on (default one per processor)</li>
+ * <li>seed=N - seed for the waves and enemy ai, to replay a run</li>
+ * <li>verbose - keep the game's console output</li>
+ * </ul>
+ * @author nhydock
+ *
+ */
+public class HeadlessRunner {
+
+	public static void main(String args[]) throws IOException {
+		System.setProperty("java.awt.headless", "true");
+		
+		long ticks = Simulation.UPS * 60 * 10;
+		int waves = 5;
+		String level = "level01";
+		boolean images = true;
+		boolean verbose = false;
+		int paged = 0;
+		int[] generate = null;
+		int threads = 0;
+		Long seed = null;
+		for (String arg : args) {
+			if (arg.startsWith("ticks="))
+				ticks = Long.parseLong(arg.substring(6));
+			else if (arg.startsWith("waves="))
+				waves = Integer.parseInt(arg.substring(6));
+			else if (arg.startsWith("level="))
+				level = arg.substring(6);
+			else if (arg.equals("noimages"))
+				images = false;
+			else if (arg.equals("verbose"))
+				verbose = true;
+			else if (arg.startsWith("paged="))
+				paged = Integer.parseInt(arg.substring(6));
+			else if (arg.startsWith("generate=")) {
+				String[] size = arg.substring(9).split("x");
+				generate = new int[] { Integer.parseInt(size[0]), Integer.parseInt(size[1]) };
+			}
+			else if (arg.startsWith("threads="))
+				threads = Integer.parseInt(arg.substring(8));
+			else if (arg.startsWith("seed="))
+				seed = Long.parseLong(arg.substring(5));
+		}
+		
+		PrintStream out = System.out;
+		if (!verbose) {
+			// the game logs freely to stdout, keep it from skewing the timings
+			System.setOut(new PrintStream(new OutputStream() {
+				public void write(int b) {}
+				public void write(byte[] b, int off, int len) {}
+			}));
+		}
+		
+		AssetsManager.initHeadless(images);
+		
+		// measure the level load on its own, before the game fills the heap,
+		// and net of the images and whatever else is already in it
+		System.gc();
+		long baseline = 0;
+		List<MemoryPoolMXBean> heap = new ArrayList<MemoryPoolMXBean>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				baseline += pool.getUsage().getUsed();
+				pool.resetPeakUsage();
+				heap.add(pool);
+			}
+		}
+		long start = System.nanoTime();
+		BrickManager bricks = null;
+		File file = null;
+		if (generate != null) {
+			paged = (paged > 0) ? paged : 64;
+			file = File.createTempFile("generated", LevelData.EXTENSION);
+			file.deleteOnExit();
+			new SyntheticLevel(generate[0], generate[1], (seed != null) ? seed : 0).write(file);
+		}
+		else if (paged > 0) {
+			file = LevelData.find("Levels/" + level + LevelData.EXTENSION);
+		}
+		if (file == null) {
+			bricks = JsonBricksManager.load(level);
+		}
+		double loadTime = (System.nanoTime() - start) / 1000000.0;
+		long loadPeak = -baseline;
+		for (MemoryPoolMXBean pool : heap) {
+			loadPeak += pool.getPeakUsage().getUsed();
+		}
+		
+		Simulation sim;
+		PagedBrickManager chunks = null;
+		if (paged > 0) {
+			if (file == null) {
+				// no compiled version to page from
+				file = File.createTempFile(level, LevelData.EXTENSION);
+				file.deleteOnExit();
+				new LevelData(bricks).write(file);
+				bricks = null;
+			}
+			chunks = new PagedBrickManager(file, paged, false);
+			sim = new Simulation(chunks, waves);
+		}
+		else {
+			sim = new Simulation(bricks, waves);
+		}
+		if (seed != null)
+			sim.setSeed(seed);
+		JobPool jobs = (threads > 0) ? new JobPool(threads) : JobPool.shared();
+		sim.setJobs(jobs);
+		sim.run(ticks);
+		if (threads > 0) {
+			jobs.shutdown();
+		}
+		if (chunks != null) {
+			chunks.close();
+		}
+		
+		System.setOut(out);
+		out.printf("level load:        %.1fms, peak heap %.1fMB over what was in use%n", loadTime, loadPeak / (1024.0 * 1024.0));
+		out.printf("ticks:             %d%n", sim.getTicks());
+		out.printf("simulated seconds: %.1f%n", sim.getSimulatedSeconds());
+		out.printf("ticks per second:  %.0f%n", sim.getTicksPerSecond());
+		out.printf("threads:           %d%n", jobs.getThreads());
+		out.printf("seed:              %d%n", sim.getSeed());
+		if (sim.getBytesPerTick() >= 0)
+			out.printf("bytes per tick:    %.1f%n", sim.getBytesPerTick());
+		out.printf("games:             %d (%d deaths)%n", sim.getGames(), sim.getDeaths());
+		out.printf("waves:             %d%n", sim.getWavesPlayed());
+		if (chunks != null)
+			out.printf("chunks:            %d loads, %d evictions%n", chunks.getLoads(), chunks.getEvictions());
+	}
+}
@@ -0,0 +1,98 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+import revert.util.JsonBricksManager;
+import revert.util.LevelData;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.kgp.level.BricksManager;
+
+/**
+ * Compiles Tiled json maps and bricks map text files into binary levels
+ * that load without any parsing.
+ * <p/>
+ * Usage: LevelCompiler &lt;output folder&gt; &lt;level files...&gt;
+ * <p/>
+ * Each level is written to the output folder under the same name with a
+ * .lvl extension.  Levels are checked the same way the game checks them when
+ * loading, so a broken map fails here instead of at launch.
+ * @author nhydock
+ *
+ */
+public class LevelCompiler {
+
+	public static void main(String args[]) {
+		if (args.length < 2) {
+			System.err.println("Usage: LevelCompiler <output folder> <level files...>");
+			System.exit(2);
+		}
+		
+		File out = new File(args[0]);
+		if (!out.isDirectory() && !out.mkdirs()) {
+			System.err.println("Can not create " + out);
+			System.exit(1);
+		}
+		
+		boolean failed = false;
+		for (int i = 1; i < args.length; i++) {
+			File in = new File(args[i]);
+			try {
+				long start = System.nanoTime();
+				LevelData level = compile(in);
+				String name = in.getName();
+				File target = new File(out, name.substring(0, name.lastIndexOf('.')) + LevelData.EXTENSION);
+				level.write(target);
+				System.out.printf("%s -> %s (%dx%d tiles, %d bytes) in %.1fms%n", in, target,
+						level.cols, level.rows, target.length(), (System.nanoTime() - start) / 1000000.0);
+			}
+			catch (IOException e) {
+				System.err.println(in + ": " + e.getMessage());
+				failed = true;
+			}
+			catch (JsonParseException e) {
+				System.err.println(in + ": " + e.getMessage());
+				failed = true;
+			}
+		}
+		
+		if (failed) {
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Reads a level in whichever format it was made in
+	 * 
+	 * @param in - a Tiled .json map, or a bricks map .txt file
+	 * @return the level's data
+	 * @throws IOException if the level can not be read or is not playable
+	 */
+	static LevelData compile(File in) throws IOException {
+		String name = in.getName().toLowerCase();
+		if (name.endsWith(".json")) {
+			JsonReader reader = new JsonReader(new InputStreamReader(new FileInputStream(in), "UTF-8"));
+			try {
+				return new LevelData(JsonBricksManager.read(reader));
+			}
+			finally {
+				reader.close();
+			}
+		}
+		else if (name.endsWith(".txt")) {
+			FileInputStream stream = new FileInputStream(in);
+			LevelData level = BricksManager.parseBricksFile(stream);
+			if (level.strip == null) {
+				throw new IOException("no image strip, the map has no bricks");
+			}
+			int gap = BricksManager.findGap(level.bricks);
+			if (gap != -1) {
+				throw new IOException("gap found in bricks map bottom line at position " + gap);
+			}
+			return level;
+		}
+		throw new IOException("unknown level format");
+	}
+}
@@ -32,6 +32,21 @@ public class AssetsManager {
 		Images = new ImagesLoader("imsInfo.txt");
 		Sounds = new ClipsLoader("clipsInfo.txt");
 		
+		initParser();
+	}
+	
+	/**
+	 * Set up only what is needed to run the game without a display or sound.
+	 * @param images - load the image assets, otherwise sprites go without images
+	 */
+	public static void initHeadless(boolean images) {
+		Images = (images) ? new ImagesLoader("imsInfo.txt") : new ImagesLoader();
+		Sounds = null;
+		
+		initParser();
+	}
+	
+	private static void initParser() {
 		GsonBuilder gsonBuilder = new GsonBuilder();
 	   	gsonBuilder.registerTypeAdapter(JsonBricksManager.class, new JsonBricksDeserializer());
 	    JsonParser = gsonBuilder.create();
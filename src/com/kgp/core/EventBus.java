@@ -0,0 +1,159 @@
+package com.kgp.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Typed publish/subscribe hub for the parts of a game to talk to each other
+ * without knowing about one another.
+ * <p/>
+ * Every event type gets its own {@link Channel} holding a plain array of the
+ * listeners for that type, so posting is a loop over the array with no
+ * locking, no type checks and no allocation.  Subscribing and unsubscribing
+ * copy the array instead, which keeps posting safe from any thread while
+ * listeners come and go, and lets a listener unsubscribe while it is being
+ * notified.
+ * <p/>
+ * Events are delivered by their exact class, listeners of a super type do
+ * not hear about subclasses.
+ *
+ * @author nhydock
+ */
+public class EventBus {
+
+	/**
+	 * Receives events of a single type
+	 *
+	 * @param <T> - type of event
+	 */
+	public interface Listener<T> {
+
+		/**
+		 * Called on the thread that posted the event
+		 *
+		 * @param event
+		 */
+		public void handle(T event);
+	}
+
+	/**
+	 * Listeners of a single event type.  Anything posting often should hold on
+	 * to the channel instead of looking it up each time.
+	 *
+	 * @param <T> - type of event
+	 */
+	public static final class Channel<T> {
+
+		private static final Listener<?>[] NONE = new Listener<?>[0];
+
+		@SuppressWarnings("unchecked")
+		private volatile Listener<? super T>[] listeners = (Listener<? super T>[]) NONE;
+
+		private Channel() {
+		}
+
+		/**
+		 * Sends an event to every listener, in the order they subscribed
+		 *
+		 * @param event
+		 */
+		public void post(T event) {
+			Listener<? super T>[] l = listeners;
+			for (int i = 0; i < l.length; i++) {
+				l[i].handle(event);
+			}
+		}
+
+		/**
+		 * @return true if anything is listening, so events that are costly to
+		 *         make can be skipped when nobody will see them
+		 */
+		public boolean hasListeners() {
+			return listeners.length > 0;
+		}
+
+		/**
+		 * Adds a listener, does nothing if it is already listening
+		 *
+		 * @param listener
+		 */
+		public synchronized void subscribe(Listener<? super T> listener) {
+			Listener<? super T>[] l = listeners;
+			for (int i = 0; i < l.length; i++) {
+				if (l[i] == listener) {
+					return;
+				}
+			}
+			l = Arrays.copyOf(l, l.length + 1);
+			l[l.length - 1] = listener;
+			listeners = l;
+		}
+
+		/**
+		 * Removes a listener, does nothing if it isn't listening
+		 *
+		 * @param listener
+		 */
+		@SuppressWarnings("unchecked")
+		public synchronized void unsubscribe(Listener<? super T> listener) {
+			Listener<? super T>[] l = listeners;
+			for (int i = 0; i < l.length; i++) {
+				if (l[i] == listener) {
+					Listener<? super T>[] fewer = (Listener<? super T>[]) new Listener<?>[l.length - 1];
+					System.arraycopy(l, 0, fewer, 0, i);
+					System.arraycopy(l, i + 1, fewer, i, fewer.length - i);
+					listeners = fewer;
+					return;
+				}
+			}
+		}
+	}
+
+	private final HashMap<Class<?>, Channel<?>> channels = new HashMap<Class<?>, Channel<?>>();
+
+	/**
+	 * @param type - type of event
+	 * @return the channel events of the type are sent through, created the
+	 *         first time it is asked for
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T> Channel<T> channel(Class<T> type) {
+		Channel<T> channel = (Channel<T>) channels.get(type);
+		if (channel == null) {
+			channel = new Channel<T>();
+			channels.put(type, channel);
+		}
+		return channel;
+	}
+
+	/**
+	 * Starts sending events of a type to a listener
+	 *
+	 * @param type - type of event
+	 * @param listener
+	 */
+	public <T> void subscribe(Class<T> type, Listener<? super T> listener) {
+		channel(type).subscribe(listener);
+	}
+
+	/**
+	 * Stops sending events of a type to a listener
+	 *
+	 * @param type - type of event
+	 * @param listener
+	 */
+	public <T> void unsubscribe(Class<T> type, Listener<? super T> listener) {
+		channel(type).unsubscribe(listener);
+	}
+
+	/**
+	 * Sends an event to the listeners of its class.  Looks the channel up each
+	 * time, so frequent events should go through {@link #channel(Class)}.
+	 *
+	 * @param event
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> void post(T event) {
+		channel((Class<T>) event.getClass()).post(event);
+	}
+}
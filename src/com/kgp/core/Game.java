@@ -12,15 +12,33 @@ public class Game {
 	protected static int periodMs;
 	
 	/**
-	 * Timer resolution in seconds
+	 * Timer resolution in seconds.  Worked out from the period in nanoseconds,
+	 * so at 60 updates a second it is 1/60 s and not the whole milliseconds
+	 * (0.016 s) it used to be, which moves everything about 4% further per
+	 * update than before.
 	 */
 	protected static float deltaTime;
 	
+	/**
+	 * Minimum time between rendered frames in nanoseconds, 0 when uncapped
+	 */
+	protected static long renderPeriod;
+	
+	/**
+	 * Measured wall clock time of the last rendered frame in seconds
+	 */
+	protected static volatile float frameDelta;
+	
+	/**
+	 * Simulated time let go of in nanoseconds, see {@link #getDroppedTime()}
+	 */
+	protected static volatile long droppedTime;
+	
 	protected static void setPeriod(long period)
 	{
 		Game.period = period;
 		Game.periodMs = (int)(period/1000000L);
-		Game.deltaTime = periodMs/1000f;
+		Game.deltaTime = period/1000000000f;
 		
 		System.out.println(period);
 		System.out.println(periodMs);
@@ -50,4 +68,39 @@ public class Game {
 	{
 		return deltaTime;
 	}
+	
+	protected static void setRenderPeriod(long renderPeriod)
+	{
+		Game.renderPeriod = Math.max(0L, renderPeriod);
+	}
+	
+	/**
+	 * Minimum time between rendered frames in nanoseconds, 0 when rendering is uncapped
+	 */
+	public static long getRenderPeriod()
+	{
+		return renderPeriod;
+	}
+	
+	/**
+	 * Real time that passed over the last rendered frame in seconds.
+	 * <p/>
+	 * Simulation should always step with {@link #getDeltaTime()}, this is only
+	 * meant for presentation and profiling.
+	 */
+	public static float getFrameDelta()
+	{
+		return frameDelta;
+	}
+	
+	/**
+	 * Simulated time let go of so far in nanoseconds.  When updates fall
+	 * further behind the clock than the panel will catch up on at once, the
+	 * time they missed is never simulated, and the game runs that much
+	 * slower than real time.
+	 */
+	public static long getDroppedTime()
+	{
+		return droppedTime;
+	}
 }
@@ -31,9 +31,19 @@ public class GameFrame extends JFrame implements WindowListener {
 	}
 	
 	public GameFrame(String title, int fps) {
+		this(title, fps, fps);
+	}
+	
+	/**
+	 * @param title
+	 * @param ups - fixed simulation updates per second
+	 * @param fps - max rendered frames per second, 0 or less for uncapped
+	 */
+	public GameFrame(String title, int ups, int fps) {
 		super(title);
 
-		Game.setPeriod((long) (1000.0 / fps)*1000000L);
+		Game.setPeriod((long) (1000000000.0 / ups));
+		Game.setRenderPeriod((fps > 0) ? (long) (1000000000.0 / fps) : 0L);
 	}
 
 	public void setGame(GamePanel panel) {
@@ -29,15 +29,28 @@ package com.kgp.core;
  events are caught.
  */
 
+import java.awt.AWTException;
+import java.awt.BorderLayout;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Image;
+import java.awt.ImageCapabilities;
 import java.awt.RenderingHints;
 import java.awt.Toolkit;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelListener;
 import java.awt.geom.AffineTransform;
+import java.awt.image.BufferStrategy;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.swing.JPanel;
 
@@ -48,15 +61,27 @@ public abstract class GamePanel extends JPanel implements Runnable {
 
 	private static final int NO_DELAYS_PER_YIELD = 16;
 	/*
-	 * Number of frames with a delay of 0 ms before the animation thread yields
-	 * to other running threads.
+	 * Number of uncapped frames rendered back to back before the animation
+	 * thread yields to other running threads.
 	 */
 	private static final int MAX_FRAME_SKIPS = 5;
-	// no. of frames that can be skipped in any one animation loop
+	// no. of updates that can be run in any one animation loop to catch up
 	// i.e the games state is updated but not rendered
 
+	private static final long SPIN_THRESHOLD = 1000000L;
+	/*
+	 * Remaining time (in ns) under which the pacing wait spins instead of
+	 * parking, as parkNanos can overshoot by close to a millisecond.
+	 */
+
 	private Thread animator; // the thread that performs the animation
-	private boolean running;
+	private volatile boolean running;
+
+	// draw on a thread of its own instead of between updates
+	private boolean renderThread;
+	private Thread renderer;
+	// time the latest update was due, for interpolating on the render thread
+	private volatile long lastTick;
 
 	protected volatile GameState prevState = GameState.Start;
 	protected volatile GameState state = GameState.Start;
@@ -72,6 +97,12 @@ public abstract class GamePanel extends JPanel implements Runnable {
 	private Graphics dbg;
 	private Image dbImage = null;
 
+	// accelerated rendering
+	private RenderMode renderMode = RenderMode.Software;
+	private Canvas canvas;
+	private BufferStrategy strategy;
+	private VolatileImage vImage;
+
 	private long gameStartTime;
 
 	protected GameFrame parent;
@@ -117,11 +148,92 @@ public abstract class GamePanel extends JPanel implements Runnable {
 	 */
 	abstract protected void initGame();
 
+	/**
+	 * Choose how frames are presented.  Must be set before the panel is added
+	 * to its frame.
+	 * 
+	 * @param mode
+	 */
+	public void setRenderMode(RenderMode mode) {
+		if (canvas != null || mode == RenderMode.Software) {
+			return;
+		}
+
+		renderMode = mode;
+
+		// the canvas covers the panel, so it's the one receiving input
+		canvas = new Canvas();
+		canvas.setIgnoreRepaint(true);
+		canvas.setFocusable(true);
+		canvas.setBackground(Color.white);
+
+		setLayout(new BorderLayout());
+		add(canvas, BorderLayout.CENTER);
+
+		for (KeyListener l : getKeyListeners())
+			canvas.addKeyListener(l);
+		for (MouseListener l : getMouseListeners())
+			canvas.addMouseListener(l);
+		for (MouseMotionListener l : getMouseMotionListeners())
+			canvas.addMouseMotionListener(l);
+		for (MouseWheelListener l : getMouseWheelListeners())
+			canvas.addMouseWheelListener(l);
+	}
+
+	public RenderMode getRenderMode() {
+		return renderMode;
+	}
+
+	/**
+	 * Choose whether frames are drawn on a thread of their own, so drawing
+	 * doesn't eat into the time each update has.  Must be set before the
+	 * panel is added to its frame.
+	 * <p/>
+	 * Only for games whose {@link #draw(Graphics2D, float)} doesn't touch
+	 * anything that {@link #gameUpdate()} changes, like ones drawing a copy
+	 * of their state made at the end of each update.
+	 * 
+	 * @param separate
+	 */
+	public void setRenderThread(boolean separate) {
+		renderThread = separate;
+	}
+
+	public boolean hasRenderThread() {
+		return renderThread;
+	}
+
+	public synchronized void addKeyListener(KeyListener l) {
+		super.addKeyListener(l);
+		if (canvas != null)
+			canvas.addKeyListener(l);
+	}
+
+	public synchronized void addMouseListener(MouseListener l) {
+		super.addMouseListener(l);
+		if (canvas != null)
+			canvas.addMouseListener(l);
+	}
+
+	public synchronized void addMouseMotionListener(MouseMotionListener l) {
+		super.addMouseMotionListener(l);
+		if (canvas != null)
+			canvas.addMouseMotionListener(l);
+	}
+
+	public synchronized void addMouseWheelListener(MouseWheelListener l) {
+		super.addMouseWheelListener(l);
+		if (canvas != null)
+			canvas.addMouseWheelListener(l);
+	}
+
 	/**
 	 * Wait for the JPanel to be added to the JFrame before starting
 	 */
 	final public void addNotify() {
 		super.addNotify(); // creates the peer
+		if (canvas != null)
+			canvas.requestFocus();
 		startGame(); // start the thread
 	}
 
@@ -168,59 +280,168 @@ public abstract class GamePanel extends JPanel implements Runnable {
 
 	/**
 	 * Game thread runner
+	 * <p/>
+	 * Steps the simulation at a fixed rate of {@link Game#getPeriod()} while
+	 * rendering as fast as {@link Game#getRenderPeriod()} allows.  Leftover time
+	 * that hasn't been simulated yet is handed to the draw as an interpolation
+	 * alpha so motion stays smooth when the two rates don't line up.
 	 */
 	final public void run()
 	{
-		long beforeTime, afterTime, timeDiff, sleepTime;
-		long overSleepTime = 0L;
-		int noDelays = 0;
-		long excess = 0L;
-
 		gameStartTime = System.nanoTime();
-		beforeTime = gameStartTime;
-
 		running = true;
 
-		while (running) {
-			gameUpdate();
-			gameRender();
-			paintScreen();
+		if (renderThread) {
+			lastTick = gameStartTime;
+			renderer = new Thread(new Runnable() {
+				public void run() {
+					runRenders();
+				}
+			}, "Renderer");
+			renderer.setDaemon(true);
+			renderer.start();
+			runUpdates();
+		}
+		else {
+			runTogether();
+		}
+		System.exit(0); // so window disappears
+	}
 
-			afterTime = System.nanoTime();
-			timeDiff = afterTime - beforeTime;
-			sleepTime = (Game.period - timeDiff) - overSleepTime;
+	/**
+	 * Updates and renders in turn on the animation thread
+	 */
+	private void runTogether()
+	{
+		long beforeTime, frameTime, accumulator = 0L;
+		int noDelays = 0;
 
-			if (sleepTime > 0) { // some time left in this cycle
-				try {
-					Thread.sleep(sleepTime / 1000000L); // nano -> ms
-				} catch (InterruptedException ex) {
-				}
-				overSleepTime = (System.nanoTime() - afterTime) - sleepTime;
-			} else { // sleepTime <= 0; the frame took longer than the period
-				excess -= sleepTime; // store excess time value
-				overSleepTime = 0L;
-
-				if (++noDelays >= NO_DELAYS_PER_YIELD) {
-					Thread.yield(); // give another thread a chance to run
-					noDelays = 0;
-				}
-			}
+		beforeTime = gameStartTime;
 
-			beforeTime = System.nanoTime();
+		while (running) {
+			long now = System.nanoTime();
+			frameTime = now - beforeTime;
+			beforeTime = now;
+			Game.frameDelta = frameTime / 1000000000f;
 
 			/*
 			 * If frame animation is taking too long, update the game state
-			 * without rendering it, to get the updates/sec nearer to the
-			 * required FPS.
+			 * without rendering it, but never more than MAX_FRAME_SKIPS times
+			 * in a row so a slow machine can't fall into a death spiral.
 			 */
+			accumulator += frameTime;
 			int skips = 0;
-			while ((excess > Game.period) && (skips < MAX_FRAME_SKIPS)) {
-				excess -= Game.period;
-				gameUpdate(); // update state but don't render
+			while (accumulator >= Game.period && skips < MAX_FRAME_SKIPS) {
+				gameUpdate();
+				accumulator -= Game.period;
 				skips++;
 			}
+			if (accumulator >= Game.period) {
+				// too far behind, let the missed updates go but keep count of them
+				Game.droppedTime += accumulator - accumulator % Game.period;
+				accumulator %= Game.period;
+			}
+
+			render(accumulator / (float) Game.period);
+
+			if (Game.renderPeriod > 0) {
+				waitUntil(now + Game.renderPeriod);
+			}
+			else if (++noDelays >= NO_DELAYS_PER_YIELD) {
+				Thread.yield(); // give another thread a chance to run
+				noDelays = 0;
+			}
+		}
+	}
+
+	/**
+	 * Only updates on the animation thread, at a fixed rate of
+	 * {@link Game#getPeriod()}, while the render thread draws
+	 */
+	private void runUpdates()
+	{
+		long next = gameStartTime;
+
+		while (running) {
+			// catch up on the updates that are due, but never more than
+			// MAX_FRAME_SKIPS in a row, same as when rendering in between
+			int skips = 0;
+			while (System.nanoTime() - next >= 0 && skips < MAX_FRAME_SKIPS) {
+				gameUpdate();
+				lastTick = next;
+				next += Game.period;
+				skips++;
+			}
+			long now = System.nanoTime();
+			if (now - next >= 0) {
+				// too far behind, let the missed time go but keep count of it
+				Game.droppedTime += now - next;
+				next = now;
+			}
+
+			waitUntil(next);
+		}
+	}
+
+	/**
+	 * Draws the latest update on the render thread for as long as the game
+	 * runs, as fast as {@link Game#getRenderPeriod()} allows
+	 */
+	private void runRenders()
+	{
+		long beforeTime = System.nanoTime();
+		int noDelays = 0;
+
+		while (running) {
+			long now = System.nanoTime();
+			Game.frameDelta = (now - beforeTime) / 1000000000f;
+			beforeTime = now;
+
+			// how far the clock is past the latest update
+			float alpha = (now - lastTick) / (float) Game.period;
+			render(Math.max(0f, Math.min(alpha, 1f)));
+
+			if (Game.renderPeriod > 0) {
+				waitUntil(now + Game.renderPeriod);
+			}
+			else if (++noDelays >= NO_DELAYS_PER_YIELD) {
+				Thread.yield(); // give another thread a chance to run
+				noDelays = 0;
+			}
+		}
+	}
+
+	/**
+	 * Draws a frame and presents it the way the render mode asks for
+	 */
+	private void render(float alpha)
+	{
+		if (renderMode == RenderMode.Accelerated) {
+			acceleratedRender(alpha);
+		}
+		else {
+			gameRender(alpha);
+			paintScreen();
+		}
+	}
+
+	/**
+	 * Block the animation thread until the given time.
+	 * <p/>
+	 * Parks for the bulk of the wait and spins through the last stretch, as
+	 * sleeping alone is only accurate to the millisecond.
+	 * 
+	 * @param deadline - {@link System#nanoTime()} to wait for
+	 */
+	private static void waitUntil(long deadline)
+	{
+		long remaining;
+		while ((remaining = deadline - System.nanoTime()) > SPIN_THRESHOLD) {
+			LockSupport.parkNanos(remaining - SPIN_THRESHOLD);
+		}
+		while (deadline - System.nanoTime() > 0) {
+			Thread.yield();
 		}
-		System.exit(0); // so window disappears
 	}
 
 	/**
@@ -232,15 +453,17 @@ public abstract class GamePanel extends JPanel implements Runnable {
 	 * Draws the game graphics specific to this panel
 	 * 
 	 * @param g
+	 * @param alpha - how far between the last and the next update this frame
+	 *            falls, from 0 to 1, for interpolating movement
 	 */
-	abstract protected void draw(Graphics2D g);
+	abstract protected void draw(Graphics2D g, float alpha);
 
 	/**
 	 * Performs the rendering of the game to a buffer.
 	 * <p/>
 	 * Ensures that the game has a buffer to render to
 	 */
-	final protected void gameRender() {
+	final protected void gameRender(float alpha) {
 		if (dbImage == null) {
 			dbImage = createImage(this.getPreferredSize().width,
 					this.getPreferredSize().height);
@@ -252,7 +475,7 @@ public abstract class GamePanel extends JPanel implements Runnable {
 			((Graphics2D)dbg).setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 		}
 
-		draw((Graphics2D) dbg);
+		draw((Graphics2D) dbg, alpha);
 	}
 
 	/**
@@ -274,6 +497,99 @@ public abstract class GamePanel extends JPanel implements Runnable {
 		}
 	}
 
+	/**
+	 * Renders a frame straight to the canvas' buffer strategy, scaling the game
+	 * up to the canvas size on the graphics hardware.
+	 * <p/>
+	 * Falls back to a volatile back buffer when the strategy can not be created.
+	 * Either way, the frame is redrawn for as long as the buffer loses its contents.
+	 */
+	private void acceleratedRender(float alpha) {
+		if (!canvas.isDisplayable() || canvas.getWidth() <= 0 || canvas.getHeight() <= 0)
+			return;
+
+		if (strategy == null)
+			strategy = createStrategy();
+
+		try {
+			if (strategy != null) {
+				do {
+					do {
+						Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+						renderScaled(g, alpha);
+						g.dispose();
+					} while (strategy.contentsRestored());
+					strategy.show();
+				} while (strategy.contentsLost());
+			}
+			else {
+				volatileRender(alpha);
+			}
+			Toolkit.getDefaultToolkit().sync();
+		} catch (IllegalStateException e) {
+			// the canvas was removed or changed its configuration, rebuild on the next frame
+			strategy = null;
+		}
+	}
+
+	/**
+	 * Try for page flipping first, as it only works in full screen on most systems
+	 */
+	private BufferStrategy createStrategy() {
+		try {
+			canvas.createBufferStrategy(2, new BufferCapabilities(
+					new ImageCapabilities(true), 
+					new ImageCapabilities(true), 
+					BufferCapabilities.FlipContents.UNDEFINED));
+		} catch (AWTException e) {
+			try {
+				canvas.createBufferStrategy(2);
+			} catch (IllegalStateException e2) {
+				return null;
+			}
+		} catch (IllegalStateException e) {
+			return null;
+		}
+		return canvas.getBufferStrategy();
+	}
+
+	/**
+	 * Draws the game into an accelerated off-screen image, recreating it whenever
+	 * its contents are lost, then scales it onto the canvas
+	 */
+	private void volatileRender(float alpha) {
+		GraphicsConfiguration gc = canvas.getGraphicsConfiguration();
+		int width = this.getPreferredSize().width;
+		int height = this.getPreferredSize().height;
+		do {
+			if (vImage == null || vImage.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+				vImage = canvas.createVolatileImage(width, height);
+			}
+
+			Graphics2D g = vImage.createGraphics();
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			draw(g, alpha);
+			g.dispose();
+
+			Graphics screen = canvas.getGraphics();
+			if (screen != null) {
+				screen.drawImage(vImage, 0, 0, canvas.getWidth(), canvas.getHeight(), 0, 0, width, height, null);
+				screen.dispose();
+			}
+		} while (vImage.contentsLost());
+	}
+
+	/**
+	 * Draws the game at its preferred size scaled to fill the canvas
+	 */
+	private void renderScaled(Graphics2D g, float alpha) {
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.scale(canvas.getWidth() / (double) this.getPreferredSize().width, 
+				canvas.getHeight() / (double) this.getPreferredSize().height);
+		g.clipRect(0, 0, this.getPreferredSize().width, this.getPreferredSize().height);
+		draw(g, alpha);
+	}
+
 	/**
 	 * @return the camera matrix of the panel
 	 */
@@ -0,0 +1,94 @@
+package com.kgp.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Counterpart to the GamePanel for running a game's simulation without any
+ * display, sound, or input.
+ * <p/>
+ * Updates are stepped back to back as fast as the machine allows, while the
+ * game still sees the same fixed {@link Game#getDeltaTime()} it would get when
+ * displayed, so the simulation behaves the same as it does on screen.
+ * 
+ * @author nhydock
+ */
+public abstract class HeadlessGame {
+
+	private long ticks;
+	private long elapsed;
+	private long allocated = -1L;
+
+	/**
+	 * @param ups - simulation updates per second the game is tuned for
+	 */
+	public HeadlessGame(int ups) {
+		Game.setPeriod((long) (1000000000.0 / ups));
+	}
+
+	/**
+	 * Initialize all game resources
+	 */
+	abstract protected void initGame();
+
+	/**
+	 * Updates this game's specific logic
+	 */
+	abstract protected void gameUpdate();
+
+	/**
+	 * Initializes the game and steps it a number of times
+	 * 
+	 * @param count - number of updates to run
+	 */
+	final public void run(long count) {
+		initGame();
+
+		ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+		com.sun.management.ThreadMXBean allocs = null;
+		if (mx instanceof com.sun.management.ThreadMXBean) {
+			allocs = (com.sun.management.ThreadMXBean) mx;
+		}
+		long thread = Thread.currentThread().getId();
+
+		long startBytes = (allocs != null) ? allocs.getThreadAllocatedBytes(thread) : -1L;
+		long startTime = System.nanoTime();
+		for (long i = 0; i < count; i++) {
+			gameUpdate();
+		}
+		elapsed = System.nanoTime() - startTime;
+		ticks = count;
+		if (allocs != null) {
+			allocated = allocs.getThreadAllocatedBytes(thread) - startBytes;
+		}
+	}
+
+	/**
+	 * @return number of updates performed by the last run
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * @return updates performed per second of real time during the last run
+	 */
+	public double getTicksPerSecond() {
+		return (elapsed > 0) ? ticks / (elapsed / 1000000000.0) : 0;
+	}
+
+	/**
+	 * @return average bytes allocated by the simulation thread per update, or
+	 *         a negative value if the JVM can not measure it
+	 */
+	public double getBytesPerTick() {
+		return (allocated >= 0 && ticks > 0) ? allocated / (double) ticks : -1;
+	}
+
+	/**
+	 * @return seconds of game time simulated by the last run
+	 */
+	public double getSimulatedSeconds() {
+		return ticks * (double) Game.getDeltaTime();
+	}
+}
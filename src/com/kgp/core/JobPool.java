@@ -0,0 +1,125 @@
+package com.kgp.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the same piece of work over a range of items on a work-stealing pool
+ * of threads, for the parts of an update where every item can be handled on
+ * its own.
+ * <p/>
+ * The range is split in halves until the pieces are small enough, and idle
+ * threads steal pieces from busy ones, so items that take longer than others
+ * don't hold the rest up.  The calling thread joins in and only returns once
+ * every item is done, so anything written during the run is visible to it
+ * afterwards.
+ * <p/>
+ * A pool of a single thread runs everything on the calling thread.
+ *
+ * @author nhydock
+ */
+public class JobPool {
+
+	/**
+	 * Work to do for a range of items.  Runs on several threads at once, each
+	 * with its own range, so it must only write to the items of its range.
+	 */
+	public interface Job {
+
+		/**
+		 * @param from - first item, inclusive
+		 * @param to - last item, exclusive
+		 */
+		public void run(int from, int to);
+	}
+
+	private static JobPool shared;
+
+	private final ForkJoinPool pool;
+	private final int threads;
+
+	/**
+	 * @param threads - number of threads to run on, including the caller
+	 */
+	public JobPool(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("A pool needs at least one thread");
+		}
+		this.threads = threads;
+		this.pool = (threads > 1) ? new ForkJoinPool(threads) : null;
+	}
+
+	/**
+	 * @return a pool with a thread for every processor, shared by everything
+	 *         that doesn't need its own
+	 */
+	public static synchronized JobPool shared() {
+		if (shared == null) {
+			shared = new JobPool(Runtime.getRuntime().availableProcessors());
+		}
+		return shared;
+	}
+
+	/**
+	 * Runs a job over a number of items, returning once all of them are done.
+	 * Any exception thrown by the job is thrown again from here.
+	 *
+	 * @param count - number of items
+	 * @param grain - fewest items worth handing to another thread
+	 * @param job
+	 */
+	public void run(int count, int grain, Job job) {
+		if (pool == null || count <= grain) {
+			job.run(0, count);
+		}
+		else {
+			pool.invoke(new Split(job, 0, count, Math.max(grain, 1)));
+		}
+	}
+
+	/**
+	 * @return number of threads the pool runs on
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Stops the threads of the pool once they are idle
+	 */
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Halves its range until it is no bigger than the grain
+	 */
+	@SuppressWarnings("serial")
+	private static final class Split extends RecursiveAction {
+
+		private final Job job;
+		private final int from;
+		private final int to;
+		private final int grain;
+
+		Split(Job job, int from, int to, int grain) {
+			this.job = job;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				job.run(from, to);
+			}
+			else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Split(job, from, middle, grain), new Split(job, middle, to, grain));
+			}
+		}
+	}
+}
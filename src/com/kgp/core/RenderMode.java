@@ -0,0 +1,20 @@
+package com.kgp.core;
+
+/**
+ * Ways a game panel can present its frames to the screen
+ * @author nhydock
+ *
+ */
+public enum RenderMode {
+
+	/**
+	 * Draw into a software back buffer and scale it onto the panel
+	 */
+	Software,
+	/**
+	 * Draw through a page flipping buffer strategy on a canvas, falling back
+	 * to an accelerated volatile back buffer when the strategy is unavailable
+	 */
+	Accelerated;
+	
+}
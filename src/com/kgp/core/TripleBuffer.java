@@ -0,0 +1,73 @@
+package com.kgp.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands whole frames of data from one thread to another without either of
+ * them ever waiting on the other.
+ * <p/>
+ * There are three slots.  The writer fills in the back slot and publishes it,
+ * which swaps it with the middle one.  The reader swaps the middle slot with
+ * its front slot whenever something new was published, so it always gets the
+ * latest completed frame and keeps it for as long as it needs.  Frames the
+ * reader was too slow to pick up are simply written over.
+ * <p/>
+ * Slots are made once and reused, so the writer has to fill in everything
+ * in the back slot every time, it may still hold a frame from a while ago.
+ * There must only be one writer and one reader.
+ *
+ * @author nhydock
+ *
+ * @param <T> - type of data in a slot
+ */
+public class TripleBuffer<T> {
+
+	// set on the middle index when it holds a frame the reader hasn't seen
+	private static final int FRESH = 4;
+
+	private final Object[] slots;
+	private final AtomicInteger middle = new AtomicInteger(2);
+	private int back = 0;
+	private int front = 1;
+
+	/**
+	 * @param a
+	 * @param b
+	 * @param c - the three slots, which must be separate objects
+	 */
+	public TripleBuffer(T a, T b, T c) {
+		if (a == b || b == c || a == c) {
+			throw new IllegalArgumentException("Every slot needs its own object");
+		}
+		this.slots = new Object[] { a, b, c };
+	}
+
+	/**
+	 * @return the slot the writer fills in for the next frame
+	 */
+	@SuppressWarnings("unchecked")
+	public T back() {
+		return (T) slots[back];
+	}
+
+	/**
+	 * Hands the back slot over to the reader, and gets a new back slot in
+	 * return.  Called by the writer once it is done filling the slot in.
+	 */
+	public void publish() {
+		back = middle.getAndSet(back | FRESH) & ~FRESH;
+	}
+
+	/**
+	 * @return the latest frame published, or the same one as last time if
+	 *         nothing new was published since.  Stays untouched by the writer
+	 *         until the next call.
+	 */
+	@SuppressWarnings("unchecked")
+	public T front() {
+		if ((middle.get() & FRESH) != 0) {
+			front = middle.getAndSet(front) & ~FRESH;
+		}
+		return (T) slots[front];
+	}
+}
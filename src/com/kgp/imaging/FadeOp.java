@@ -143,6 +143,19 @@ public class FadeOp implements BufferedImageOp {
 		this.fade(r, g, b, 1f);
 	}
 	
+	/**
+	 * Picks up the current color and progress of another fade
+	 * @param other
+	 */
+	public void copy(FadeOp other) {
+		for (int i = 0; i < 4; i++) {
+			this.color[i] = other.color[i];
+			this.prev[i] = other.prev[i];
+			this.next[i] = other.next[i];
+			this.step[i] = other.step[i];
+		}
+		this.timer = other.timer;
+	}
 
 	public boolean active() {
 		return timer > 0.0f;
@@ -6,12 +6,17 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
 import java.awt.image.ColorModel;
-import java.awt.image.Raster;
-import java.awt.image.WritableRaster;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
 
 /**
  * Performs a masking flash on a buffered image.  Does not affect alpha values,
  * only the colors, so it should look nice on all kinds of sprites.
+ * <p/>
+ * Flashes are drawn from a silhouette, the alpha channel of the source image
+ * pulled out ahead of time (see {@link ImagesLoader#getSilhouette(String, int)}),
+ * so each pass only has to fade it through a 256 entry lookup table and write
+ * it straight into the destination's pixel array.
  * @author nhydock
  *
  */
@@ -20,6 +25,11 @@ public class FlashOp implements BufferedImageOp {
 	private float[] color;
 	private float timer;
 	
+	// final ARGB value for each source alpha at the current flash state
+	private final int[] lut = new int[256];
+	// scratch row for destinations that can't be written to directly
+	private int[] row = new int[0];
+	
 	public FlashOp(){
 		color = new float[]{1.0f, 1.0f, 1.0f};
 	}
@@ -32,6 +42,10 @@ public class FlashOp implements BufferedImageOp {
 		return null;
 	}
 
+	/**
+	 * Pulls the silhouette out of the source on every call, images that flash
+	 * often should use {@link #filter(byte[], BufferedImage)} instead.
+	 */
 	@Override
 	public BufferedImage filter(BufferedImage arg0, BufferedImage arg1) {
 		if (timer <= 0f)
@@ -39,25 +53,71 @@ public class FlashOp implements BufferedImageOp {
 		
 		if (arg1 == null)
 			arg1 = new BufferedImage(arg0.getWidth(), arg0.getHeight(), BufferedImage.TYPE_INT_ARGB);
-
-		Raster r = arg0.getData();
-		WritableRaster w = arg1.getRaster();
-		float[] f = new float[4];
-		for (int x = 0; x < arg0.getWidth(); x++)
-			for (int y = 0; y < arg0.getHeight(); y++)
+		
+		filter(silhouette(arg0), arg1);
+		return arg1;
+	}
+	
+	/**
+	 * Fills an image with the flash, shaped like the silhouette of a source image
+	 * @param alpha - silhouette of the source, as made by {@link #silhouette(BufferedImage)}
+	 * @param arg1 - image the same size as the source to draw the flash into
+	 */
+	public void filter(byte[] alpha, BufferedImage arg1) {
+		if (timer <= 0f)
+			return;
+		
+		int width = arg1.getWidth();
+		int height = arg1.getHeight();
+		
+		// fade the flash color for every possible alpha value
+		int rgb = ((int)(255f * color[0]) << 16) | ((int)(255f * color[1]) << 8) | (int)(255f * color[2]);
+		float fade = Math.min(timer, 1.0f);
+		for (int a = 0; a < lut.length; a++)
+		{
+			lut[a] = ((int)(a * fade) << 24) | rgb;
+		}
+		
+		DataBuffer buffer = arg1.getRaster().getDataBuffer();
+		if (arg1.getType() == BufferedImage.TYPE_INT_ARGB && buffer instanceof DataBufferInt)
+		{
+			int[] pixels = ((DataBufferInt) buffer).getData();
+			for (int i = 0, n = width * height; i < n; i++)
+			{
+				pixels[i] = lut[alpha[i] & 0xff];
+			}
+		}
+		else
+		{
+			if (row.length < width)
+				row = new int[width];
+			for (int y = 0, i = 0; y < height; y++)
 			{
-				r.getPixel(x, y, f);
-				for (int i = 0; i < color.length; i++)
+				for (int x = 0; x < width; x++, i++)
 				{
-					f[i] = 255f;
-					f[i] *= color[i];
+					row[x] = lut[alpha[i] & 0xff];
 				}
-				f[3] *= timer;
-				w.setPixel(x, y, f);
+				arg1.setRGB(0, y, width, 1, row, 0, width);
 			}
-		
-		
-		return arg1;
+		}
+	}
+	
+	/**
+	 * Pulls out the alpha channel of an image
+	 * @param im
+	 * @return alpha values in row-major order
+	 */
+	public static byte[] silhouette(BufferedImage im)
+	{
+		int width = im.getWidth();
+		int height = im.getHeight();
+		int[] argb = im.getRGB(0, 0, width, height, null, 0, width);
+		byte[] alpha = new byte[argb.length];
+		for (int i = 0; i < argb.length; i++)
+		{
+			alpha[i] = (byte)(argb[i] >>> 24);
+		}
+		return alpha;
 	}
 	
 	/**
@@ -107,6 +167,24 @@ public class FlashOp implements BufferedImageOp {
 		timer = 1.0f;
 	}
 
+	/**
+	 * Picks up the color and time left of another flash
+	 * @param other
+	 */
+	public void copy(FlashOp other) {
+		this.color[0] = other.color[0];
+		this.color[1] = other.color[1];
+		this.color[2] = other.color[2];
+		this.timer = other.timer;
+	}
+
+	/**
+	 * Ends any flash that is currently playing
+	 */
+	public void stop() {
+		timer = 0f;
+	}
+
 	public boolean active() {
 		return timer > 0.0f;
 	}
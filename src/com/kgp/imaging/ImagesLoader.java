@@ -6,6 +6,7 @@ import java.awt.GraphicsEnvironment;
 import java.awt.Image;
 import java.awt.MediaTracker;
 import java.awt.Toolkit;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -14,6 +15,7 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Scanner;
 import java.util.StringTokenizer;
 
@@ -71,6 +73,24 @@ public class ImagesLoader {
 	 * name and filename.
 	 */
 	private HashMap<String, ArrayList<String>> gNamesMap;	
+	
+	/*
+	 * Blank images matching the size of each image in imagesMap, stored under
+	 * the same key and position.  Sprites render effects like flashing into
+	 * these, so they never need to copy an image while the game is running.
+	 */
+	private HashMap<String, ArrayList<BufferedImage>> masksMap;
+	
+	/*
+	 * Alpha channel of each image in imagesMap, stored under the same key and
+	 * position, so flashes can be drawn without reading the images back.
+	 */
+	private HashMap<String, ArrayList<byte[]>> silhouettesMap;
+	
+	/*
+	 * Names asked for that have no images, each is only reported once
+	 */
+	private HashSet<String> missing;
 
 	private GraphicsConfiguration gc;
 
@@ -90,11 +110,29 @@ public class ImagesLoader {
 
 	private void initLoader() {
 		this.imagesMap = new HashMap<String, ArrayList<BufferedImage>>();
+		this.masksMap = new HashMap<String, ArrayList<BufferedImage>>();
+		this.silhouettesMap = new HashMap<String, ArrayList<byte[]>>();
 		this.gNamesMap = new HashMap<String, ArrayList<String>>();
+		this.missing = new HashSet<String>();
 
-		GraphicsEnvironment ge = GraphicsEnvironment
-				.getLocalGraphicsEnvironment();
-		this.gc = ge.getDefaultScreenDevice().getDefaultConfiguration();
+		// there is no screen to be compatible with when running headless
+		if (!GraphicsEnvironment.isHeadless()) {
+			GraphicsEnvironment ge = GraphicsEnvironment
+					.getLocalGraphicsEnvironment();
+			this.gc = ge.getDefaultScreenDevice().getDefaultConfiguration();
+		}
+	}
+	
+	/**
+	 * Creates an image compatible with the screen, or a plain RGB(A) image
+	 * when there is no screen
+	 */
+	private BufferedImage createCompatibleImage(int width, int height, int transparency) {
+		if (gc != null)
+			return gc.createCompatibleImage(width, height, transparency);
+		
+		return new BufferedImage(width, height, (transparency == Transparency.OPAQUE) ? 
+				BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
 	}
 	
 	/**
@@ -171,13 +209,32 @@ public class ImagesLoader {
 		if (bi != null) {
 			ArrayList<BufferedImage> imsList = new ArrayList<BufferedImage>();
 			imsList.add(bi);
-			imagesMap.put(name, imsList);
+			storeImages(name, imsList);
 			System.out.println("  Stored " + name + "/" + fnm);
 			return true;
 		} else
 			return false;
 	}
 
+	/**
+	 * Stores a list of images under a name, along with a mask and a
+	 * silhouette for each of them
+	 * @param name
+	 * @param imsList
+	 */
+	private void storeImages(String name, ArrayList<BufferedImage> imsList)
+	{
+		ArrayList<BufferedImage> masks = new ArrayList<BufferedImage>(imsList.size());
+		ArrayList<byte[]> silhouettes = new ArrayList<byte[]>(imsList.size());
+		for (BufferedImage im : imsList) {
+			masks.add(new BufferedImage(im.getWidth(), im.getHeight(), BufferedImage.TYPE_INT_ARGB));
+			silhouettes.add(FlashOp.silhouette(im));
+		}
+		imagesMap.put(name, imsList);
+		masksMap.put(name, masks);
+		silhouettesMap.put(name, silhouettes);
+	}
+
 	/**
 	 * extract name before '.' of filename
 	 * @param fnm
@@ -279,7 +336,7 @@ public class ImagesLoader {
 		if (loadCount == 0)
 			System.out.println("No images loaded for " + prefix);
 		else
-			imagesMap.put(prefix, imsList);
+			storeImages(prefix, imsList);
 
 		return loadCount;
 	}
@@ -360,7 +417,7 @@ public class ImagesLoader {
 		if (loadCount == 0)
 			System.out.println("No images loaded for " + name);
 		else
-			imagesMap.put(name, imsList);
+			storeImages(name, imsList);
 
 		return name;
 	}
@@ -403,7 +460,7 @@ public class ImagesLoader {
 		if (loadCount == 0)
 			System.out.println("No images loaded for " + name);
 		else
-			imagesMap.put(name, imsList);
+			storeImages(name, imsList);
 
 		return name;
 	}
@@ -472,7 +529,7 @@ public class ImagesLoader {
 		if (loadCount == 0)
 			System.out.println("No images loaded for " + name);
 		else {
-			imagesMap.put(name, imsList);
+			storeImages(name, imsList);
 			gNamesMap.put(name, nms);
 		}
 
@@ -491,6 +548,17 @@ public class ImagesLoader {
 		return loadGroupImages(name, al);
 	}
 
+	/**
+	 * Reports that there are no images under a name, the first time it's
+	 * asked for.  Sprites without images ask for them every time they change
+	 * what they show, which shouldn't fill the console or the heap.
+	 */
+	private void missing(String name) {
+		if (missing.add(name)) {
+			System.out.println("No image(s) stored under " + name);
+		}
+	}
+
 	/**
 	 * Get the image associated with <name>. If there are several images stored
 	 * under that name, return the first one in the list.
@@ -499,7 +567,7 @@ public class ImagesLoader {
 	{
 		ArrayList<BufferedImage> imsList = imagesMap.get(name);
 		if (imsList == null) {
-			System.out.println("No image(s) stored under " + name);
+			missing(name);
 			return null;
 		}
 
@@ -516,7 +584,7 @@ public class ImagesLoader {
 	{
 		ArrayList<BufferedImage> imsList = imagesMap.get(name);
 		if (imsList == null) {
-			System.out.println("No image(s) stored under " + name);
+			missing(name);
 			return null;
 		}
 
@@ -537,6 +605,44 @@ public class ImagesLoader {
 		return (BufferedImage) imsList.get(posn);
 	}
 
+	/**
+	 * Get the mask image for the image associated with {name} at position {posn} 
+	 * in its list.  Positions are resolved the same way as {@link #getImage(String, int)}
+	 * <p/>
+	 * Masks are shared by every sprite using the image, so they should only be
+	 * written to right before being drawn.
+	 */
+	public BufferedImage getMask(String name, int posn)
+	{
+		ArrayList<BufferedImage> masks = masksMap.get(name);
+		if (masks == null) {
+			return null;
+		}
+
+		if (posn < 0) {
+			return masks.get(0);
+		}
+		return masks.get(posn % masks.size());
+	}
+
+	/**
+	 * Get the alpha channel of the image associated with {name} at position
+	 * {posn} in its list, for drawing flashes into its mask.  Positions are
+	 * resolved the same way as {@link #getImage(String, int)}
+	 */
+	public byte[] getSilhouette(String name, int posn)
+	{
+		ArrayList<byte[]> silhouettes = silhouettesMap.get(name);
+		if (silhouettes == null) {
+			return null;
+		}
+
+		if (posn < 0) {
+			return silhouettes.get(0);
+		}
+		return silhouettes.get(posn % silhouettes.size());
+	}
+
 	/**
 	 * Get the image associated with the group {name} and filename prefix
 	 * {fnmPrefix}.
@@ -546,7 +652,7 @@ public class ImagesLoader {
 	{
 		ArrayList<BufferedImage> imsList = imagesMap.get(name);
 		if (imsList == null) {
-			System.out.println("No image(s) stored under " + name);
+			missing(name);
 			return null;
 		}
 
@@ -594,7 +700,7 @@ public class ImagesLoader {
 	public ArrayList<BufferedImage> getImages(String name) {
 		ArrayList<BufferedImage> imsList = imagesMap.get(name);
 		if (imsList == null) {
-			System.out.println("No image(s) stored under " + name);
+			missing(name);
 			return null;
 		}
 
@@ -626,7 +732,7 @@ public class ImagesLoader {
 		ArrayList<BufferedImage> imsList = (ArrayList<BufferedImage>) imagesMap
 				.get(name);
 		if (imsList == null) {
-			System.out.println("No image(s) stored under " + name);
+			missing(name);
 			return 0;
 		}
 		return imsList.size();
@@ -644,7 +750,7 @@ public class ImagesLoader {
 			// _not_ a managed image, but is after copying!
 
 			int transparency = im.getColorModel().getTransparency();
-			BufferedImage copy = gc.createCompatibleImage(im.getWidth(),
+			BufferedImage copy = createCompatibleImage(im.getWidth(),
 					im.getHeight(), transparency);
 			// create a graphics context
 			Graphics2D g2d = copy.createGraphics();
@@ -746,7 +852,7 @@ public class ImagesLoader {
 
 		// each BufferedImage from the strip file is stored in strip[]
 		for (int i = 0; i < number; i++) {
-			strip[i] = gc.createCompatibleImage(imWidth, height, transparency);
+			strip[i] = createCompatibleImage(imWidth, height, transparency);
 
 			// create a graphics context
 			stripGC = strip[i].createGraphics();
@@ -66,11 +66,29 @@ public class ImagesPlayer extends Observable {
 	 */
 	public ImagesPlayer(String nm, float period, float duration, boolean loop,
 			ImagesLoader il) {
+		imsLoader = il;
+		play(nm, period, duration, loop);
+	}
+
+	/**
+	 * Starts the player over on another animation, so a sprite can keep one
+	 * player for all of its animations.  Observers are kept.
+	 * 
+	 * @param nm
+	 *            - name of the image group
+	 * @param period
+	 *            - avg rate of change of the game (in sec)
+	 * @param duration
+	 *            - length of time it should take to play the entire animation
+	 *            (in sec)
+	 * @param loop
+	 *            - tell if the image should loop or play once
+	 */
+	public void play(String nm, float period, float duration, boolean loop) {
 		imName = nm;
 		seqDuration = duration;
 		this.loop = loop;
 		this.period = period;
-		imsLoader = il;
 
 		if (seqDuration < 0.5f) {
 			System.out.println("Warning: minimum sequence duration is 0.5 sec.");
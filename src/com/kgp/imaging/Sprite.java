@@ -1,15 +1,11 @@
 package com.kgp.imaging;
 
 
-import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
-import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.awt.image.ColorModel;
-import java.awt.image.WritableRaster;
-import java.util.Observable;
 
 import com.kgp.core.Game;
 import com.kgp.util.Vector2;
@@ -27,10 +23,10 @@ import com.kgp.util.Vector2;
  *  
  *  @author Andrew Davison, April 2005, ad@fivedots.coe.psu.ac.th
  */
-public class Sprite extends Observable {
+public class Sprite {
 
 	// default dimensions when there is no image
-	private static final int SIZE = 12;
+	static final int SIZE = 12;
 
 	// image-related
 	protected ImagesLoader imsLoader;
@@ -39,6 +35,8 @@ public class Sprite extends Observable {
 	
 	// for playing a loop of images
 	protected ImagesPlayer player;
+	// last player used, started over for the next animation
+	private ImagesPlayer lastPlayer;
 
 	private boolean isActive = true;
 	// a sprite is updated and drawn only when it is active
@@ -53,6 +51,12 @@ public class Sprite extends Observable {
 	 * Real position of the sprite in the world
 	 */
 	protected Vector2 position;
+	/**
+	 * Position of the sprite as of the last two completed updates,
+	 * used for interpolating between ticks when rendering
+	 */
+	private Vector2 lastPosition;
+	private Vector2 currPosition;
 	/**
 	 * Offset used for rendering
 	 */
@@ -74,16 +78,21 @@ public class Sprite extends Observable {
 	
 	protected Dimension pDimensions;
 
-	protected AffineTransform trans = AffineTransform.getTranslateInstance(0, 0);
 	protected boolean flipX = false;
 	
 	protected float duration;
 	
 	protected FlashOp flash;
 	private BufferedImage mask;
+	private byte[] silhouette;
+	
+	// what the sprite looked like when it was last drawn directly
+	private SpriteSnapshot drawn;
 	
 	public Sprite(float x, float y, int w, int h, ImagesLoader imsLd, String name) {
 		this.position = new Vector2();
+		this.lastPosition = new Vector2();
+		this.currPosition = new Vector2();
 		this.velocity = new Vector2();
 		this.offset = new Vector2();
 
@@ -105,16 +114,23 @@ public class Sprite extends Observable {
 	{
 		imageName = name;
 		image = imsLoader.getImage(imageName);
+		// the loader reports images it doesn't have
+		if (dimensions == null) {
+			dimensions = new Dimension();
+			myRect = new Rectangle();
+		}
 		if (image == null) {
-			System.out.println("No sprite image for " + imageName);
-			dimensions = new Dimension(SIZE, SIZE);
+			dimensions.setSize(SIZE, SIZE);
 		} else {
-			dimensions = new Dimension(image.getWidth(), image.getHeight());
-			mask = cloneImage(image);
+			dimensions.setSize(image.getWidth(), image.getHeight());
+			mask = imsLoader.getMask(imageName, 0);
+			silhouette = imsLoader.getSilhouette(imageName, 0);
 		}
-		//create bounding box
-		this.myRect = new Rectangle(0, 0, dimensions.width, dimensions.height);
+		//bounding box, reused as sprites change images all the time
+		this.myRect.setBounds(0, 0, dimensions.width, dimensions.height);
 		// no image loop playing
+		if (player != null)
+			lastPlayer = player;
 		player = null;
 		
 	}
@@ -154,10 +170,10 @@ public class Sprite extends Observable {
 	 *            - The total time for the loop to play the sequence
 	 */
 	public void loopImage(float seqDuration) {
-		if (imsLoader.numImages(imageName) > 1) {
-			player = null; // to encourage garbage collection of previous player
-			player = new ImagesPlayer(imageName, Game.getDeltaTime(), seqDuration, true, imsLoader);
-		} else {
+		int images = imsLoader.numImages(imageName);
+		if (images > 1) {
+			player = animate(seqDuration, true);
+		} else if (images == 1) {
 			System.out.println(imageName + " is not a sequence of images");
 		}
 	}
@@ -171,14 +187,26 @@ public class Sprite extends Observable {
 	 *            - The total time for the loop to play the sequence
 	 */
 	public void playImage(float seqDuration) {
-		if (imsLoader.numImages(imageName) > 1) {
-			player = null; // to encourage garbage collection of previous player
-			player = new ImagesPlayer(imageName, Game.getDeltaTime(), seqDuration, false, imsLoader);
-		} else {
+		int images = imsLoader.numImages(imageName);
+		if (images > 1) {
+			player = animate(seqDuration, false);
+		} else if (images == 1) {
 			System.out.println(imageName + " is not a sequence of images");
 		}
 	}
 
+	/**
+	 * @return a player started on the sprite's image, reusing the last one
+	 */
+	private ImagesPlayer animate(float seqDuration, boolean loop) {
+		ImagesPlayer p = (player != null) ? player : lastPlayer;
+		if (p == null) {
+			return new ImagesPlayer(imageName, Game.getDeltaTime(), seqDuration, loop, imsLoader);
+		}
+		p.play(imageName, Game.getDeltaTime(), seqDuration, loop);
+		return p;
+	}
+
 	public void stopLooping() {
 		if (player != null)
 			player.stop();
@@ -214,6 +242,9 @@ public class Sprite extends Observable {
 	public void setPosition(float x, float y) {
 		this.position.x = x;
 		this.position.y = y;
+		// teleporting should not be smoothed over when drawing
+		this.lastPosition.set(x, y);
+		this.currPosition.set(x, y);
 	}
 	
 	public float getXPosn() {
@@ -241,7 +272,9 @@ public class Sprite extends Observable {
 	}
 	
 	/**
-	 * The sprite's position
+	 * A copy of the sprite's position.  Nothing calls this while the game
+	 * updates, use {@link #getXPosn()} and {@link #getYPosn()} there so no
+	 * vectors are made every tick.
 	 */
 	public Vector2 getPosn() {
 		return this.position.clone();
@@ -298,14 +331,23 @@ public class Sprite extends Observable {
 		return myRect;
 	}
 	
+	/**
+	 * Moves the sprite along its velocity for one cycle.  Sprites that can
+	 * run into things override this to stop where they do.
+	 * @param delta - seconds to move for
+	 */
+	protected void move(float delta)
+	{
+		this.position.add(this.velocity.x * delta, this.velocity.y * delta);
+	}
+	
 	/**
 	 * Perform standard actions for the sprite on each cycle
 	 */
 	public void updateSprite()
 	{
 		if (isActive()) {
-			this.position.add(this.velocity.x * Game.getDeltaTime(), 
-							  this.velocity.y * Game.getDeltaTime());
+			move(Game.getDeltaTime());
 			this.angle += this.rotation * Game.getDeltaTime();
 			
 			// update the animation
@@ -315,54 +357,92 @@ public class Sprite extends Observable {
 			}
 		}
 		
-		trans.setToTranslation((int)this.position.x + this.offset.x, (int)this.position.y + this.offset.y);
-		trans.rotate(this.angle, this.getWidth()/2, this.getHeight()/2);
-		if (flipX)
-		{
-			trans.translate(this.getWidth(), 0);
-			trans.scale(-1.0, 1.0);
-		}
+		this.lastPosition.cpy(this.currPosition);
+		this.currPosition.cpy(this.position);
 		
 		flash.update(Game.getDeltaTime());
 	}
+	
+	/**
+	 * Copies what the sprite looks like as of its last update, for drawing it
+	 * somewhere the sprite itself can't be touched, like another thread.
+	 * @param s - snapshot to fill in
+	 */
+	public void capture(SpriteSnapshot s) {
+		if (player != null && image != null) {
+			BufferedImage i = player.getCurrentImage();
+			if (i != image)
+			{
+				image = i;
+				//only look up the mask when the frame is changed
+				mask = imsLoader.getMask(imageName, player.getCurrentPosition());
+				silhouette = imsLoader.getSilhouette(imageName, player.getCurrentPosition());
+			}
+		}
+		
+		s.active = isActive();
+		s.lastX = this.lastPosition.x;
+		s.lastY = this.lastPosition.y;
+		s.currX = this.currPosition.x;
+		s.currY = this.currPosition.y;
+		s.offsetX = this.offset.x;
+		s.offsetY = this.offset.y;
+		s.angle = this.angle;
+		s.flipX = this.flipX;
+		s.width = this.getWidth();
+		s.height = this.getHeight();
+		s.pWidth = this.getPWidth();
+		s.pHeight = this.getPHeight();
+		s.image = this.image;
+		s.mask = this.mask;
+		s.silhouette = this.silhouette;
+		s.flashing = this.flash.active();
+		if (s.flashing) {
+			if (s.flash == null)
+				s.flash = new FlashOp();
+			s.flash.copy(this.flash);
+		}
+	}
 
 	/**
 	 * Draws the sprite to the graphics context
 	 * @param g
 	 */
 	public void drawSprite(Graphics2D g) {
-		if (isActive()) {
-			// if the sprite has no image, draw a yellow circle instead
-			if (image == null) { 
-				g.setColor(Color.yellow);
-				g.fillOval((int)this.position.x, (int)this.position.y, SIZE, SIZE);
-				g.setColor(Color.black);
-			} 
-			else {
-				if (player != null) {
-					BufferedImage i = player.getCurrentImage();
-					if (i != image)
-					{
-						image = i;
-						//only clone when the frame is changed
-						mask = cloneImage(image);
-					}
-				}
-				if (flash.active()){
-					flash.filter(image, mask);
-					g.drawImage(image, trans, null);
-					g.drawImage(mask, trans, null);
-				}
-				else
-					g.drawImage(image, trans, null);		
-			}
-		}
+		drawSprite(g, 1.0f);
 	}
-
-	private static BufferedImage cloneImage(BufferedImage bi) {
-		 ColorModel cm = bi.getColorModel();
-		 boolean isAlphaPremultiplied = cm.isAlphaPremultiplied();
-		 WritableRaster raster = bi.copyData(null);
-		 return new BufferedImage(cm, raster, isAlphaPremultiplied, null);
+	
+	/**
+	 * Draws the sprite to the graphics context between its last two updated positions
+	 * @param g
+	 * @param alpha - interpolation between the previous (0) and current (1) update
+	 */
+	public void drawSprite(Graphics2D g, float alpha) {
+		capture(drawn());
+		drawn.draw(g, alpha);
+	}
+	
+	/**
+	 * Draws the sprite between its last two updated positions, but only if
+	 * some of it is within view.
+	 * @see SpriteSnapshot#draw(Graphics2D, float, Rectangle2D, float)
+	 * @param g
+	 * @param alpha - interpolation between the previous (0) and current (1) update
+	 * @param view - visible area of the world
+	 * @param wrap - width at which the world repeats, 0 if it doesn't
+	 * @return true if the sprite was drawn, false if it was culled
+	 */
+	public boolean drawSprite(Graphics2D g, float alpha, Rectangle2D view, float wrap) {
+		capture(drawn());
+		return drawn.draw(g, alpha, view, wrap);
+	}
+	
+	/**
+	 * Snapshot for drawing the sprite straight from the thread updating it
+	 */
+	private SpriteSnapshot drawn() {
+		if (drawn == null)
+			drawn = new SpriteSnapshot();
+		return drawn;
 	}
 }
@@ -0,0 +1,169 @@
+package com.kgp.imaging;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Everything needed to draw a sprite as of its last update, so it can be drawn
+ * on one thread while the sprite itself goes on updating on another.
+ * <p/>
+ * Filled in by {@link Sprite#capture(SpriteSnapshot)}.  Snapshots are meant to be
+ * captured over again and again, each capture replaces all of what was in it.
+ *
+ * @author nhydock
+ */
+public final class SpriteSnapshot {
+
+	boolean active;
+
+	// positions as of the last two updates
+	float lastX, lastY;
+	float currX, currY;
+
+	float offsetX, offsetY;
+	float angle;
+	boolean flipX;
+
+	int width, height;
+	// size of the panel, jumps larger than half of it are wraparounds
+	int pWidth, pHeight;
+
+	// current frame of the sprite's animation, null if it has no image
+	BufferedImage image;
+	BufferedImage mask;
+	byte[] silhouette;
+
+	// copy of the sprite's flash, only made once the sprite first flashes
+	boolean flashing;
+	FlashOp flash;
+
+	private final AffineTransform trans = new AffineTransform();
+
+	/**
+	 * @return true if the sprite was active when captured
+	 */
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * Moves the captured sprite somewhere else, so one capture can draw any
+	 * number of sprites that look the same
+	 * @param lastX
+	 * @param lastY - position as of the update before the last
+	 * @param currX
+	 * @param currY - position as of the last update
+	 * @param angle - orientation
+	 */
+	public void place(float lastX, float lastY, float currX, float currY, float angle) {
+		this.lastX = lastX;
+		this.lastY = lastY;
+		this.currX = currX;
+		this.currY = currY;
+		this.angle = angle;
+	}
+
+	/**
+	 * Draws the sprite between its last two updated positions
+	 * @param g
+	 * @param alpha - interpolation between the previous (0) and current (1) update
+	 */
+	public void draw(Graphics2D g, float alpha) {
+		if (!active) {
+			return;
+		}
+		alpha = smoothing(alpha);
+		float x = lastX + (currX - lastX) * alpha;
+		float y = lastY + (currY - lastY) * alpha;
+		render(g, x, y);
+	}
+
+	/**
+	 * Draws the sprite between its last two updated positions, but only if
+	 * some of it is within view.  When the world wraps around horizontally,
+	 * the sprite is drawn at each repeat of the world that the view covers.
+	 * @param g
+	 * @param alpha - interpolation between the previous (0) and current (1) update
+	 * @param view - visible area of the world
+	 * @param wrap - width at which the world repeats, 0 if it doesn't
+	 * @return true if the sprite was drawn, false if it was culled
+	 */
+	public boolean draw(Graphics2D g, float alpha, Rectangle2D view, float wrap) {
+		if (!active) {
+			return false;
+		}
+		alpha = smoothing(alpha);
+		float drawX = lastX + (currX - lastX) * alpha;
+		float drawY = lastY + (currY - lastY) * alpha;
+
+		float w = width;
+		float h = height;
+		float left = (int)drawX + offsetX;
+		float top = (int)drawY + offsetY;
+		if (angle != 0) {
+			// rotating about the center can reach as far as the corners
+			float r = (float)Math.hypot(w, h) / 2f;
+			left += w / 2f - r;
+			top += h / 2f - r;
+			w = h = 2 * r;
+		}
+
+		if (top > view.getMaxY() || top + h < view.getMinY()) {
+			return false;
+		}
+		int first = 0, last = 0;
+		if (wrap > 0) {
+			first = (int)Math.ceil((view.getMinX() - left - w) / wrap);
+			last = (int)Math.floor((view.getMaxX() - left) / wrap);
+		}
+		else if (left > view.getMaxX() || left + w < view.getMinX()) {
+			return false;
+		}
+
+		for (int i = first; i <= last; i++) {
+			// shift whole pixels so each repeat lands exactly where the sprite would
+			render(g, (int)drawX + i * wrap, drawY);
+		}
+		return first <= last;
+	}
+
+	/**
+	 * Large jumps are wraparounds, don't slide across the world for them
+	 */
+	private float smoothing(float alpha) {
+		if (Math.abs(currX - lastX) > pWidth / 2f || Math.abs(currY - lastY) > pHeight / 2f) {
+			return 1.0f;
+		}
+		return alpha;
+	}
+
+	/**
+	 * Draws the captured frame at a position in the world
+	 */
+	private void render(Graphics2D g, float x, float y) {
+		// if the sprite has no image, draw a yellow circle instead
+		if (image == null) {
+			g.setColor(Color.yellow);
+			g.fillOval((int)x, (int)y, Sprite.SIZE, Sprite.SIZE);
+			g.setColor(Color.black);
+			return;
+		}
+
+		trans.setToTranslation((int)x + offsetX, (int)y + offsetY);
+		trans.rotate(angle, width/2, height/2);
+		if (flipX) {
+			trans.translate(width, 0);
+			trans.scale(-1.0, 1.0);
+		}
+
+		g.drawImage(image, trans, null);
+		if (flashing) {
+			// masks are shared between sprites, so fill it right before drawing it
+			flash.filter(silhouette, mask);
+			g.drawImage(mask, trans, null);
+		}
+	}
+}
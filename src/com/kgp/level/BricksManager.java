@@ -36,8 +36,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.StringTokenizer;
 
 import revert.util.BrickManager;
+import revert.util.LevelData;
+import revert.util.TileMask;
 
 import com.kgp.imaging.ImagesLoader;
 import com.kgp.util.Vector2;
@@ -59,10 +62,6 @@ public class BricksManager extends BrickManager {
 	// moveSize == the width of a brick image * MOVE_FACTOR
 	/* The ribbons and 'jack' use the same moveSize value. */
 
-	private int xRange;
-	private int left;
-	private int right;
-
 	private ImagesLoader imsLoader;
 	private ArrayList<BufferedImage> brickImages = null;
 
@@ -109,18 +108,67 @@ public class BricksManager extends BrickManager {
 	 * 
 	 * The configuration file can contain empty lines and comment lines (those
 	 * starting with //), which are ignored.
+	 * 
+	 * If the map has been compiled with LevelCompiler, the compiled version
+	 * is loaded instead.
 	 */
 	public void loadBricksFile(String fnm) {
-		String imsFNm = BRICKS_DIR + fnm;
-		System.out.println("Reading bricks file: " + imsFNm);
-
+		int ext = fnm.lastIndexOf('.');
+		String compiled = BRICKS_DIR + ((ext == -1) ? fnm : fnm.substring(0, ext)) + LevelData.EXTENSION;
+		LevelData data = null;
+		try {
+			data = LevelData.load(compiled);
+		}
+		catch (IOException e) {
+			System.out.println("Ignoring compiled bricks file: " + e.getMessage());
+		}
+		
+		if (data == null) {
+			String imsFNm = BRICKS_DIR + fnm;
+			System.out.println("Reading bricks file: " + imsFNm);
+			try {
+				InputStream in = getClass().getClassLoader().getResourceAsStream(imsFNm);
+				data = parseBricksFile(in);
+			}
+			catch (IOException e) {
+				System.out.println("Error reading file: " + imsFNm);
+				System.exit(1);
+			}
+			
+			int gap = findGap(data.bricks);
+			if (gap != -1) {
+				System.out.println("Gap found in bricks map bottom line at position " + gap);
+				System.exit(-1);
+			}
+		}
+		else {
+			System.out.println("Loaded compiled bricks file: " + compiled);
+		}
+		
+		if (data.strip != null) {
+			brickImages = imsLoader.getStripImages(data.strip);
+			imWidth = brickImages.get(0).getWidth();
+			imHeight = brickImages.get(0).getHeight();
+		}
+		
+		setTiles(data);
+	}
+	
+	/**
+	 * Reads a bricks map configuration file without loading any of its images
+	 * 
+	 * @param in - contents of the file
+	 * @return the map's tiles, tile sizes are left to be taken from the images
+	 * @throws IOException
+	 */
+	public static LevelData parseBricksFile(InputStream in) throws IOException {
 		ArrayList<Brick> bricksList = new ArrayList<Brick>();
+		LevelData data = new LevelData();
 
 		int numStripImages = -1;
 		int numBricksLines = 0;
+		BufferedReader br = new BufferedReader(new InputStreamReader(in));
 		try {
-			InputStream in = getClass().getClassLoader().getResourceAsStream(imsFNm);
-			BufferedReader br = new BufferedReader(new InputStreamReader(in));
 			String line;
 			char ch;
 			while ((line = br.readLine()) != null) {
@@ -131,10 +179,13 @@ public class BricksManager extends BrickManager {
 				ch = Character.toLowerCase(line.charAt(0));
 				if (ch == 's') // an images strip
 				{
-					brickImages = imsLoader.getStripImages(line);
-					numStripImages = brickImages.size();
-					imWidth = brickImages.get(0).getWidth();
-					imHeight = brickImages.get(0).getHeight();
+					StringTokenizer tokens = new StringTokenizer(line);
+					if (tokens.countTokens() != 3)
+						throw new IOException("Wrong no. of arguments for " + line);
+					tokens.nextToken();
+					tokens.nextToken();
+					numStripImages = Integer.parseInt(tokens.nextToken());
+					data.strip = line;
 				}
 				else { // a bricks map line
 					if (numBricksLines > MAX_BRICKS_LINES)
@@ -142,45 +193,39 @@ public class BricksManager extends BrickManager {
 					else if (numStripImages == -1)
 						System.out.println("No strip image, skipping bricks line: " + line);
 					else {
-						storeBricks(line, numBricksLines, numStripImages, bricksList);
+						data.cols = Math.max(data.cols, storeBricks(line, numBricksLines, numStripImages, bricksList));
 						numBricksLines++;
 					}
 				}
 			}
-			br.close();
 		}
-		catch (IOException e) {
-			System.out.println("Error reading file: " + imsFNm);
-			System.exit(1);
+		finally {
+			br.close();
 		}
 
-		numRows = numBricksLines;
+		data.rows = numBricksLines;
 
-		bricks = new int[numRows][numCols];
-		collisionMask = new boolean[numCols][numRows];
+		data.bricks = new int[data.rows][data.cols];
+		data.mask = new TileMask(data.cols, data.rows);
 
 		for (Brick b : bricksList) {
-			bricks[b.y][b.x] = b.type;
+			data.bricks[b.y][b.x] = b.type;
 			if (b.type > 0) {
-				collisionMask[b.x][b.y] = true;
+				data.mask.set(b.x, b.y, true);
 			}
 		}
 
-		bricksList = null;
-
-		checkForGaps();
+		return data;
 	}
 
 	/**
 	 * Read a single bricks line, and create Brick objects. A line contains
 	 * digits and spaces (which are ignored). Each digit becomes a Brick object.
 	 * The collection of Brick objects are stored in the bricksList ArrayList.
+	 * 
+	 * @return width of the line in bricks
 	 */
-	private void storeBricks(String line, int lineNo, int numImages, ArrayList<Brick> bricksList) {
-		if (line.length() > numCols) {
-			numCols = line.length();
-		}
-
+	private static int storeBricks(String line, int lineNo, int numImages, ArrayList<Brick> bricksList) {
 		int imageID;
 		for (int x = 0; x < line.length(); x++) {
 			char ch = line.charAt(x);
@@ -197,6 +242,7 @@ public class BricksManager extends BrickManager {
 			else
 				System.out.println("Brick char " + ch + " is not a digit");
 		}
+		return line.length();
 	} // end of storeBricks()
 
 	// --------------- initialise bricks data structures -----------------
@@ -205,8 +251,10 @@ public class BricksManager extends BrickManager {
 	 * Check that the bottom map line (numRows-1) has a brick in every x
 	 * position from 0 to numCols-1. This prevents 'jack' from falling down a
 	 * hole at the bottom of the panel.
+	 * 
+	 * @return column of the first gap found, -1 if there are none
 	 */
-	private void checkForGaps() {
+	public static int findGap(int[][] bricks) {
 		for (int c = 0; c < bricks[bricks.length - 1].length; c++) {
 			int i = bricks[bricks.length - 1][c];
 			boolean gap = false;
@@ -219,19 +267,14 @@ public class BricksManager extends BrickManager {
 				}
 			}
 			if (gap) {
-				System.out.println("Gap found in bricks map bottom line at position " + c);
-				System.exit(-1);
+				return c;
 			}
 		}
+		return -1;
 	}
 
 	public void update() {
-		xRange = (int) currentPos.x;
-		left = (int) ((xRange - pWidth / 2f) / (float) imWidth) - 1;
-		right = (int) Math.ceil((xRange + pWidth / 2f) / (float) imWidth);
-
-		// System.out.printf("Vis Range: %d\nLeft/Right: %d %d\n", visCols,
-		// left, right);
+		// the visible bricks are worked out from the clip when drawing
 	}
 
 	// -------------- draw the bricks ----------------------
@@ -255,20 +298,22 @@ public class BricksManager extends BrickManager {
 
 	@Override
 	public void display(Graphics2D g) {
-		for (int i = left, loc = left, x = loc * imWidth; i <= right; i++, loc++, x += imWidth) {
-			if (loc < 0) {
-				loc += numCols;
-			}
-			else if (loc >= numCols) {
-				loc %= numCols;
-			}
+		drawMap(g);
+	}
 
-			for (int j = 0; j < numRows; j++) {
-				if (bricks[j][loc] - 1 >= 0) {
-					g.drawImage(brickImages.get(bricks[j][loc] - 1), x, yOffset + (j * imHeight), null);
+	@Override
+	protected int drawTiles(Graphics2D g, int col, int row, int cols, int rows) {
+		int drawn = 0;
+		for (int j = 0; j < rows; j++) {
+			int[] line = bricks[row + j];
+			for (int i = 0; i < cols; i++) {
+				if (line[col + i] - 1 >= 0) {
+					g.drawImage(brickImages.get(line[col + i] - 1), i * imWidth, j * imHeight, null);
+					drawn++;
 				}
 			}
 		}
+		return drawn;
 	}
 
 	public String toString()
@@ -98,17 +98,17 @@ public class Ribbon {
 			head += moveSize * Game.getDeltaTime();
 		}
 		head %= width;
-		
-		self.setToTranslation(head, 0);
-		pre.setToTranslation(head-width, 0);
-		post.setToTranslation(head+width, 0);
-		
-		self.scale(wScale, hScale);
-		pre.scale(wScale, hScale);
-		post.scale(wScale, hScale);
 
 		// System.out.println("xImHead is " + xImHead);
 	}
+	
+	/**
+	 * @return where the start of the image currently is
+	 */
+	public float getHead()
+	{
+		return head;
+	}
 
 	/**
 	 * Consider 5 cases: 
@@ -117,9 +117,20 @@ public class Ribbon {
 	 * draw the im tail, or the im tail and im head
 	 * 
 	 * xImHead can range between -width to width (exclusive)
+	 * 
+	 * @param head - start of the image, as returned by {@link #getHead()} at
+	 *            some point, so it can be drawn apart from being updated
 	 */
-	public void display(Graphics2D g)
+	public void display(Graphics2D g, float head)
 	{
+		self.setToTranslation(head, 0);
+		pre.setToTranslation(head-width, 0);
+		post.setToTranslation(head+width, 0);
+		
+		self.scale(wScale, hScale);
+		pre.scale(wScale, hScale);
+		post.scale(wScale, hScale);
+		
 		//image right of the left edge
 		if (head > 0)
 		{
@@ -59,14 +59,28 @@ public class RibbonsManager {
 			ribbons.get(i).update(m);
 	}
 
+	/**
+	 * Copies where each ribbon is, so they can be drawn while they keep moving
+	 * @param heads - array to copy into, replaced if it doesn't fit every ribbon
+	 * @return the array holding the position of every ribbon
+	 */
+	public float[] capture(float[] heads)
+	{
+		if (heads == null || heads.length != ribbons.size())
+			heads = new float[ribbons.size()];
+		for (int i = 0; i < ribbons.size(); i++)
+			heads[i] = ribbons.get(i).getHead();
+		return heads;
+	}
+
 	/*
 	 * The display order is important. Display ribbons from the back to the
 	 * front of the scene.
 	 */
-	public void display(Graphics2D g)
+	public void display(Graphics2D g, float[] heads)
 	{
 		for (int i = 0; i < ribbons.size(); i++)
-			ribbons.get(i).display(g);
+			ribbons.get(i).display(g, heads[i]);
 	}
 
 }
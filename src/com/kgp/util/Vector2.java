@@ -111,11 +111,28 @@ public class Vector2 extends Point2D.Float{
 	 */
 	public Vector2 normalize()
 	{
-		Vector2 v = new Vector2();
+		return normalize(new Vector2());
+	}
+	
+	/**
+	 * Store the normalized version of this vector in another
+	 * @param out - vector to write to, may be this vector
+	 * @return out
+	 */
+	public Vector2 normalize(Vector2 out)
+	{
 		float l = length();
-		v.x = x / l;
-		v.y = y / l;
-		return v;
+		out.x = x / l;
+		out.y = y / l;
+		return out;
+	}
+	
+	/**
+	 * Normalize this vector
+	 */
+	public void normalizeInPlace()
+	{
+		normalize(this);
 	}
 	
 	/**
@@ -125,11 +142,46 @@ public class Vector2 extends Point2D.Float{
 	 */
 	public Vector2 to(Vector2 v)
 	{
-		Vector2 v2 = new Vector2();
-		v2.x = v.x - x;
-		v2.y = v.y - y;
-		
-		return v2;
+		return to(v, new Vector2());
+	}
+	
+	/**
+	 * Store the vector between two points in another
+	 * @param v
+	 * @param out - vector to write to, may be this vector
+	 * @return out
+	 */
+	public Vector2 to(Vector2 v, Vector2 out)
+	{
+		return sub(v, this, out);
+	}
+	
+	/**
+	 * Subtract one vector from another
+	 * @param a
+	 * @param b
+	 * @param out - vector to write a - b to, may be either a or b
+	 * @return out
+	 */
+	public static Vector2 sub(Vector2 a, Vector2 b, Vector2 out)
+	{
+		out.x = a.x - b.x;
+		out.y = a.y - b.y;
+		return out;
+	}
+	
+	/**
+	 * Add two vectors together
+	 * @param a
+	 * @param b
+	 * @param out - vector to write a + b to, may be either a or b
+	 * @return out
+	 */
+	public static Vector2 add(Vector2 a, Vector2 b, Vector2 out)
+	{
+		out.x = a.x + b.x;
+		out.y = a.y + b.y;
+		return out;
 	}
 	
 	/**
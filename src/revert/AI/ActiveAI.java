@@ -1,7 +1,8 @@
 package revert.AI;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Random;
 
 import revert.Entities.Actor;
 import revert.Entities.Actor.Direction;
@@ -12,6 +13,9 @@ public class ActiveAI implements EnemyAi
 {
 	Enemy parent;								//agent
 	
+	//rolls for the enemy's decisions, its own so runs can be replayed from a seed
+	private final Random random;
+	
 	float agroTimer;
 	float attackTimer;
 	float walkTimer;
@@ -19,12 +23,17 @@ public class ActiveAI implements EnemyAi
 	final float MOVE_TIME = 3f;
 	
 	//keep track of all actors that are causing this AI to be aggressive
-	Set<Actor> aggressors;
+	Aggressors aggressors;
+	
+	//visible enemies whose aggressors may be shared once resolved
+	private final ArrayList<Enemy> allies;
 		
-	public ActiveAI(Enemy e)
+	public ActiveAI(Enemy e, Random random)
 	{
 		parent = e;
-		aggressors = new HashSet<Actor>();
+		this.random = random;
+		aggressors = new Aggressors();
+		allies = new ArrayList<Enemy>();
 	}
 	
 	/**
@@ -33,11 +42,11 @@ public class ActiveAI implements EnemyAi
 	@Override
 	public void attack(Actor a) 
 	{
-		int i = (int)Math.random()*10;
+		int i = random.nextInt(10);
 		
 		if(i <= 5)
 		{
-			a.takeHit();
+			parent.strike(a);
 		}
 		parent.stop();
 	}
@@ -75,8 +84,8 @@ public class ActiveAI implements EnemyAi
 	{
 		//player within range of the enemy
 		//attack this enemy if the timer is up
-		float dist = (float)a.getPosn().distance(parent.getPosn());
-		parent.lookAt(a.getPosn());
+		float dist = (float)Point2D.distance(a.getXPosn(), a.getYPosn(), parent.getXPosn(), parent.getYPosn());
+		parent.lookAt(a.getXPosn(), a.getYPosn());
 		
 		if (dist < this.attackRange()) {
 			if (attackTimer <= 0)
@@ -113,11 +122,11 @@ public class ActiveAI implements EnemyAi
 	 */
 	public void walk()
 	{
-		int i = (int)Math.random()*10;
+		int i = random.nextInt(10);
 		if( i <= 5)
 		{
 			//System.out.println(this + " feels the burn!");
-			double j = Math.random();
+			double j = random.nextDouble();
 			if(j > .5)
 			{
 				parent.faceLeft();
@@ -207,7 +216,7 @@ public class ActiveAI implements EnemyAi
 			else if (agroTimer > 0f){
 				//if the player is in the aggression range while visible, 
 				// and the enemy is in an aware state, make the player an aggressor
-				if (a.getPosn().distance(parent.getPosn()) < this.aggressRange())
+				if (Point2D.distance(a.getXPosn(), a.getYPosn(), parent.getXPosn(), parent.getYPosn()) < this.aggressRange())
 				{
 					aggressors.add(a);
 				}
@@ -216,19 +225,37 @@ public class ActiveAI implements EnemyAi
 
 		if (a instanceof Enemy)
 		{
-			Enemy e = (Enemy)a;
+			allies.add((Enemy)a);
+		}
+	}
+	
+	@Override
+	public void resolve() {
+		for (int i = 0; i < allies.size(); i++)
+		{
+			Enemy e = allies.get(i);
 			
 			//if another visible enemy is agro, then this enemy is agro at the same targets
 			if (e.getAI().isAgro())
 				aggressors.addAll(e.getAI().getAggressors());
 		}
+		allies.clear();
 	}
 
 	@Override
-	public Set<Actor> getAggressors() {
+	public Aggressors getAggressors() {
 		return aggressors;
 	}
 
+	@Override
+	public void reset() {
+		agroTimer = 0f;
+		attackTimer = 0f;
+		walkTimer = 0f;
+		aggressors.clear();
+		allies.clear();
+	}
+
 	@Override
 	public float moveRate() {
 		return 50f;
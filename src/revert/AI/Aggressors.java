@@ -0,0 +1,51 @@
+package revert.AI;
+
+import java.util.ArrayList;
+
+import revert.Entities.Actor;
+
+/**
+ * Actors an enemy is being aggressive towards.
+ * <p/>
+ * Only a handful of actors are ever in it, so they're kept in a flat list
+ * instead of a hash set.  Allies share their aggressors every update, and
+ * walking a list by index does that without creating any garbage.
+ *
+ * @author nhydock
+ */
+public final class Aggressors {
+
+	private final ArrayList<Actor> actors = new ArrayList<Actor>();
+
+	/**
+	 * Adds an actor unless it already is an aggressor
+	 * @param a
+	 */
+	public void add(Actor a) {
+		if (!actors.contains(a)) {
+			actors.add(a);
+		}
+	}
+
+	/**
+	 * Adds all of another enemy's aggressors
+	 * @param other
+	 */
+	public void addAll(Aggressors other) {
+		for (int i = 0; i < other.actors.size(); i++) {
+			add(other.actors.get(i));
+		}
+	}
+
+	public void remove(Actor a) {
+		actors.remove(a);
+	}
+
+	public int size() {
+		return actors.size();
+	}
+
+	public void clear() {
+		actors.clear();
+	}
+}
@@ -1,19 +1,21 @@
 package revert.AI;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Random;
 
 import revert.Entities.Actor;
 import revert.Entities.Actor.Direction;
 import revert.Entities.Enemy;
 import revert.Entities.Player;
 
-import com.kgp.util.Vector2;
-
 public class AgressiveAI implements EnemyAi 
 {
 	Enemy parent;
 	
+	//rolls for the enemy's decisions, its own so runs can be replayed from a seed
+	private final Random random;
+	
 	float agroTimer;	//phase out of agro when once agro and now there are no more aggressors
 	float attackTimer;	//staller to prevent constant attacks
 	float walkTimer;	//staller to create a methodical walking pattern
@@ -21,12 +23,17 @@ public class AgressiveAI implements EnemyAi
 	final float MOVE_TIME = 2f;
 	
 	//keep track of all actors that are causing this AI to be aggressive
-	Set<Actor> aggressors;
+	Aggressors aggressors;
+	
+	//visible enemies whose aggressors may be shared once resolved
+	private final ArrayList<Enemy> allies;
 	
-	public AgressiveAI(Enemy e)
+	public AgressiveAI(Enemy e, Random random)
 	{
 		parent = e;
-		aggressors = new HashSet<Actor>();
+		this.random = random;
+		aggressors = new Aggressors();
+		allies = new ArrayList<Enemy>();
 	}
 	
 	/**
@@ -35,11 +42,11 @@ public class AgressiveAI implements EnemyAi
 	@Override
 	public void attack(Actor a) 
 	{
-		int i = (int)Math.random()*10;
+		int i = random.nextInt(10);
 		
 		if(i <= 5)
 		{
-			a.takeHit();
+			parent.strike(a);
 		}
 		parent.stop();
 	}
@@ -87,9 +94,10 @@ public class AgressiveAI implements EnemyAi
 	{
 		//player within range of the enemy
 		//attack this enemy if the timer is up
-		Vector2 v = parent.getPosn().to(a.getPosn());
-		float dist = (float)v.length();
-		parent.lookAt(a.getPosn());
+		float dx = a.getXPosn() - parent.getXPosn();
+		float dy = a.getYPosn() - parent.getYPosn();
+		float dist = (float)Math.sqrt(dx * dx + dy * dy);
+		parent.lookAt(a.getXPosn(), a.getYPosn());
 		if (dist < this.attackRange()) {
 			if (attackTimer <= 0)
 			{
@@ -108,7 +116,7 @@ public class AgressiveAI implements EnemyAi
 				parent.moveRight();
 			}
 			
-			if (v.y < 0 && v.x < .5 && v.x > -.5)
+			if (dy < 0 && dx < .5 && dx > -.5)
 				parent.jump();
 		}
 	}
@@ -126,10 +134,10 @@ public class AgressiveAI implements EnemyAi
 	 */
 	public void walk()
 	{
-		int i = (int)Math.random()*10;
+		int i = random.nextInt(10);
 		if( i <= 8)
 		{
-			double j = Math.random();
+			double j = random.nextDouble();
 			if(j > .5)
 			{
 				parent.faceLeft();
@@ -227,7 +235,7 @@ public class AgressiveAI implements EnemyAi
 			else {
 				//if the player is in the aggression range while visible, 
 				// and the enemy was not previously agro, then make them
-				if (a.getPosn().distance(parent.getPosn()) < this.aggressRange())
+				if (Point2D.distance(a.getXPosn(), a.getYPosn(), parent.getXPosn(), parent.getYPosn()) < this.aggressRange())
 				{
 					aggressors.add(a);
 				}
@@ -236,19 +244,37 @@ public class AgressiveAI implements EnemyAi
 
 		if (a instanceof Enemy)
 		{
-			Enemy e = (Enemy)a;
+			allies.add((Enemy)a);
+		}
+	}
+	
+	@Override
+	public void resolve() {
+		for (int i = 0; i < allies.size(); i++)
+		{
+			Enemy e = allies.get(i);
 			
 			//if another visible enemy is agro, then this enemy is agro
 			if (e.getAI().isAgro())
 				aggressors.addAll(e.getAI().getAggressors());
 		}
+		allies.clear();
 	}
 
 	@Override
-	public Set<Actor> getAggressors() {
+	public Aggressors getAggressors() {
 		return aggressors;
 	}
 
+	@Override
+	public void reset() {
+		agroTimer = 0f;
+		attackTimer = 0f;
+		walkTimer = 0f;
+		aggressors.clear();
+		allies.clear();
+	}
+
 	@Override
 	public float moveRate() {
 		return 60f;
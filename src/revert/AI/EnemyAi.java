@@ -1,7 +1,5 @@
 package revert.AI;
 
-import java.util.Set;
-
 import revert.Entities.Actor;
 
 public interface EnemyAi {
@@ -61,6 +59,13 @@ public interface EnemyAi {
 
 	public void update(Actor a);
 	
+	/**
+	 * Apply anything decided on during the updates that involves other
+	 * actors.  Updates may run for many enemies at once, so they leave
+	 * everything but their own enemy alone until this is called.
+	 */
+	public void resolve();
+	
 	/**
 	 * Perform basic movement when non aggressive
 	 */
@@ -77,7 +82,12 @@ public interface EnemyAi {
 	 */
 	public void hit();
 	
-	public Set<Actor> getAggressors();
+	public Aggressors getAggressors();
+	
+	/**
+	 * Forget all timers and aggressors so the ai can be reused by a new enemy
+	 */
+	public void reset();
 
 	public float moveRate();
 }
@@ -1,8 +1,5 @@
 package revert.AI;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import revert.Entities.Actor;
 
 /**
@@ -11,7 +8,7 @@ import revert.Entities.Actor;
  */
 public class NullAI implements EnemyAi{
 
-	Set<Actor> aggressors = new HashSet<Actor>();
+	Aggressors aggressors = new Aggressors();
 	
 	@Override
 	public void attack(Actor a) {
@@ -80,10 +77,20 @@ public class NullAI implements EnemyAi{
 	}
 
 	@Override
-	public Set<Actor> getAggressors() {
+	public void resolve() {
+		// Do nothing
+	}
+
+	@Override
+	public Aggressors getAggressors() {
 		return aggressors;
 	}
 
+	@Override
+	public void reset() {
+		aggressors.clear();
+	}
+
 	@Override
 	public float moveRate() {
 		return 0f;
@@ -1,7 +1,6 @@
 package revert.AI;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Random;
 
 import revert.Entities.Actor;
 import revert.Entities.Enemy;
@@ -13,18 +12,22 @@ public class PassiveAI implements EnemyAi
 {
 	Enemy parent;
 	
+	//rolls for the enemy's decisions, its own so runs can be replayed from a seed
+	private final Random random;
+	
 	//max movement time
 	private final float MOVE_TIME = 5f;
 
 	float walkTimer;
 	float attackTimer;
 	
-	Set<Actor> aggressors;
+	Aggressors aggressors;
 	
-	public PassiveAI(Enemy e)
+	public PassiveAI(Enemy e, Random random)
 	{
 		parent = e;
-		aggressors = new HashSet<Actor>();
+		this.random = random;
+		aggressors = new Aggressors();
 	}
 	/**
 	 * This agent does not attack
@@ -33,7 +36,7 @@ public class PassiveAI implements EnemyAi
 	public void attack(Actor a) 
 	{
 		//stare to death
-		a.takeHit();
+		parent.strike(a);
 	}
 
 	/**
@@ -65,7 +68,7 @@ public class PassiveAI implements EnemyAi
 	@Override
 	public void aggress(Actor a) 
 	{
-		parent.lookAt(a.getPosn());
+		parent.lookAt(a.getXPosn(), a.getYPosn());
 		if (attackTimer < 0)
 		{
 			attack(a);
@@ -120,10 +123,10 @@ public class PassiveAI implements EnemyAi
 	 */
 	public void walk()
 	{
-		int i = (int)Math.random()*10;
+		int i = random.nextInt(10);
 		if( i <= 2)
 		{
-			double j = Math.random();
+			double j = random.nextDouble();
 			if(j > .5)
 			{
 				parent.faceLeft();
@@ -165,10 +168,20 @@ public class PassiveAI implements EnemyAi
 		}
 	}
 	@Override
-	public Set<Actor> getAggressors() {
+	public void resolve() {
+		// nothing to share with other enemies
+	}
+	@Override
+	public Aggressors getAggressors() {
 		return aggressors;
 	}
 	@Override
+	public void reset() {
+		walkTimer = 0f;
+		attackTimer = 0f;
+		aggressors.clear();
+	}
+	@Override
 	public float moveRate() {
 		return 20f;
 	}
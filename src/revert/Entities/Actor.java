@@ -1,15 +1,17 @@
 package revert.Entities;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Observable;
-import java.util.Observer;
-import java.util.Set;
 
 import revert.MainScene.World;
 import revert.MainScene.notifications.ActorsRemoved;
 import revert.util.BrickManager;
+import revert.util.Contact;
+import revert.util.SpatialGrid;
+import revert.util.Sweep;
 
 import com.kgp.core.AssetsManager;
+import com.kgp.core.EventBus;
 import com.kgp.core.Game;
 import com.kgp.imaging.Sprite;
 import com.kgp.util.Vector2;
@@ -19,7 +21,7 @@ import com.kgp.util.Vector2;
  * 
  * @author nhydock
  */
-public abstract class Actor extends Sprite implements Observer{
+public abstract class Actor extends Sprite {
 
 	/**
 	 * Facing direction of the actor
@@ -71,8 +73,16 @@ public abstract class Actor extends Sprite implements Observer{
 	//synchronization lock on actor updating
 	protected boolean actorLock = false;
 	
-	//list of actors in that are in range and can be interacted with
-	protected HashMap<Actor, Boolean> visibility;
+	//what this actor knows of the actors that have come near it
+	private HashMap<Actor, Sight> visibility;
+	//actors currently in view
+	private ArrayList<Actor> inView;
+	//number of times the actor has looked around
+	private int looks;
+	//actors found near this one when looking around
+	private final ArrayList<Actor> nearby = new ArrayList<Actor>();
+	//tile under the middle of the actor, as of the last time it was recorded
+	private int eyeCol, eyeRow;
 	
 	//the amount of times the actor can still be hit before dying
 	protected int hp;
@@ -84,10 +94,8 @@ public abstract class Actor extends Sprite implements Observer{
 	// all actors move within tile maps
 	protected BrickManager brickMan;
 
-	//the current position of the sprite in the tilemap coordinates
-	protected Vector2 map;
-	// this sprite's height in tiles
-	protected int tileHeight; 
+	//first tile the actor ran into during its last sweep through the tilemap
+	private final Contact contact = new Contact();
 
 	// max number of steps to take when rising upwards in a jump
 	protected float maxVertTravel;
@@ -104,28 +112,45 @@ public abstract class Actor extends Sprite implements Observer{
 	public Actor(World w, String name) {
 		super(0, 0, w.getWidth(), w.getHeight(), AssetsManager.Images, name);
 		this.world = w;
-		this.visibility = new HashMap<Actor, Boolean>();
+		this.visibility = new HashMap<Actor, Sight>();
+		this.inView = new ArrayList<Actor>();
 		
 		this.velocity.x = 0;
 		this.velocity.y = 0;
 		
 		this.brickMan = w.getLevel();
 
-		this.map = new Vector2();
 		this.stop();
 	}
 	
 	public void setImage(String name)
 	{
 		super.setImage(name);
-		
-		if (this.brickMan != null)
-			this.tileHeight = (int)Math.ceil((float)this.dimensions.height / (float)this.brickMan.getBrickHeight());
 	
 		this.offset.x = -this.dimensions.width / 2;
 		this.offset.y = -this.dimensions.height;
 	}
 	
+	/**
+	 * Clears the transient states of the actor so it can be placed back into the world
+	 */
+	protected void reset()
+	{
+		this.visibility.clear();
+		this.inView.clear();
+		
+		this.isHit = false;
+		this.isAttacking = false;
+		this.hitTimer = 0f;
+		this.timer = 0f;
+		this.vertTravel = 0f;
+		
+		this.velocity.x = 0;
+		this.velocity.y = 0;
+		this.flash.stop();
+		this.stop();
+	}
+	
 	/**
 	 * Get the image that the actor is suppose to switch to dependent on current states
 	 */
@@ -174,10 +199,20 @@ public abstract class Actor extends Sprite implements Observer{
 	 */
 	public void lookAt(Vector2 v)
 	{
-		Vector2 dir = position.to(v).normalize();
-		if (dir.x < 0)
+		lookAt(v.x, v.y);
+	}
+	
+	/**
+	 * Make the actor look towards a point and face in that direction
+	 * @param x
+	 * @param y
+	 */
+	public void lookAt(float x, float y)
+	{
+		float dx = x - position.x;
+		if (dx < 0)
 			faceLeft();
-		else if (dir.x > 0)
+		else if (dx > 0)
 			faceRight();
 	}
 	
@@ -269,141 +304,139 @@ public abstract class Actor extends Sprite implements Observer{
 	}
 
 	/**
-	 * If the left/right move has put the sprite out in thin air, then put it
-	 * into falling mode.
-	 */
-	protected void checkIfFalling() {
-		// could the sprite move downwards if it wanted to?
-		// test its center x-coord, base y-coord
-		float x = getForwardX() + velocity.x * Game.getDeltaTime();
-		float yTrans = brickMan.checkBrickTop(x, position.y, world.gravity * Game.getDeltaTime());
-		if (yTrans != 0) {
-			fall();
-		}
-	}
-
-	/**
-	 * Rising will continue until the maximum number of vertical steps is
-	 * reached, or the sprite hits the base of a brick. The sprite then switches
-	 * to falling mode.
+	 * Moves the actor along its velocity through the tilemap, across and then
+	 * up or down, stopping at whatever tiles it runs into on the way.
+	 * <p/>
+	 * Walking into a step no more than a tile high climbs on top of it, while
+	 * anything taller stops the actor.  A jump ends once it has risen as high
+	 * as it can or bumps its head, and a fall ends on the first floor reached.
+	 * Walking off of a floor starts a fall.
 	 */
-	protected void updateRising() {
-		if (vertTravel >= maxVertTravel) {
-			fall();
+	@Override
+	protected void move(float delta)
+	{
+		float dx = velocity.x * delta;
+		if (dx != 0)
+		{
+			float t = sweep(dx, 0f);
+			if (t != Sweep.MISS && !isJumping() && climb(dx))
+			{
+				t = sweep(dx, 0f);
+			}
+			
+			if (t == Sweep.MISS)
+			{
+				position.x += dx;
+			}
+			else
+			{
+				touch();
+				stop();
+			}
 		}
-		else {
-			float yTrans = brickMan.checkBrickBase(this.getXPosn(), this.getYPosn() - this.getHeight(), vertStep * Game.getDeltaTime());
-			if (yTrans <= 0) {
+		
+		if (vertMoveMode == VertMovement.Grounded)
+		{
+			// check for any floor within a step of falling
+			if (sweep(0f, world.gravity * delta) == Sweep.MISS)
+			{
 				fall();
 			}
-			else { // can move upwards another step
-				vertTravel += yTrans;
-				if (yTrans < vertStep * Game.getDeltaTime()) {
-					this.velocity.y = 0;
-					this.position.y -= yTrans;
-				}
+			else
+			{
+				touch();
 			}
 		}
-	}
-
-	/**
-	 * Falling will continue until the sprite hits the top of a brick. The game
-	 * only allows a brick ribbon which has a complete floor, so the sprite must
-	 * eventually touch down.
-	 * 
-	 * Falling mode can be entered without a corresponding rising sequence, for
-	 * instance, when the sprite walks off a cliff.
-	 */
-	protected void updateFalling() {
-		float yTrans = brickMan.checkBrickTop(this.getXPosn(), this.getYPosn(), world.gravity * Game.getDeltaTime());
-		if (yTrans < world.gravity * Game.getDeltaTime()) {
-			this.position.y += yTrans;
-			land();
+		
+		if (vertMoveMode != VertMovement.Grounded)
+		{
+			float dy = velocity.y * delta;
+			if (vertMoveMode == VertMovement.Rising)
+			{
+				// never rise past the top of the jump, however long the step
+				dy = Math.max(dy, vertTravel - maxVertTravel);
+			}
+			
+			float y = position.y;
+			boolean blocked = sweep(0f, dy) != Sweep.MISS;
+			if (blocked)
+			{
+				touch();
+			}
+			else
+			{
+				position.y += dy;
+			}
+			
+			if (vertMoveMode == VertMovement.Rising)
+			{
+				vertTravel += y - position.y;
+				if (blocked || vertTravel >= maxVertTravel)
+				{
+					fall();
+				}
+			}
+			else if (blocked)
+			{
+				land();
+			}
 		}
 	}
 	
 	/**
-	 * Looks at all bricks ahead of the character as he's traveling to ensure
-	 * there is no collisions before moving ahead
-	 * <p/>
-	 * Automatically calculates the base tile ahead of the character and checks
-	 * up the body of the character to find any collisions ahead in the direction
-	 * that the he is moving.
-	 * 
-	 * @return true if collision occurs
-	 */
-	protected boolean checkAhead() {
-		Vector2 nextBrick;
-		// adjust to base and check brick ahead
-		Vector2 p = position.clone();
-
-		p.x = getForwardX() + this.velocity.x * Game.getDeltaTime();
-
-		nextBrick = brickMan.worldToMap(p.x, p.y-brickMan.getBrickHeight()/2);
-		
-		return this.checkAhead(nextBrick);
+	 * Sweeps the actor's bounding box through the tilemap from where it is
+	 * @param dx - distance to move
+	 * @param dy
+	 * @return how far along the movement the first tile is reached, or
+	 *         {@link Sweep#MISS}
+	 */
+	private float sweep(float dx, float dy)
+	{
+		float left = position.x + offset.x;
+		float top = position.y + offset.y;
+		return brickMan.sweepBox(left, top, left + getWidth(), top + getHeight(), dx, dy, contact);
 	}
 	
 	/**
-	 * Looks at all bricks ahead of the character as he's traveling to ensure
-	 * there is no collisions before moving ahead
-	 * 
-	 * @param nextBrick - should be the brick at the base of the character, as this
-	 * 	method iterates up the length of the character to check for bricks/collissions
-	 * 
-	 * @return true if collision occurs
+	 * Places the actor right up against the tile it last ran into
 	 */
-	private boolean checkAhead(Vector2 nextBrick) {
-		// if the brick is the same as what we're currently on then we do
-		// nothing and just let royer continue on his way across the brick
-		if (nextBrick.equals(this.map))
-			return false;
-
-		// if the next brick exists, we check the brick above it to see if it's empty
-		for (int i = 0; i < this.tileHeight; i++) {
-			nextBrick.y--;
-			
-			// if it isn't and we run into a wall and stop
-			if (brickMan.brickExists(nextBrick)) {
-				return true;
-			}
-		}
-		
-		return false;
+	private void touch()
+	{
+		float w = brickMan.getBrickWidth();
+		if (contact.normalX < 0)
+			position.x = contact.col * w - offset.x - getWidth();
+		else if (contact.normalX > 0)
+			position.x = (contact.col + 1) * w - offset.x;
+		else if (contact.normalY < 0)
+			position.y = brickMan.mapToWorldY(contact.row) - offset.y - getHeight();
+		else
+			position.y = brickMan.mapToWorldY(contact.row + 1) - offset.y;
 	}
 
 	/**
-	 * Causes the actor to advance up the tilemap if the next tile is only 1 up
+	 * Lifts the actor on top of the tile it just walked into, if it is low
+	 * enough to step onto and there's room above to go on walking
+	 * @param dx - distance the actor is walking
+	 * @return true if the actor stepped up
 	 */
-	protected void stepNext() {
-		Vector2 nextBrick;
-		// adjust to base and check brick ahead
-		Vector2 p = position.clone();
-
-		// adjust for visible offset
-		if (moving == Movement.Right)
-			p.x -= offset.x;
-		else if (moving == Movement.Left)
-			p.x += offset.x;
-
-		p.x += this.velocity.x * Game.getDeltaTime();
-		p.y -= 1;
-
-		nextBrick = brickMan.worldToMap(p.x, p.y);
-
-		// if the brick is the same as what we're currently on then we do
-		// nothing and just let royer continue on his way across the brick
-		if (!brickMan.brickExists(nextBrick))
-			return;
-
-		if (checkAhead(nextBrick))
+	private boolean climb(float dx)
+	{
+		float rise = position.y - brickMan.mapToWorldY(contact.row);
+		if (rise > brickMan.getBrickHeight() || sweep(0f, -rise) != Sweep.MISS)
 		{
-			stop();
+			sweep(dx, 0f);
+			return false;
 		}
-		else
+		
+		position.y -= rise;
+		if (sweep(dx, 0f) == 0f)
 		{
-			this.position.y -= brickMan.getBrickHeight();
+			// a wall right behind the step
+			position.y += rise;
+			sweep(dx, 0f);
+			return false;
 		}
+		return true;
 	}
 	
 	/**
@@ -459,59 +492,165 @@ public abstract class Actor extends Sprite implements Observer{
 	abstract public boolean inRange(Actor a);
 	
 	/**
-	 * Updates on notifications from the world that the actor is observing
-	 * @param o - object that sent the notification
-	 * @param args - type of notification
+	 * Starts following the other actors of the world, so this actor can
+	 * forget about the ones that are removed from it
+	 * @param events - event bus of the world
 	 */
-	@Override
-	public void update(Observable o, Object args)
+	public void watch(EventBus events)
+	{
+		events.subscribe(ActorsRemoved.class, this.removed);
+	}
+	
+	/**
+	 * Stops following the other actors of the world
+	 * @param events - event bus of the world
+	 */
+	public void unwatch(EventBus events)
+	{
+		events.unsubscribe(ActorsRemoved.class, this.removed);
+	}
+	
+	private final EventBus.Listener<ActorsRemoved> removed = new EventBus.Listener<ActorsRemoved>() {
+		@Override
+		public void handle(ActorsRemoved event) {
+			for (Actor actor : event.actors)
+			{
+				if (visibility.remove(actor) != null)
+				{
+					inView.remove(actor);
+				}
+			}
+		}
+	};
+	
+	/**
+	 * @return how far the actor is able to see, 0 if it doesn't look around
+	 */
+	public float viewRange()
 	{
-		if (args instanceof ActorsRemoved)
+		return 0f;
+	}
+	
+	/**
+	 * Records the tile under the middle of the actor, which line of sight is
+	 * traced to and from.  Done before the actors look around, so others can
+	 * read it while this actor changes its image.
+	 */
+	public void updateEye()
+	{
+		eyeCol = brickMan.worldToMapX(this.getCenterXPosn());
+		eyeRow = brickMan.worldToMapY(this.getCenterYPosn());
+	}
+	
+	/**
+	 * @return map column of the actor's middle, as of the last {@link #updateEye()}
+	 */
+	final public int getEyeCol()
+	{
+		return eyeCol;
+	}
+	
+	/**
+	 * @return map row of the actor's middle, as of the last {@link #updateEye()}
+	 */
+	final public int getEyeRow()
+	{
+		return eyeRow;
+	}
+	
+	/**
+	 * Looks over the actors near this one, reacting to any that have come
+	 * into or gone out of view.  Only actors within view range and ones that
+	 * were in view before are checked, anything else can't have changed.
+	 * <p/>
+	 * Only the other actors' positions and eyes are read, so many actors can
+	 * look around at once as long as none of them are moved meanwhile.
+	 * @param grid - positions of all the actors in the world
+	 */
+	public void look(SpatialGrid<Actor> grid)
+	{
+		float range = viewRange();
+		if (range <= 0f)
 		{
-			ActorsRemoved a = (ActorsRemoved)args;
-				
-			for (Actor actor : a.actors)
+			return;
+		}
+		looks++;
+		
+		nearby.clear();
+		grid.near(this.getXPosn(), this.getYPosn(), range, nearby);
+		for (int i = 0; i < nearby.size(); i++)
+		{
+			Actor a = nearby.get(i);
+			if (a != this)
 			{
-				this.visibility.remove(actor);
+				sight(a).looked = looks;
+				sense(a);
 			}
 		}
-		else if (args instanceof Set)
+		
+		// anything left in view has moved out of range, so let it go
+		for (int i = inView.size() - 1; i >= 0; i--)
 		{
-			@SuppressWarnings("unchecked")
-			Set<Actor> a = (Set<Actor>)args;
-			for (Actor actor : a)
+			Actor a = inView.get(i);
+			if (visibility.get(a).looked != looks)
 			{
-				if (actor != this)
-				{
-					this.visibility.put(actor, false);
-				}
+				sense(a);
 			}
 		}
-		else if (args instanceof Actor)
+	}
+	
+	/**
+	 * @param a
+	 * @return what this actor knows of another, started the first time it is asked for
+	 */
+	Sight sight(Actor a)
+	{
+		Sight s = visibility.get(a);
+		if (s == null)
 		{
-			Actor a = (Actor)args;
-			
-			if (visibility.containsKey(a))
+			s = new Sight();
+			visibility.put(a, s);
+		}
+		return s;
+	}
+	
+	/**
+	 * @param a
+	 * @return true if the actor is currently in view
+	 */
+	public boolean canSee(Actor a)
+	{
+		Sight s = visibility.get(a);
+		return s != null && s.visible;
+	}
+	
+	/**
+	 * Checks if an actor of the world has come into or gone out of view
+	 * @param a - actor near this one, or one that was in view
+	 * @return true if the actor is in view
+	 */
+	protected boolean sense(Actor a)
+	{
+		Sight s = sight(a);
+		if (s.visible)
+		{
+			if (!inRange(a))
 			{
-				boolean see = visibility.get(a);
-				if (see)
-				{
-					if (!inRange(a))
-					{
-						visibility.put(a, false);
-						this.reactOnOutOfView(a);
-					}
-				}
-				else
-				{
-					if (inRange(a))
-					{
-						visibility.put(a, true);
-						this.reactOnInView(a);
-					}
-				}
+				s.visible = false;
+				inView.remove(a);
+				this.reactOnOutOfView(a);
+			}
+		}
+		else
+		{
+			if (inRange(a))
+			{
+				s.visible = true;
+				inView.add(a);
+				this.reactOnInView(a);
 			}
 		}
+		return s.visible;
 	}
 	
 	public void updateSprite()
@@ -527,21 +666,7 @@ public abstract class Actor extends Sprite implements Observer{
 				setNextImage();
 		}
 		
-		if (!isStill()) { // moving
-			if (!isJumping()) // if not jumping
-			{
-				checkIfFalling(); // may have moved out into empty space
-				this.stepNext();
-			}
-			else
-			{
-				if (checkAhead())
-				{
-					stop();
-				}
-			}
-		}
-		else if (isAttacking)
+		if (isStill() && isAttacking)
 		{
 			timer -= Game.getPeriodInMSec();
 			if (timer < 0)
@@ -550,11 +675,6 @@ public abstract class Actor extends Sprite implements Observer{
 			}
 		}
 
-		if (vertMoveMode == VertMovement.Rising)
-			updateRising();
-		else if (vertMoveMode == VertMovement.Falling)
-			updateFalling();
-
 		//slowdown when hurt
 		if (hitTimer > 0)
 			velocity.x *= HIT_SLOWDOWN;
@@ -571,7 +691,5 @@ public abstract class Actor extends Sprite implements Observer{
 		else if (this.getXPosn() < 0) {
 			this.setPosition(this.getXPosn() + world.getWidth(), this.getYPosn());
 		}
-
-		this.map = brickMan.worldToMap(this.getXPosn(), this.getYPosn());
 	}
 }
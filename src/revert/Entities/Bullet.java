@@ -5,6 +5,12 @@ import revert.MainScene.World;
 import com.kgp.core.AssetsManager;
 import com.kgp.imaging.Sprite;
 
+/**
+ * What a bullet looks like.  A single one is shared for drawing every bullet,
+ * where each of them is and what it can hit is kept in a {@link BulletStore}.
+ * @author nhydock
+ *
+ */
 public class Bullet extends Sprite {
 
 	public static enum Mode {
@@ -29,16 +35,7 @@ public class Bullet extends Sprite {
 		}
 	}
 	
-	private Mode type;
-	
-	public Bullet(World w, Mode type) {
+	public Bullet(World w) {
 		super(0, 0, w.getWidth(), w.getHeight(), AssetsManager.Images, "bullet");
-	
-		this.type = type;
-	}
-
-	public Mode getType()
-	{
-		return this.type;
 	}
 }
@@ -9,27 +9,37 @@ public class BulletFactory {
 	Player parent;
 	World world;
 	
+	/**
+	 * Look shared by every bullet
+	 */
+	private Bullet look;
+	
 	public BulletFactory(World world, Player p)
 	{
 		this.world = world;
 		this.parent = p;
 	}
 	
-	public Bullet spawnBullet()
+	/**
+	 * Fires a bullet from the player along its aim
+	 * @param bullets - bullets in flight to add it to
+	 * @return handle of the new bullet
+	 */
+	public int spawnBullet(BulletStore bullets)
+	{
+		Vector2 aim = parent.getAim();
+		return bullets.add(parent.getCenterXPosn(), parent.getYPosn() - (parent.getHeight()*.8f),
+						   aim.x * 10f, aim.y * 10f, aim.angle(), parent.getMode());
+	}
+	
+	/**
+	 * @return the sprite every bullet is drawn with
+	 */
+	public Bullet getLook()
 	{
-		Bullet b = new Bullet(world, parent.getMode());
-		Vector2 v = new Vector2(parent.getCenterXPosn(), parent.getYPosn() - (parent.getHeight()*.8f));
-		
-		b.setPosition(v.x, v.y);
-		
-		v = parent.getAim().clone();
-		v.normalize();
-		v.mult(10f);
-		b.setVelocity(v.x, v.y);
-		
-		b.setOrientation(v.angle());
-		
-		return b;
+		if (look == null)
+			look = new Bullet(world);
+		return look;
 	}
 	
 }
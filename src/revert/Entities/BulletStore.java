@@ -0,0 +1,282 @@
+package revert.Entities;
+
+import java.util.Arrays;
+
+/**
+ * Every bullet in flight, kept as columns of primitives instead of an object
+ * per bullet.
+ * <p/>
+ * Live bullets are packed at the front of each column, so stepping or testing
+ * all of them is a straight walk through a few arrays.  Removing a bullet moves
+ * the last one into its place, which means a bullet's index changes over its
+ * life.  Anything that needs to hold on to a bullet keeps its handle instead,
+ * which stays valid until the bullet is removed, and never refers to a later
+ * bullet that reuses its spot.  A spot is handed out to 2048 bullets at most,
+ * after that it is retired and never reused.
+ *
+ * @author nhydock
+ */
+public class BulletStore {
+
+	// a handle is the bullet's slot in the low bits and the slot's generation above
+	private static final int SLOT_BITS = 20;
+	private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+	private static final int GENERATIONS = 1 << (31 - SLOT_BITS);
+
+	/**
+	 * Handle that never refers to a bullet
+	 */
+	public static final int NONE = -1;
+
+	private static final Bullet.Mode[] MODES = Bullet.Mode.values();
+
+	// columns of the live bullets, by index
+	private float[] lastX, lastY;
+	private float[] x, y;
+	private float[] vx, vy;
+	private float[] angle;
+	private int[] mode;
+	private int[] slotOf;
+	private int size;
+
+	// index of the bullet in each slot, and how many times the slot was reused
+	private int[] indexOf;
+	private int[] generation;
+	// slots not in use, as a stack
+	private int[] free;
+	private int freeCount;
+	private int slots;
+
+	public BulletStore() {
+		this(64);
+	}
+
+	/**
+	 * @param capacity - number of bullets to make room for up front
+	 */
+	public BulletStore(int capacity) {
+		capacity = Math.max(capacity, 1);
+		lastX = new float[capacity];
+		lastY = new float[capacity];
+		x = new float[capacity];
+		y = new float[capacity];
+		vx = new float[capacity];
+		vy = new float[capacity];
+		angle = new float[capacity];
+		mode = new int[capacity];
+		slotOf = new int[capacity];
+		indexOf = new int[capacity];
+		generation = new int[capacity];
+		free = new int[capacity];
+	}
+
+	/**
+	 * Adds a bullet
+	 * @param x - position
+	 * @param y
+	 * @param vx - velocity in pixels per second
+	 * @param vy
+	 * @param angle - orientation it is drawn at
+	 * @param type - which enemies it can hit
+	 * @return handle of the new bullet
+	 */
+	public int add(float x, float y, float vx, float vy, float angle, Bullet.Mode type) {
+		int slot;
+		if (freeCount > 0) {
+			slot = free[--freeCount];
+		}
+		else {
+			if (slots > SLOT_MASK) {
+				throw new IllegalStateException("Out of bullet slots");
+			}
+			slot = slots++;
+			if (slot == indexOf.length) {
+				indexOf = Arrays.copyOf(indexOf, slot * 2);
+				generation = Arrays.copyOf(generation, slot * 2);
+				free = Arrays.copyOf(free, slot * 2);
+			}
+		}
+		if (size == this.x.length) {
+			grow(size * 2);
+		}
+
+		int i = size++;
+		this.lastX[i] = this.x[i] = x;
+		this.lastY[i] = this.y[i] = y;
+		this.vx[i] = vx;
+		this.vy[i] = vy;
+		this.angle[i] = angle;
+		this.mode[i] = type.ordinal();
+		this.slotOf[i] = slot;
+		this.indexOf[slot] = i;
+
+		return (generation[slot] << SLOT_BITS) | slot;
+	}
+
+	/**
+	 * Removes the bullet at an index.  The last bullet takes its place, so
+	 * when removing while walking through the bullets, the same index has to
+	 * be looked at again.
+	 * @param i
+	 */
+	public void remove(int i) {
+		int slot = slotOf[i];
+		// a slot out of generations would hand out old handles again, so drop it
+		if (++generation[slot] < GENERATIONS) {
+			free[freeCount++] = slot;
+		}
+
+		int last = --size;
+		if (i != last) {
+			lastX[i] = lastX[last];
+			lastY[i] = lastY[last];
+			x[i] = x[last];
+			y[i] = y[last];
+			vx[i] = vx[last];
+			vy[i] = vy[last];
+			angle[i] = angle[last];
+			mode[i] = mode[last];
+			slotOf[i] = slotOf[last];
+			indexOf[slotOf[i]] = i;
+		}
+	}
+
+	/**
+	 * @param handle
+	 * @return index of the bullet, or -1 if it has been removed
+	 */
+	public int indexOf(int handle) {
+		if (handle < 0) {
+			return -1;
+		}
+		int slot = handle & SLOT_MASK;
+		if (slot >= slots || generation[slot] != handle >>> SLOT_BITS) {
+			return -1;
+		}
+		return indexOf[slot];
+	}
+
+	/**
+	 * @param handle
+	 * @return true if the bullet is still in flight
+	 */
+	public boolean contains(int handle) {
+		return indexOf(handle) != -1;
+	}
+
+	/**
+	 * Removes every bullet.  Handles of the removed bullets stop being valid.
+	 */
+	public void clear() {
+		while (size > 0) {
+			remove(size - 1);
+		}
+	}
+
+	/**
+	 * Moves every bullet along its velocity
+	 * @param delta - seconds to move for
+	 */
+	public void step(float delta) {
+		for (int i = 0; i < size; i++) {
+			lastX[i] = x[i];
+			lastY[i] = y[i];
+			x[i] += vx[i] * delta;
+			y[i] += vy[i] * delta;
+		}
+	}
+
+	/**
+	 * Makes this store an exact copy of another one, handles included
+	 * @param other
+	 */
+	public void copy(BulletStore other) {
+		if (x.length < other.size) {
+			grow(other.x.length);
+		}
+		int n = other.size;
+		System.arraycopy(other.lastX, 0, lastX, 0, n);
+		System.arraycopy(other.lastY, 0, lastY, 0, n);
+		System.arraycopy(other.x, 0, x, 0, n);
+		System.arraycopy(other.y, 0, y, 0, n);
+		System.arraycopy(other.vx, 0, vx, 0, n);
+		System.arraycopy(other.vy, 0, vy, 0, n);
+		System.arraycopy(other.angle, 0, angle, 0, n);
+		System.arraycopy(other.mode, 0, mode, 0, n);
+		System.arraycopy(other.slotOf, 0, slotOf, 0, n);
+		size = n;
+
+		if (indexOf.length < other.slots) {
+			indexOf = new int[other.indexOf.length];
+			generation = new int[other.indexOf.length];
+			free = new int[other.indexOf.length];
+		}
+		System.arraycopy(other.indexOf, 0, indexOf, 0, other.slots);
+		System.arraycopy(other.generation, 0, generation, 0, other.slots);
+		System.arraycopy(other.free, 0, free, 0, other.freeCount);
+		slots = other.slots;
+		freeCount = other.freeCount;
+	}
+
+	private void grow(int capacity) {
+		lastX = Arrays.copyOf(lastX, capacity);
+		lastY = Arrays.copyOf(lastY, capacity);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		vx = Arrays.copyOf(vx, capacity);
+		vy = Arrays.copyOf(vy, capacity);
+		angle = Arrays.copyOf(angle, capacity);
+		mode = Arrays.copyOf(mode, capacity);
+		slotOf = Arrays.copyOf(slotOf, capacity);
+	}
+
+	/**
+	 * @return number of bullets in flight
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i - index of a bullet
+	 * @return handle of the bullet
+	 */
+	public int getHandle(int i) {
+		return (generation[slotOf[i]] << SLOT_BITS) | slotOf[i];
+	}
+
+	public float getXPosn(int i) {
+		return x[i];
+	}
+
+	public float getYPosn(int i) {
+		return y[i];
+	}
+
+	/**
+	 * @return position of the bullet as of the update before the last
+	 */
+	public float getLastXPosn(int i) {
+		return lastX[i];
+	}
+
+	public float getLastYPosn(int i) {
+		return lastY[i];
+	}
+
+	public float getXVelocity(int i) {
+		return vx[i];
+	}
+
+	public float getYVelocity(int i) {
+		return vy[i];
+	}
+
+	public float getOrientation(int i) {
+		return angle[i];
+	}
+
+	public Bullet.Mode getType(int i) {
+		return MODES[mode[i]];
+	}
+}
@@ -1,6 +1,9 @@
 package revert.Entities;
 
-import java.util.Observable;
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Random;
 
 import revert.AI.ActiveAI;
 import revert.AI.AgressiveAI;
@@ -9,10 +12,9 @@ import revert.AI.NullAI;
 import revert.AI.PassiveAI;
 import revert.Entities.Bullet.Mode;
 import revert.MainScene.World;
-import revert.MainScene.notifications.ActorsRemoved;
+import revert.util.Sweep;
 
 import com.kgp.core.Game;
-import com.kgp.util.Vector2;
 
 /**
  * Main enemy object that the player will have to fight during the
@@ -22,38 +24,40 @@ import com.kgp.util.Vector2;
  */
 public class Enemy extends Actor {
 
+	private static final int MAXHP = 3;
+	
 	//filename for animations
 	private String name;
 
 	protected EnemyAi ai;
 
 	private Mode type;
-
-	protected Enemy(World w, Player player, int type) {
+	
+	//actors the ai attacked during the last think, hit once the world resolves them
+	private final ArrayList<Actor> strikes = new ArrayList<Actor>();
+	
+	//source of the ai's rolls, only ever used while this enemy thinks
+	private final Random random;
+	
+	protected Enemy(World w, Player player, int type, long seed) {
 		super(w, "enemy_" + (type+1));
 
-		this.hp = 3;
+		this.hp = MAXHP;
 		this.duration = .5f;
 
 		maxVertTravel = 15;
 		vertStep = maxVertTravel*4;
 		vertTravel = 0f;
 
-		
-		visibility.put(player, false);
-		for (Actor a : w.getEnemies())
-		{
-			visibility.put(a, false);
-		}
-
 		this.type = Bullet.Mode.values()[type];
+		this.random = new Random(seed);
 
 		if (type == 0) {
-			ai = new ActiveAI(this);
+			ai = new ActiveAI(this, random);
 		} else if (type == 1) {
-			ai = new PassiveAI(this);
+			ai = new PassiveAI(this, random);
 		} else if (type == 2) {
-			ai = new AgressiveAI(this);
+			ai = new AgressiveAI(this, random);
 		} else {
 			System.out.println("No enemy AI type corresponds to value: " + type + ".  Instantiating basic enemy");
 			ai = new NullAI();
@@ -67,6 +71,30 @@ public class Enemy extends Actor {
 		fall();
 	}
 	
+	/**
+	 * Revive a dead enemy of the same type so it may join a new wave
+	 */
+	@Override
+	protected void reset() {
+		super.reset();
+		
+		this.hp = MAXHP;
+		
+		strikes.clear();
+		ai.reset();
+		
+		fall();
+	}
+	
+	/**
+	 * Revive a dead enemy, starting its ai's rolls over from a new seed
+	 * @param seed
+	 */
+	protected void reset(long seed) {
+		reset();
+		random.setSeed(seed);
+	}
+	
 	@Override
 	protected void setNextImage() {
 		if (isJumping())
@@ -103,21 +131,34 @@ public class Enemy extends Actor {
 	}
 	
 	/**
-	 * Check for collision with the entity
+	 * Check for collision with a bullet fired by the player, anywhere along
+	 * the path it took over the last update
 	 * 
-	 * @param b
-	 *            - bullet object fired by the player
-	 * @return true if bullet has hit the enemy
+	 * @param x0
+	 * @param y0
+	 *            - position of the bullet before the update
+	 * @param x1
+	 * @param y1
+	 *            - position of the bullet after the update
+	 * @param type
+	 *            - type of the bullet, only the enemy's own type hurts it
+	 * @return how far along its path the bullet reaches the enemy, from 0 to
+	 *         1, or {@link Sweep#MISS} if it doesn't hit
 	 */
-	public boolean hit(Bullet b) {
-		if (getMyRectangle().contains(b.getPosn())) {
-			if (b.getType() == this.getType()) {
-				takeHit();
-				this.timer = 2f;
-				return true;
-			}
+	public float intercept(float x0, float y0, float x1, float y1, Bullet.Mode type) {
+		if (type != this.getType()) {
+			return Sweep.MISS;
 		}
-		return false;
+		Rectangle r = getMyRectangle();
+		return Sweep.segmentBox(x0, y0, x1, y1, r.x, r.y, r.x + r.width, r.y + r.height);
+	}
+	
+	/**
+	 * Takes a hit from a bullet that was found to {@link #intercept} the enemy
+	 */
+	public void hit() {
+		takeHit();
+		this.timer = 2f;
 	}
 
 	public void takeHit() {
@@ -132,53 +173,33 @@ public class Enemy extends Actor {
 		return type;
 	}
 	
+	@Override
+	public float viewRange()
+	{
+		return ai.viewRange();
+	}
+	
+	/**
+	 * Line of sight runs between the eyes of both actors, the tiles under
+	 * their middles, and is only traced again when either of them moves onto
+	 * another tile.  The level doesn't change while they look at each other
+	 * so the last result holds until then.
+	 */
 	public boolean inRange(Actor a)
 	{
-		//return this.getPosn().distance(a.getPosn()) <= ai.viewRange();
-		
-		if(this.getPosn().distance(a.getPosn()) <= ai.viewRange())
+		if(Point2D.distance(this.getXPosn(), this.getYPosn(), a.getXPosn(), a.getYPosn()) <= ai.viewRange())
 		{
-			Vector2 enemyPosn = brickMan.worldToMap(this.getRealXPosn(), this.getRealYPosn());
-			Vector2 actorPosn = brickMan.worldToMap(a.getRealXPosn(), a.getRealYPosn());
-			Vector2 loc = enemyPosn.clone();
+			int fromCol = this.getEyeCol();
+			int fromRow = this.getEyeRow();
+			int toCol = a.getEyeCol();
+			int toRow = a.getEyeRow();
 			
-			if(enemyPosn.y == actorPosn.y)
-			{
-				if(this.getDirection() == Direction.Right)
-				{
-					//Look out as far as the agent's view Range
-					//Um...Only go so many bricks?
-					//Not wanting to count the whole thing
-					for(float i = 0; i < ai.viewRange()/brickMan.getBrickWidth(); i++, loc.x++)
-					{
-						//Set up the means that it adds bricks to check vertically
-						//I've changed this so many time  ~o.o~
-						//Only going to trying doing one line of bricks at a time for now
-						//Needs to work on the triangular fill
-						if(brickMan.brickExists(loc))
-							return false;
-						
-					}
-				}
-				else
-				{
-					//Well if we're not facing Right, we're facing left
-					for(float i = ai.viewRange()/brickMan.getBrickWidth(); i > 0; i--, loc.x--)
-					{
-						if(brickMan.brickExists(loc))
-							return false;
-					}
-				}
-			}
-			else
+			Sight s = sight(a);
+			if (!s.isTraced(fromCol, fromRow, toCol, toRow))
 			{
-				for(float i = 0; i > ai.viewRange()/brickMan.getBrickHeight(); i--, loc.y--)
-				{
-					if(brickMan.brickExists(loc))
-						return false;
-				}
+				s.trace(fromCol, fromRow, toCol, toRow, brickMan.lineOfSight(fromCol, fromRow, toCol, toRow));
 			}
-			return true;
+			return s.isClear();
 		}
 		else
 			return false;
@@ -188,37 +209,46 @@ public class Enemy extends Actor {
 		return ai;
 	}
 
-	@Override
-	public void updateSprite() {
-		super.updateSprite();
+	/**
+	 * Runs the ai's timers and idle behaviour.  Like looking around, this
+	 * only changes the enemy itself, anything it does to other actors waits
+	 * for {@link #resolve()}.
+	 */
+	public void think() {
 		ai.update(Game.getDeltaTime());
 	}
+	
+	/**
+	 * Hits an actor on behalf of the ai.  The hit lands when the enemy is
+	 * resolved, so many enemies can think at once without touching the
+	 * actor they are attacking.
+	 * @param a
+	 */
+	public void strike(Actor a) {
+		strikes.add(a);
+	}
+	
+	/**
+	 * Applies what the enemy decided on to the rest of the world.  Enemies
+	 * are resolved one after another, in the same order every time.
+	 */
+	public void resolve() {
+		for (int i = 0; i < strikes.size(); i++) {
+			strikes.get(i).takeHit();
+		}
+		strikes.clear();
+		ai.resolve();
+	}
 
 	/**
-	 * Updates on notifications from the world that the actor is observing
-	 * 
-	 * @param o
-	 *            - object that sent the notification
-	 * @param args
-	 *            - type of notification
+	 * Updates the ai against actors that are seen by this one
 	 */
 	@Override
-	public void update(Observable o, Object args) {
-		super.update(o, args);
-		if (args instanceof Actor) {
-			// only call ai updates against actors that are seen by this one
-			if (visibility.containsKey(args)){
-				if (visibility.get(args)) {
-					ai.update((Actor) args);
-				}
-			}
-		}
-		if (args instanceof ActorsRemoved)
-		{
-			for (Actor a : ((ActorsRemoved)args).actors)
-			{
-				visibility.remove(a);
-			}
+	protected boolean sense(Actor a) {
+		if (super.sense(a)) {
+			ai.update(a);
+			return true;
 		}
+		return false;
 	}
 }
@@ -1,5 +1,10 @@
 package revert.Entities;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import revert.MainScene.World;
 
 import com.kgp.util.Vector2;
@@ -7,13 +12,35 @@ import com.kgp.util.Vector2;
 
 public class EnemyFactory {
 
+	/**
+	 * Number of different kinds of enemies that can be spawned
+	 */
+	public static final int TYPES = 3;
+	
 	Vector2[] spawnPoints;
 	World world;
+	
+	/**
+	 * Dead enemies that can be revived for later waves, one pool per enemy type
+	 */
+	private final List<ArrayDeque<Enemy>> pools;
+	
+	/**
+	 * Picks the waves and hands each enemy the seed for its ai
+	 */
+	private final Random random;
 		
-	public EnemyFactory(World world, Vector2... spawns)
+	public EnemyFactory(World world, long seed, Vector2... spawns)
 	{
 		this.spawnPoints = spawns;
 		this.world = world;
+		this.random = new Random(seed);
+		
+		this.pools = new ArrayList<ArrayDeque<Enemy>>(TYPES);
+		for (int i = 0; i < TYPES; i++)
+		{
+			pools.add(new ArrayDeque<Enemy>());
+		}
 	}
 	
 	/**
@@ -27,9 +54,9 @@ public class EnemyFactory {
 		
 		for (int i = 0; i < size; i++)
 		{
-			Vector2 loc = spawnPoints[(int)(Math.random()*spawnPoints.length)];
+			Vector2 loc = spawnPoints[random.nextInt(spawnPoints.length)];
 			
-			int[] n = {(int)loc.x, (int)loc.y, (int)(Math.random()*3)};
+			int[] n = {(int)loc.x, (int)loc.y, random.nextInt(TYPES)};
 			
 			wave[i] = n;
 		}
@@ -39,7 +66,20 @@ public class EnemyFactory {
 	
 	public Enemy generateEnemy(int type)
 	{
-		Enemy e = new Enemy(world, world.getPlayer(), type);
+		Enemy e = (type >= 0 && type < TYPES) ? pools.get(type).poll() : null;
+		if (e == null)
+			e = new Enemy(world, world.getPlayer(), type, random.nextLong());
+		else
+			e.reset(random.nextLong());
 		return e;
 	}
+	
+	/**
+	 * Return an enemy that has been removed from the world so it may be reused
+	 * @param e
+	 */
+	public void release(Enemy e)
+	{
+		pools.get(e.getType().ordinal()).push(e);
+	}
 }
@@ -1,14 +1,12 @@
 package revert.Entities;
 
-import java.util.Observable;
-
-import revert.MainScene.Controller;
 import revert.MainScene.World;
 import revert.MainScene.notifications.PlayerAttackNotification;
 import revert.MainScene.notifications.PlayerModeNotification;
 import revert.MainScene.notifications.PlayerMovementNotification;
 import revert.MainScene.notifications.PlayerNotification;
 
+import com.kgp.core.EventBus;
 import com.kgp.imaging.ImagesLoader;
 import com.kgp.util.Vector2;
 
@@ -27,8 +25,13 @@ public class Player extends Actor {
 
 	private int ammo;
 
+	// where the player's status is sent for the HUD
+	private final EventBus.Channel<PlayerNotification> status;
+
 	public Player(World w, ImagesLoader imsLd) {
 		super(w, "royer01");
+		
+		this.status = w.getEvents().channel(PlayerNotification.class);
 
 		this.moveRate = 120;
 		
@@ -41,10 +44,6 @@ public class Player extends Actor {
 
 		this.aim = new Vector2(this.position.x + 10, this.position.y);
 
-		// set a normal height from the initial standing position
-		// this allows for checking how tall the player is in tiles
-		this.tileHeight = this.getHeight() / w.getLevel().getBrickHeight();
-
 		this.moving = Movement.Still;
 
 		maxVertTravel = 150;
@@ -79,8 +78,9 @@ public class Player extends Actor {
 	 * Sends a notification about the player's current states Mainly for the HUD
 	 */
 	public void updateStatus() {
-		setChanged();
-		notifyObservers(new PlayerNotification(this.hp, this.ammo, this.mode));
+		if (status.hasListeners()) {
+			status.post(new PlayerNotification(this.hp, this.ammo, this.mode));
+		}
 	}
 
 	/**
@@ -165,9 +165,11 @@ public class Player extends Actor {
     public void lookAt(Vector2 target) {
         super.lookAt(target);
         
-        aim = this.position.to(target);
-        aim = aim.normalize();
-        aim.mult(80);
+        // build the new aim fully before publishing it, as this is called from input
+        Vector2 v = this.position.to(target, new Vector2());
+        v.normalizeInPlace();
+        v.mult(80);
+        aim = v;
     }
 
 	public Vector2 getAim() {
@@ -187,51 +189,65 @@ public class Player extends Actor {
 	}
 
 	/**
-	 * Update on notifications
+	 * Starts taking commands from the controller
+	 * @param events - event bus the controller posts to
 	 */
-	public void update(Observable o, Object args) {
-		super.update(o, args);
-		if (o instanceof Controller) {
-			// handle movement commands
-			if (args instanceof PlayerMovementNotification) {
-				PlayerMovementNotification note = (PlayerMovementNotification) args;
-
-				if (!isAttacking) {
-					if (note.jump) {
-						jump();
+	public void subscribe(EventBus events) {
+		events.subscribe(PlayerMovementNotification.class, this.moveCommand);
+		events.subscribe(PlayerModeNotification.class, this.modeCommand);
+		events.subscribe(PlayerAttackNotification.class, this.attackCommand);
+	}
+
+	/**
+	 * Handle movement commands
+	 */
+	private final EventBus.Listener<PlayerMovementNotification> moveCommand = new EventBus.Listener<PlayerMovementNotification>() {
+		@Override
+		public void handle(PlayerMovementNotification note) {
+			if (!isAttacking) {
+				if (note.jump) {
+					jump();
+				} else {
+					if (note.movement == Movement.Left) {
+						moveLeft();
+					} else if (note.movement == Movement.Right) {
+						moveRight();
 					} else {
-						if (note.movement == Movement.Left) {
-							moveLeft();
-						} else if (note.movement == Movement.Right) {
-							moveRight();
-						} else {
-							stop();
-						}
+						stop();
 					}
 				}
 			}
-			// set attack mode
-			else if (args instanceof PlayerModeNotification) {
-				PlayerModeNotification note = (PlayerModeNotification) args;
-
-				if (note.next) {
-					nextMode();
-				} else if (note.prev) {
-					prevMode();
-				} else {
-					setMode(note.mode);
-				}
+		}
+	};
 
-				updateStatus();
-			} else if (args instanceof PlayerAttackNotification) {
-				if (hasAmmo()) {
-					attack();
-				} else {
-					reload();
-				}
+	/**
+	 * Set attack mode
+	 */
+	private final EventBus.Listener<PlayerModeNotification> modeCommand = new EventBus.Listener<PlayerModeNotification>() {
+		@Override
+		public void handle(PlayerModeNotification note) {
+			if (note.next) {
+				nextMode();
+			} else if (note.prev) {
+				prevMode();
+			} else {
+				setMode(note.mode);
 			}
+
+			updateStatus();
 		}
-	}
+	};
+
+	private final EventBus.Listener<PlayerAttackNotification> attackCommand = new EventBus.Listener<PlayerAttackNotification>() {
+		@Override
+		public void handle(PlayerAttackNotification note) {
+			if (hasAmmo()) {
+				attack();
+			} else {
+				reload();
+			}
+		}
+	};
 
 	@Override
 	public boolean inRange(Actor a) {
@@ -0,0 +1,68 @@
+package revert.Entities;
+
+/**
+ * What an actor knows about another actor that has come near it.
+ * <p/>
+ * Along with whether the other actor is in view, it remembers the result of
+ * the last line of sight check and the tiles both actors stood on for it, so
+ * the check only has to be traced again once one of them moves to another tile.
+ *
+ * @author nhydock
+ */
+final class Sight {
+
+	/**
+	 * True while the other actor is in view
+	 */
+	boolean visible;
+
+	/**
+	 * Look the other actor was last considered in
+	 */
+	int looked = -1;
+
+	// tiles of both actors when line of sight was last traced
+	private int fromCol, fromRow, toCol, toRow;
+	private boolean traced;
+	private boolean clear;
+
+	/**
+	 * @param fromCol - column of the viewer
+	 * @param fromRow - row of the viewer
+	 * @param toCol - column of the actor being looked at
+	 * @param toRow - row of the actor being looked at
+	 * @return true if line of sight has already been traced between the tiles
+	 */
+	boolean isTraced(int fromCol, int fromRow, int toCol, int toRow)
+	{
+		return traced &&
+			   this.fromCol == fromCol && this.fromRow == fromRow &&
+			   this.toCol == toCol && this.toRow == toRow;
+	}
+
+	/**
+	 * Remembers the result of tracing line of sight between two tiles
+	 * @param fromCol - column of the viewer
+	 * @param fromRow - row of the viewer
+	 * @param toCol - column of the actor being looked at
+	 * @param toRow - row of the actor being looked at
+	 * @param clear - true if nothing blocks the view
+	 */
+	void trace(int fromCol, int fromRow, int toCol, int toRow, boolean clear)
+	{
+		this.fromCol = fromCol;
+		this.fromRow = fromRow;
+		this.toCol = toCol;
+		this.toRow = toRow;
+		this.traced = true;
+		this.clear = clear;
+	}
+
+	/**
+	 * @return result of the last line of sight trace
+	 */
+	boolean isClear()
+	{
+		return clear;
+	}
+}
@@ -0,0 +1,87 @@
+package revert.MainScene;
+
+import java.util.List;
+
+import revert.Entities.Enemy;
+import revert.Entities.Player;
+import revert.MainScene.notifications.PlayerAttackNotification;
+import revert.MainScene.notifications.PlayerModeNotification;
+
+import com.kgp.core.Game;
+import com.kgp.util.Vector2;
+
+/**
+ * Controller that plays the game on its own, used when there is no one at the keyboard.
+ * <p/>
+ * Stands its ground, switching to the ammo type of the closest enemy and
+ * shooting at it whenever possible.
+ * @author nhydock
+ *
+ */
+public class Autopilot extends Controller {
+
+	/**
+	 * Time between shots (in seconds)
+	 */
+	private static final float FIRE_RATE = .25f;
+	
+	private final PlayerAttackNotification attack = new PlayerAttackNotification();
+	private final Vector2 target = new Vector2();
+	private float cooldown;
+	
+	/**
+	 * Creates a controller that drives the player without any input
+	 * @param p
+	 * @param world
+	 */
+	public Autopilot(Player p, World world) {
+		super(p, null, null, world);
+	}
+	
+	/**
+	 * Picks a target and fires at it, should be called once per update before the world updates
+	 */
+	public void update()
+	{
+		cooldown -= Game.getDeltaTime();
+		if (cooldown > 0 || !player.isAlive())
+		{
+			return;
+		}
+		
+		Enemy closest = null;
+		double best = Double.MAX_VALUE;
+		List<Enemy> enemies = world.getEnemies();
+		for (int i = 0; i < enemies.size(); i++)
+		{
+			Enemy e = enemies.get(i);
+			if (!e.isAlive())
+			{
+				continue;
+			}
+			double dist = Math.abs(e.getCenterXPosn() - player.getCenterXPosn()) + Math.abs(e.getCenterYPosn() - player.getCenterYPosn());
+			if (dist < best)
+			{
+				best = dist;
+				closest = e;
+			}
+		}
+		
+		if (closest == null)
+		{
+			return;
+		}
+		
+		if (closest.getType() != player.getMode())
+		{
+			modes.post(new PlayerModeNotification(closest.getType().ordinal()));
+		}
+		
+		target.x = closest.getCenterXPosn();
+		target.y = closest.getCenterYPosn();
+		player.lookAt(target);
+		
+		attacks.post(attack);
+		cooldown = FIRE_RATE;
+	}
+}
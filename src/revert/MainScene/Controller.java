@@ -10,6 +10,7 @@ import revert.MainScene.notifications.PlayerAttackNotification;
 import revert.MainScene.notifications.PlayerModeNotification;
 import revert.MainScene.notifications.PlayerMovementNotification;
 
+import com.kgp.core.EventBus;
 import com.kgp.core.GameController;
 import com.kgp.core.GamePanel;
 import com.kgp.core.GameState;
@@ -30,6 +31,11 @@ public class Controller extends GameController {
 
 	Vector2 mouse = new Vector2();
 	
+	//where commands for the player are sent
+	EventBus.Channel<PlayerMovementNotification> moves;
+	EventBus.Channel<PlayerModeNotification> modes;
+	EventBus.Channel<PlayerAttackNotification> attacks;
+	
 	/**
 	 * Creates a game controller that interacts directly with the player
 	 * 
@@ -41,6 +47,11 @@ public class Controller extends GameController {
 		this.cross = c;
 		this.panel = panel;
 		this.world = world;
+		
+		EventBus events = world.getEvents();
+		this.moves = events.channel(PlayerMovementNotification.class);
+		this.modes = events.channel(PlayerModeNotification.class);
+		this.attacks = events.channel(PlayerAttackNotification.class);
 	}
 
 	public void mouseMoved(MouseEvent e) {
@@ -62,32 +73,29 @@ public class Controller extends GameController {
 			if (keyCode == KeyEvent.VK_LEFT || keyCode == KeyEvent.VK_A )
 			{
 				note = new PlayerMovementNotification(Movement.Left);
-				setChanged();
 			}
 			else if (keyCode == KeyEvent.VK_RIGHT || keyCode == KeyEvent.VK_D )
 			{
 				note = new PlayerMovementNotification(Movement.Right);
-				setChanged();
 			}
 			else if (keyCode == KeyEvent.VK_UP || keyCode == KeyEvent.VK_W || keyCode == KeyEvent.VK_SPACE)
 			{
 				note = new PlayerMovementNotification(true);
-				setChanged();
 			}
 			else if (keyCode == KeyEvent.VK_S || keyCode == KeyEvent.VK_DOWN)
 			{
 				note = new PlayerMovementNotification(Movement.Still);
-				setChanged();
 			}
 			
-			this.notifyObservers(note);
+			if (note != null)
+				moves.post(note);
 		}
 	}
 
 	public void keyReleased(KeyEvent e) {
 		int keyCode = e.getKeyCode();
 		
-		Object note = null;
+		PlayerModeNotification note = null;
 		
 		if (panel.getState() == GameState.Active) {
 			/*
@@ -95,23 +103,20 @@ public class Controller extends GameController {
 			 */
 			if (keyCode == KeyEvent.VK_SHIFT) {
 				note = new PlayerModeNotification(true);
-				setChanged();
 			} 
 			else if (keyCode == KeyEvent.VK_1) {
 				note = new PlayerModeNotification(0);
-				setChanged();
 			} 
 			else if (keyCode == KeyEvent.VK_2) {
 				note = new PlayerModeNotification(1);
-				setChanged();
 			} 
 			else if (keyCode == KeyEvent.VK_3) {
 				note = new PlayerModeNotification(2);
-				setChanged();
 			}
 		}
 
-		this.notifyObservers(note);
+		if (note != null)
+			modes.post(note);
 	}
 
 	@Override
@@ -122,14 +127,13 @@ public class Controller extends GameController {
 			if (e.getWheelRotation() < 0)
 			{
 				note = new PlayerModeNotification(false);
-				setChanged();
 			}
 			else if (e.getWheelRotation() > 0)
 			{
 				note = new PlayerModeNotification(true);
-				setChanged();
 			}
-			this.notifyObservers(note);
+			if (note != null)
+				modes.post(note);
 		}
 
 	}
@@ -139,8 +143,7 @@ public class Controller extends GameController {
 			if (e.getButton() == MouseEvent.BUTTON1)
 			{
 				//mouse clicked to fire a bullet
-				this.setChanged();
-				this.notifyObservers(new PlayerAttackNotification());
+				attacks.post(new PlayerAttackNotification());
 			}
 		}
 	}
@@ -4,18 +4,17 @@ import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.Observable;
-import java.util.Observer;
 
 import revert.Entities.Player;
 import revert.MainScene.notifications.PlayerNotification;
 import revert.MainScene.notifications.WorldNotification;
 
 import com.kgp.core.AssetsManager;
+import com.kgp.core.EventBus;
 import com.kgp.imaging.BitmapFont;
 import com.kgp.imaging.BitmapFont.Alignment;
 
-public class HUD implements Observer {
+public class HUD {
 
 	BitmapFont font;
 	
@@ -40,19 +39,35 @@ public class HUD implements Observer {
 		this.view = view;
 	}
 	
+	/**
+	 * Copies the values currently shown, so they can be drawn while the
+	 * world goes on changing them
+	 * @param frame
+	 */
+	void capture(SceneSnapshot frame)
+	{
+		frame.score = score;
+		frame.hp = hp;
+		frame.time = time;
+		frame.ammo = ammo;
+		frame.bulletIm = bulletIm;
+	}
+	
 	/**
 	 * Render the interface
 	 * @param g
+	 * @param frame - values to show, from {@link #capture(SceneSnapshot)}
 	 */
-	public void display(Graphics2D g)
+	void display(Graphics2D g, SceneSnapshot frame)
 	{
-		font.drawString(g, score, view.width-10, view.height - 10, Alignment.Right);
-		font.drawString(g, hp, 10, view.height - 10);
-		font.drawString(g, time, view.width - 10, 10 + font.getLineHeight(), Alignment.Right);
+		BufferedImage bulletIm = frame.bulletIm;
+		font.drawString(g, frame.score, view.width-10, view.height - 10, Alignment.Right);
+		font.drawString(g, frame.hp, 10, view.height - 10);
+		font.drawString(g, frame.time, view.width - 10, 10 + font.getLineHeight(), Alignment.Right);
 		
 		for (int i = 0, x = view.width/2 - (bulletIm.getWidth() + 4) * Player.FULLAMMO/2, y = view.height - bulletIm.getHeight() - 10; i <= Player.FULLAMMO; i++, x += bulletIm.getWidth() + 4)
 		{
-			if (i > ammo)
+			if (i > frame.ammo)
 			{
 				g.drawImage(emptyBullet, x, y, null);
 			}
@@ -63,24 +78,31 @@ public class HUD implements Observer {
 		}
 	}
 	
-	@Override
-	public void update(Observable o, Object args) {
-		if (o instanceof World)
-		{
-			if (args instanceof WorldNotification)
-			{
-				WorldNotification n = (WorldNotification) args;
-				score = n.score;
-				time = n.time;
-			}
+	/**
+	 * Starts showing the status of the world and player
+	 * @param events - event bus the world and player post to
+	 */
+	public void subscribe(EventBus events)
+	{
+		events.subscribe(WorldNotification.class, this.worldStatus);
+		events.subscribe(PlayerNotification.class, this.playerStatus);
+	}
+	
+	private final EventBus.Listener<WorldNotification> worldStatus = new EventBus.Listener<WorldNotification>() {
+		@Override
+		public void handle(WorldNotification n) {
+			score = n.score;
+			time = n.time;
 		}
-		else if (o instanceof Player)
-		{
-			PlayerNotification n = (PlayerNotification) args;
+	};
+	
+	private final EventBus.Listener<PlayerNotification> playerStatus = new EventBus.Listener<PlayerNotification>() {
+		@Override
+		public void handle(PlayerNotification n) {
 			hp = n.hp;
 			ammo = n.ammo;
-			this.bulletIm = bulletImages.get(n.mode.ordinal());
+			bulletIm = bulletImages.get(n.mode.ordinal());
 		}
-	}
+	};
 	
 }
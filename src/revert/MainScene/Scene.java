@@ -8,10 +8,12 @@ import java.awt.Graphics2D;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 
 import revert.Entities.Player;
+import revert.MainScene.notifications.PlayerAttackNotification;
 import revert.util.JsonBricksManager;
 
 import com.kgp.core.AssetsManager;
@@ -20,9 +22,11 @@ import com.kgp.core.GameController;
 import com.kgp.core.GameFrame;
 import com.kgp.core.GamePanel;
 import com.kgp.core.GameState;
+import com.kgp.core.TripleBuffer;
 import com.kgp.imaging.FadeOp;
 import com.kgp.imaging.ImagesLoader;
 import com.kgp.level.RibbonsManager;
+import com.kgp.util.Vector2;
 
 /**
  * Based heavily on Andrew Davison's JackPanel, this scene is the core manager
@@ -66,6 +70,18 @@ public class Scene extends GamePanel {
 	private BufferedImage gameoverIm;
 
 	private float zoom = 1.0f;
+	
+	// camera position as of the previous update, for interpolating the view
+	private Vector2 lastCamera = new Vector2();
+	
+	// what gets drawn, captured at the end of every update
+	private final TripleBuffer<SceneSnapshot> frames = 
+			new TripleBuffer<SceneSnapshot>(new SceneSnapshot(), new SceneSnapshot(), new SceneSnapshot());
+	
+	// only touched while drawing
+	private AffineTransform viewMatrix = new AffineTransform();
+	// area of the world covered by the view matrix
+	private Rectangle2D.Float view = new Rectangle2D.Float();
 
 	private RibbonsManager parallaxBg;
 	private RibbonsManager parallaxFg;
@@ -82,6 +98,10 @@ public class Scene extends GamePanel {
 	private FadeOp fadeOp;
 	
 	private Font font;
+	
+	// simulated time let go of, as last shown, in tenths of a second
+	private long shownDropped;
+	private String droppedText;
 
 	public Scene(GameFrame parent) {
 		super(parent);
@@ -137,7 +157,8 @@ public class Scene extends GamePanel {
 
 		// BricksManager bricksMan = new BricksManager(PWIDTH, PHEIGHT,
 		// BRICKS_INFO, images);
-		JsonBricksManager bricksMan = JsonBricksManager.load("level01", AssetsManager.JsonParser);
+		// the whole level is kept loaded, paged levels can't be drawn
+		JsonBricksManager bricksMan = JsonBricksManager.load("level01");
 		
 		this.world = new World();
 		this.world.setLevel(bricksMan);
@@ -155,16 +176,15 @@ public class Scene extends GamePanel {
 		crosshair = new Crosshair(PWIDTH, PHEIGHT, player, images);
 
 		hud = new HUD(new Dimension(PWIDTH, PHEIGHT));
-		world.addObserver(hud);
-		player.addObserver(hud);
+		hud.subscribe(world.getEvents());
 
 		GameController g = new Controller(player, crosshair, this, world);
 		this.addKeyListener(g);
 		this.addMouseListener(g);
 		this.addMouseMotionListener(g);
 
-		g.addObserver(world);
-		g.addObserver(player);
+		world.getEvents().subscribe(PlayerAttackNotification.class, world);
+		player.subscribe(world.getEvents());
 
 		this.addKeyListener(new KeyAdapter() {
 			public void keyPressed(KeyEvent e) {
@@ -209,6 +229,7 @@ public class Scene extends GamePanel {
 				parallaxFg.update(player.getMovement());
 			}
 			// transform a camera that follows the player around
+			lastCamera.cpy(camera);
 			camera.set(player.getCenterXPosn(), player.getRealYPosn());
 			camMatrix.setToIdentity();
 			camMatrix.scale(zoom, zoom);
@@ -248,33 +269,92 @@ public class Scene extends GamePanel {
 		{
 			fadeOp.update(Game.getDeltaTime());
 		}
+		
+		capture();
+	}
+	
+	/**
+	 * Copies everything that gets drawn as of this update and hands it over
+	 * to drawing, which may be happening on another thread at the same time
+	 */
+	private void capture() {
+		SceneSnapshot frame = frames.back();
+		
+		frame.state = this.state;
+		frame.lastCameraX = lastCamera.x;
+		frame.lastCameraY = lastCamera.y;
+		frame.cameraX = camera.x;
+		frame.cameraY = camera.y;
+		frame.zoom = zoom;
+		
+		world.capture(frame);
+		crosshair.capture(frame.crosshair);
+		frame.background = parallaxBg.capture(frame.background);
+		frame.foreground = parallaxFg.capture(frame.foreground);
+		hud.capture(frame);
+		frame.fade.copy(fadeOp);
+		
+		frames.publish();
 	}
 
-	protected void draw(Graphics2D dbg) {
+	/**
+	 * Builds the view matrix for a frame falling between the previous and current update
+	 * @param frame
+	 * @param alpha
+	 */
+	private void updateViewMatrix(SceneSnapshot frame, float alpha) {
+		float dx = frame.cameraX - frame.lastCameraX;
+		float dy = frame.cameraY - frame.lastCameraY;
+		// snap when the player wraps around the world
+		if (Math.abs(dx) > PWIDTH || Math.abs(dy) > PHEIGHT)
+			alpha = 1.0f;
+		
+		float zoom = frame.zoom;
+		float x = frame.lastCameraX + dx * alpha;
+		float y = frame.lastCameraY + dy * alpha;
+		viewMatrix.setToIdentity();
+		viewMatrix.scale(zoom, zoom);
+		viewMatrix.translate(-x, -y);
+		viewMatrix.translate(PWIDTH * (.5 / zoom), PHEIGHT * (.5 / zoom));
+		
+		view.setRect(x - PWIDTH * .5f / zoom, y - PHEIGHT * .5f / zoom, PWIDTH / zoom, PHEIGHT / zoom);
+	}
+
+	protected void draw(Graphics2D dbg, float alpha) {
+		// latest completed update, the next one may be running right now
+		SceneSnapshot frame = frames.front();
 
 		// draw a white background
 		dbg.setColor(Color.white);
 		dbg.fillRect(0, 0, PWIDTH, PHEIGHT);
+		// keeps the level from drawing tiles outside of the panel
+		dbg.setClip(0, 0, PWIDTH, PHEIGHT);
 
 		AffineTransform orig = dbg.getTransform();
+		
+		// nothing moves between updates unless the game is running
+		if (frame.state != GameState.Active)
+			alpha = 1.0f;
+		updateViewMatrix(frame, alpha);
 
 		// draw the game elements: order is important
-		parallaxBg.display(dbg); // the background ribbons
+		parallaxBg.display(dbg, frame.background); // the background ribbons
 
-		dbg.setTransform(camMatrix);
-		world.display(dbg);
+		dbg.transform(viewMatrix);
+		world.display(dbg, alpha, view, frame);
 		dbg.setTransform(orig);
 
-		parallaxFg.display(dbg); // the background ribbons
+		parallaxFg.display(dbg, frame.foreground); // the background ribbons
 
-		dbg.setTransform(camMatrix);
-		crosshair.drawSprite(dbg);
+		dbg.transform(viewMatrix);
+		frame.crosshair.draw(dbg, alpha, view, world.getWidth());
 		dbg.setTransform(orig);
 
-		switch (this.state)
+		switch (frame.state)
 		{
 			case Active:
-				hud.display(dbg);
+				hud.display(dbg, frame);
+				drawDroppedTime(dbg);
 				break;
 			case Help:
 				dbg.drawImage(helpIm, (PWIDTH - helpIm.getWidth()) / 2, (PHEIGHT - helpIm.getHeight()) / 2, null);
@@ -283,15 +363,15 @@ public class Scene extends GamePanel {
 				dbg.drawImage(titleIm, 0, 0, PWIDTH, PHEIGHT, null);
 				break;
 			case GameOver: {
-				fadeOp.filter(gameoverIm, fadeIm);
+				frame.fade.filter(gameoverIm, fadeIm);
 				dbg.drawImage(fadeIm, (PWIDTH - gameoverIm.getWidth()) / 2, (PHEIGHT - gameoverIm.getHeight()) / 2, null);
-				if (!fadeOp.active()) {
+				if (!frame.fade.active()) {
 					dbg.setColor(Color.white);
 					dbg.setFont(font);
-					dbg.drawString("Survived for " + world.currentWave + " waves", 100, 300);
-					dbg.drawString("Survived for " + (int)world.time + " seconds", 100, 338);
-					dbg.drawString("Time Bonus: " + world.timeBonus, 100, 376);
-					dbg.drawString("Total Score: " + (world.score + world.timeBonus), 150, 420);
+					dbg.drawString("Survived for " + frame.wavesSurvived + " waves", 100, 300);
+					dbg.drawString("Survived for " + frame.secondsSurvived + " seconds", 100, 338);
+					dbg.drawString("Time Bonus: " + frame.timeBonus, 100, 376);
+					dbg.drawString("Total Score: " + frame.totalScore, 150, 420);
 				}
 				break;
 			}
@@ -301,4 +381,23 @@ public class Scene extends GamePanel {
 
 	}
 
+	/**
+	 * Shows how much simulated time the game has let go of to keep up with the
+	 * clock, nothing while it has kept up
+	 */
+	private void drawDroppedTime(Graphics2D dbg) {
+		long dropped = Game.getDroppedTime() / 100000000L;
+		if (dropped == 0)
+			return;
+		
+		// only made again when it changes, not every frame
+		if (dropped != shownDropped) {
+			shownDropped = dropped;
+			droppedText = "Dropped " + (dropped / 10) + "." + (dropped % 10) + "s";
+		}
+		dbg.setColor(Color.red);
+		dbg.setFont(msgsFont);
+		dbg.drawString(droppedText, 10, 10 + metrics.getAscent());
+	}
+
 }
@@ -0,0 +1,92 @@
+package revert.MainScene;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import revert.Entities.BulletStore;
+
+import com.kgp.core.GameState;
+import com.kgp.imaging.FadeOp;
+import com.kgp.imaging.SpriteSnapshot;
+
+/**
+ * Everything the scene draws, as of the end of an update.
+ * <p/>
+ * The scene fills one in after every update and hands it to whatever thread is
+ * drawing, so drawing never has to look at the world while it is changing.
+ * Snapshots are reused from update to update, each capture replaces all of
+ * what was in it.  The level's tiles aren't part of it, they don't change once
+ * the game is being played.
+ *
+ * @author nhydock
+ */
+final class SceneSnapshot {
+
+	GameState state;
+
+	// camera position as of the last two updates
+	float lastCameraX, lastCameraY;
+	float cameraX, cameraY;
+	float zoom;
+
+	final SpriteSnapshot player = new SpriteSnapshot();
+	final SpriteSnapshot crosshair = new SpriteSnapshot();
+	final Sprites enemies = new Sprites();
+	// every bullet looks the same, only where they are is copied
+	final SpriteSnapshot bullet = new SpriteSnapshot();
+	final BulletStore bullets = new BulletStore();
+
+	// positions of the parallax ribbons behind and in front of the world
+	float[] background;
+	float[] foreground;
+
+	// what the hud shows
+	String score;
+	String hp;
+	String time;
+	int ammo;
+	BufferedImage bulletIm;
+
+	// results shown on the game over screen
+	int wavesSurvived;
+	int secondsSurvived;
+	int timeBonus;
+	int totalScore;
+	final FadeOp fade = new FadeOp();
+
+	/**
+	 * A list of sprite snapshots that keeps its snapshots around when it is
+	 * cleared, so capturing a similar number of sprites each update doesn't
+	 * make any garbage
+	 */
+	static final class Sprites {
+
+		private SpriteSnapshot[] items = new SpriteSnapshot[0];
+		private int size;
+
+		void clear() {
+			size = 0;
+		}
+
+		/**
+		 * @return a snapshot at the end of the list to capture a sprite into
+		 */
+		SpriteSnapshot add() {
+			if (size == items.length) {
+				items = Arrays.copyOf(items, Math.max(16, size * 2));
+				for (int i = size; i < items.length; i++) {
+					items[i] = new SpriteSnapshot();
+				}
+			}
+			return items[size++];
+		}
+
+		SpriteSnapshot get(int i) {
+			return items[i];
+		}
+
+		int size() {
+			return size;
+		}
+	}
+}
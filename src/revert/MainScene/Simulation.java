@@ -0,0 +1,169 @@
+package revert.MainScene;
+
+import revert.Entities.Player;
+import revert.MainScene.notifications.PlayerAttackNotification;
+import revert.util.BrickManager;
+import revert.util.JsonBricksManager;
+
+import com.kgp.core.AssetsManager;
+import com.kgp.core.HeadlessGame;
+import com.kgp.core.JobPool;
+
+/**
+ * Runs the main scene's world without a display, driven by an {@link Autopilot}.
+ * <p/>
+ * Whenever the player dies or clears every wave a new game is started, so the
+ * simulation can be soaked for as many updates as needed.
+ * @author nhydock
+ *
+ */
+public class Simulation extends HeadlessGame {
+
+	/**
+	 * Update rate the game is tuned for
+	 */
+	public static final int UPS = 60;
+	
+	private final String levelName;
+	private BrickManager level;
+	private final int waves;
+	
+	private World world;
+	private Player player;
+	private Autopilot pilot;
+	private JobPool jobs = JobPool.shared();
+	private long seed = System.nanoTime();
+	
+	private int games;
+	private int deaths;
+	private int wavesPlayed;
+	private int lastWave;
+	
+	/**
+	 * @param level - name of the json level to load
+	 * @param waves - number of waves of enemies in each game
+	 */
+	public Simulation(String level, int waves)
+	{
+		super(UPS);
+		this.levelName = level;
+		this.waves = waves;
+	}
+	
+	/**
+	 * @param level - already loaded level to play on
+	 * @param waves - number of waves of enemies in each game
+	 */
+	public Simulation(BrickManager level, int waves)
+	{
+		this((String)null, waves);
+		this.level = level;
+	}
+	
+	/**
+	 * Sets the threads the world's enemies think on, takes effect on the next run
+	 * @param jobs
+	 */
+	public void setJobs(JobPool jobs)
+	{
+		this.jobs = jobs;
+	}
+	
+	/**
+	 * Sets the seed the world's waves and enemies are rolled from, takes effect on the next run
+	 * @param seed
+	 */
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+	
+	/**
+	 * @return seed the world's waves and enemies are rolled from
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	@Override
+	protected void initGame() {
+		if (level == null) {
+			level = JsonBricksManager.load(levelName);
+		}
+		
+		this.world = new World();
+		this.world.setSeed(seed);
+		this.world.setLevel(level);
+		this.world.setJobs(jobs);
+		
+		player = new Player(this.world, AssetsManager.Images);
+		this.world.setPlayer(player);
+		
+		pilot = new Autopilot(player, world);
+		world.getEvents().subscribe(PlayerAttackNotification.class, world);
+		player.subscribe(world.getEvents());
+		
+		newGame();
+	}
+
+	/**
+	 * Resets the player and world to the start of a game
+	 */
+	private void newGame()
+	{
+		player.init();
+		world.init(waves);
+		lastWave = 0;
+		games++;
+	}
+	
+	@Override
+	protected void gameUpdate() {
+		pilot.update();
+		world.update();
+		
+		if (world.currentWave != lastWave)
+		{
+			wavesPlayed++;
+			lastWave = world.currentWave;
+		}
+		
+		if (!player.isAlive())
+		{
+			deaths++;
+			newGame();
+		}
+		else if (world.done())
+		{
+			newGame();
+		}
+	}
+	
+	/**
+	 * @return number of games started
+	 */
+	public int getGames() {
+		return games;
+	}
+	
+	/**
+	 * @return number of games that ended with the player dying
+	 */
+	public int getDeaths() {
+		return deaths;
+	}
+	
+	/**
+	 * @return number of waves of enemies spawned across all games
+	 */
+	public int getWavesPlayed() {
+		return wavesPlayed;
+	}
+	
+	/**
+	 * @return the world being simulated
+	 */
+	public World getWorld() {
+		return world;
+	}
+}
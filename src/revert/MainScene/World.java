@@ -1,44 +1,57 @@
 package revert.MainScene;
 
 import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Observable;
-import java.util.Observer;
-import java.util.Set;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import revert.Entities.Actor;
-import revert.Entities.Bullet;
 import revert.Entities.BulletFactory;
+import revert.Entities.BulletStore;
 import revert.Entities.Enemy;
 import revert.Entities.EnemyFactory;
 import revert.Entities.Player;
+import revert.MainScene.notifications.ActorsAdded;
 import revert.MainScene.notifications.ActorsRemoved;
 import revert.MainScene.notifications.PlayerAttackNotification;
 import revert.MainScene.notifications.WorldNotification;
 import revert.util.BrickManager;
+import revert.util.SpatialGrid;
+import revert.util.Sweep;
 
+import com.kgp.core.EventBus;
 import com.kgp.core.Game;
+import com.kgp.core.JobPool;
 
 /**
  * World class that keeps track of all entities and alterations to the world
  * @author nhydock
  *
  */
-public class World extends Observable implements Observer{
+public class World implements EventBus.Listener<PlayerAttackNotification> {
 
 	private static int HIT_BONUS = 10;
 	private static int KILL_BONUS = 100;
 	
+	//size of the cells actors are filed under for visibility, as far as any enemy can see
+	private static final int VIEW_CELL = 200;
+	//size of the cells enemies are bucketed in for bullets, about an enemy across
+	private static final int ENEMY_CELL = 64;
+	//fewest enemies worth handing to another thread
+	private static final int THINK_GRAIN = 8;
+	
 	/**
 	 * The playable entity in the world
 	 */
 	Player player;
 	
 	/**
-	 * All the current enemies available for attacking
+	 * All the current enemies available for attacking, kept in lists so
+	 * walking them every update creates no iterators
 	 */
-	Set<Enemy> enemies;
+	List<Enemy> enemies;
 	
 	/**
 	 * All the waves of enemies queued for the world
@@ -49,33 +62,91 @@ public class World extends Observable implements Observer{
 	/**
 	 * All the actors added to this world
 	 */
-	Set<Actor> allActors;
+	List<Actor> allActors;
+	
+	/**
+	 * Where the world, its actors and the controller talk to one another
+	 */
+	private final EventBus events;
+	private final EventBus.Channel<ActorsAdded> actorsAdded;
+	private final EventBus.Channel<ActorsRemoved> actorsRemoved;
+	private final EventBus.Channel<WorldNotification> status;
+	// score and whole seconds last sent out in a status
+	private int lastScore = -1;
+	private int lastSecond = -1;
+	
+	/**
+	 * Actors found dead during the current update
+	 */
+	private List<Actor> dead;
 	
 	/**
 	 * Projectiles sent by the player
 	 */
-	ArrayList<Bullet> bullets;
+	BulletStore bullets;
+	
+	/**
+	 * Sprites drawn and skipped in the last frame
+	 */
+	private volatile int spritesDrawn;
+	private volatile int spritesCulled;
+	
+	/**
+	 * Spawn requests from the input thread, applied at the start of the next update
+	 */
+	private final Queue<PlayerAttackNotification> attacks;
 
 	//tiles of the level
 	private BrickManager level;
+	
+	//broad-phase index of enemies for bullet collision
+	private SpatialGrid<Enemy> enemyGrid;
+	private final ArrayList<Enemy> inPath = new ArrayList<Enemy>();
+	
+	//index of actor positions for finding who can see who
+	private SpatialGrid<Actor> neighbors;
+	
+	//threads enemies think on, and the enemies thinking this update
+	private JobPool jobs;
+	private final ArrayList<Enemy> thinking = new ArrayList<Enemy>();
+	private final JobPool.Job think = new JobPool.Job() {
+		@Override
+		public void run(int from, int to) {
+			for (int i = from; i < to; i++)
+			{
+				Enemy e = thinking.get(i);
+				e.think();
+				e.look(neighbors);
+			}
+		}
+	};
 
 	private EnemyFactory enemyFactory;
 	private BulletFactory bulletFactory;
 	
+	//seeds the waves and enemy ai of the next level that's set
+	private long seed = System.nanoTime();
+	
 	int score;
 	float time;
 	int timeBonus;
 	
-	private boolean lock;
-	
 	public final float gravity;
 	
 	public World()
 	{
-		this.enemies = new HashSet<Enemy>();
-		this.allActors = new HashSet<Actor>();
-		this.bullets = new ArrayList<Bullet>();
+		this.enemies = new ArrayList<Enemy>();
+		this.allActors = new ArrayList<Actor>();
+		this.dead = new ArrayList<Actor>();
+		this.bullets = new BulletStore();
+		this.attacks = new ConcurrentLinkedQueue<PlayerAttackNotification>();
 		gravity = 100f;
+		
+		this.events = new EventBus();
+		this.actorsAdded = events.channel(ActorsAdded.class);
+		this.actorsRemoved = events.channel(ActorsRemoved.class);
+		this.status = events.channel(WorldNotification.class);
+		this.jobs = JobPool.shared();
 	}
 	
 	/**
@@ -83,13 +154,25 @@ public class World extends Observable implements Observer{
 	 */
 	public void update()
 	{
+		/**
+		 * Apply input that came in since the last update
+		 */
+		for (PlayerAttackNotification n = attacks.poll(); n != null; n = attacks.poll())
+		{
+			if (player.hasAmmo() && !player.isJumping())
+			{
+				bulletFactory.spawnBullet(bullets);
+			}
+		}
+		
 		/**
 		 * Update what actors are still alive within this scene
 		 */
 		{
-			Set<Actor> dead = new HashSet<Actor>();
-			for (Actor a : allActors)
+			dead.clear();
+			for (int i = 0; i < allActors.size(); i++)
 			{
+				Actor a = allActors.get(i);
 				if (!a.isAlive())
 				{
 					if (a instanceof Enemy)
@@ -103,78 +186,143 @@ public class World extends Observable implements Observer{
 				}
 			}
 			
-			for (Actor a : dead)
+			for (int i = 0; i < dead.size(); i++)
 			{
+				Actor a = dead.get(i);
 				allActors.remove(a);
 				if (a instanceof Enemy){
 					enemies.remove(a);
 					score += KILL_BONUS;
 				}
-				this.deleteObserver(a);
+				a.unwatch(events);
+			}
+			if (!dead.isEmpty())
+			{
+				actorsRemoved.post(new ActorsRemoved(dead));
+				
+				for (int i = 0; i < dead.size(); i++)
+				{
+					enemyFactory.release((Enemy)dead.get(i));
+				}
 			}
-			this.setChanged();
-			this.notifyObservers(new ActorsRemoved(dead));
 		}
 		
 		/**
-		 * Update Visibility of Actors
+		 * Sense and think.  Every enemy looks at the actors filed near it
+		 * and decides what to do, all of them at once.  The tiles they can
+		 * see are loaded beforehand, for levels that aren't all in memory.
+		 * Enemies only change themselves here, everything they do to others
+		 * is applied afterwards.
+		 */
+		this.neighbors.clear();
+		for (int i = 0; i < this.allActors.size(); i++)
+		{
+			Actor a = this.allActors.get(i);
+			a.updateEye();
+			this.neighbors.insertPosition(a);
+		}
+		this.thinking.clear();
+		for (int i = 0; i < enemies.size(); i++)
+		{
+			Enemy e = enemies.get(i);
+			this.thinking.add(e);
+			float range = e.viewRange();
+			this.level.preload(e.getXPosn() - range, e.getYPosn() - range, e.getXPosn() + range, e.getYPosn() + range);
+		}
+		this.level.beginSharedRead();
+		try
+		{
+			this.jobs.run(this.thinking.size(), THINK_GRAIN, this.think);
+		}
+		finally
+		{
+			this.level.endSharedRead();
+		}
+		
+		/**
+		 * Resolve what the enemies decided on, in the order they were spawned
 		 */
-		for (Actor a : this.allActors)
+		for (int i = 0; i < this.thinking.size(); i++)
 		{
-			this.setChanged();
-			this.notifyObservers(a);
+			this.thinking.get(i).resolve();
 		}
 		
 		/**
-		 * Perform bullet update
+		 * Bucket enemies by the cells they cover so bullets only test
+		 * against the enemies sharing their cells
 		 */
-		while (lock);
-		lock = true;
+		this.enemyGrid.clear();
+		for (int i = 0; i < enemies.size(); i++)
+		{
+			this.enemyGrid.insert(enemies.get(i));
+		}
+		
+		/**
+		 * Perform bullet update.  Bullets are tested along the whole path
+		 * they moved this update, so they can't skip past walls or
+		 * enemies, and stop at whichever of them they reach first.
+		 */
+		this.bullets.step(Game.getDeltaTime());
+		float left = player.getXPosn() - player.getPWidth()/2;
+		float right = player.getXPosn() + player.getPWidth()/2;
+		float top = player.getYPosn() - player.getPHeight()/2;
+		float bottom = player.getYPosn() + player.getPHeight()/2;
 		for (int i = 0; i < bullets.size();)
 		{
-			Bullet b = bullets.get(i);
-			b.updateSprite();
-			boolean dead = false;
-			for (Enemy e : enemies)
+			float x0 = bullets.getLastXPosn(i);
+			float y0 = bullets.getLastYPosn(i);
+			float x = bullets.getXPosn(i);
+			float y = bullets.getYPosn(i);
+			
+			//bullets stop at the first brick in their way
+			float nearest = this.level.sweepPoint(x0, y0, x, y);
+			Enemy target = null;
+			this.inPath.clear();
+			this.enemyGrid.along(x0, y0, x, y, this.inPath);
+			for (int n = 0; n < this.inPath.size(); n++)
 			{
-				if (e.hit(b))
+				Enemy e = this.inPath.get(n);
+				// an enemy right up against the brick is still hit
+				float t = e.intercept(x0, y0, x, y, bullets.getType(i));
+				if (t <= nearest && t != Sweep.MISS)
 				{
-					score += HIT_BONUS;
-					dead = true;
-					break;
+					nearest = t;
+					target = e;
 				}
 			}
 			
-			//remove bullets that hit bricks
-			if (!dead && this.level.brickExists(this.level.worldToMap(b.getXPosn(), b.getYPosn())))
+			boolean dead = nearest != Sweep.MISS;
+			if (target != null)
 			{
-				dead = true;
+				target.hit();
+				score += HIT_BONUS;
 			}
 			
-			if (!dead &&
-			   ((b.getXPosn() > player.getPosn().x + player.getPWidth()/2) ||
-			   (b.getXPosn() < player.getPosn().x - player.getPWidth()/2) ||
-			   (b.getYPosn() > player.getPosn().y + player.getPHeight()/2) ||
-			   (b.getYPosn() < player.getPosn().y - player.getPHeight()/2))){
+			if (!dead && (x > right || x < left || y > bottom || y < top)){
 				dead = true;
 			}
 			
 			if (dead) {
+				// the last bullet moves into this spot, look at it next
 				bullets.remove(i);
 			}
 			else {
 				i++;
 			}
 		}
-		lock = false;
 		
 		this.level.update(this.player.getRealXPosn(), this.player.getRealYPosn());
 		
 		this.time += Game.getDeltaTime();
 		this.timeBonus = (int)Math.max(0, ((currentWave * 30) - time) * 1000);
 		
-		this.setChanged();
-		this.notifyObservers(new WorldNotification(score, time));
+		// the hud only shows the score and whole seconds, don't bother it every update
+		if (status.hasListeners() && (score != lastScore || (int)time != lastSecond))
+		{
+			lastScore = score;
+			lastSecond = (int)time;
+			status.post(new WorldNotification(score, time));
+		}
 		
 		if (this.enemies.size() <= 0 && currentWave < waves && !player.isJumping())
 		{
@@ -191,9 +339,9 @@ public class World extends Observable implements Observer{
 	 * @param waveData - array formatted in [enemyNum][x, y, type]
 	 * @return ArrayList of instantiated enemy objects in the world
 	 */
-	public Set<Enemy> genEnemies(int[][] waveData)
+	public List<Enemy> genEnemies(int[][] waveData)
 	{
-		Set<Enemy> list = new HashSet<Enemy>();
+		List<Enemy> list = new ArrayList<Enemy>();
 		
 		for (int i = 0; i < waveData.length; i++)
 		{
@@ -202,7 +350,7 @@ public class World extends Observable implements Observer{
 			e.setPosition(data[0], data[1]);
 			e.stop();
 			list.add(e);
-			this.addObserver(e);
+			e.watch(events);
 		}
 		
 		return list;
@@ -214,14 +362,25 @@ public class World extends Observable implements Observer{
 	 */
 	public void startWave()
 	{
-		this.enemies = genEnemies(enemyFactory.createWave(5));
+		startWave(5);
+	}
+	
+	/**
+	 * Sets the enemies for the level
+	 * @param size - number of enemies in the wave
+	 */
+	public void startWave(int size)
+	{
+		this.enemies = genEnemies(enemyFactory.createWave(size));
 		
 		this.allActors.clear();
 		this.allActors.addAll(enemies);
 		this.allActors.add(player);
 		
-		this.setChanged();
-		this.notifyObservers(allActors);
+		if (actorsAdded.hasListeners())
+		{
+			actorsAdded.post(new ActorsAdded(allActors));
+		}
 		
 		currentWave++;
 	}
@@ -242,7 +401,19 @@ public class World extends Observable implements Observer{
 	 */
 	public void setLevel(BrickManager bricksMan) {
 		this.level = bricksMan;
-		this.enemyFactory = new EnemyFactory(this, bricksMan.getSpawnPoints());
+		this.enemyGrid = new SpatialGrid<Enemy>(bricksMan, ENEMY_CELL, ENEMY_CELL);
+		this.neighbors = new SpatialGrid<Actor>(bricksMan, VIEW_CELL, VIEW_CELL);
+		this.enemyFactory = new EnemyFactory(this, seed, bricksMan.getSpawnPoints());
+	}
+	
+	/**
+	 * Sets the seed the waves and the enemies' decisions are rolled from, so a
+	 * run can be played again the same way.  Takes effect when the level is set.
+	 * @param seed
+	 */
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
 	}
 	
 	public BrickManager getLevel()
@@ -250,12 +421,60 @@ public class World extends Observable implements Observer{
 		return this.level;
 	}
 	
+	/**
+	 * Sets the threads enemies think on.  A pool of a single thread keeps the
+	 * whole update on the thread calling it.
+	 * @param jobs
+	 */
+	public void setJobs(JobPool jobs)
+	{
+		this.jobs = jobs;
+	}
+	
 	/**
 	 * Start a new game
 	 */
 	public void init()
 	{
-		this.waves = 5;
+		init(5);
+	}
+	
+	/**
+	 * Start a new game, clearing out anything left over from a previous one
+	 * @param waves - number of waves of enemies to play through
+	 */
+	public void init(int waves)
+	{
+		dead.clear();
+		dead.addAll(enemies);
+		if (!dead.isEmpty())
+		{
+			actorsRemoved.post(new ActorsRemoved(dead));
+			for (Actor a : dead)
+			{
+				a.unwatch(events);
+				enemyFactory.release((Enemy)a);
+			}
+			dead.clear();
+		}
+		this.enemies.clear();
+		
+		this.allActors.clear();
+		if (this.player != null)
+		{
+			this.allActors.add(player);
+		}
+		
+		this.bullets.clear();
+		this.attacks.clear();
+		this.lastScore = -1;
+		this.lastSecond = -1;
+		
+		this.waves = waves;
+		this.currentWave = 0;
+		this.score = 0;
+		this.time = 0;
+		this.timeBonus = 0;
 	}
 
 	/**
@@ -282,57 +501,117 @@ public class World extends Observable implements Observer{
 	/**
 	 * @return the list of enemies currently being managed by the world
 	 */
-	public Set<Enemy> getEnemies() {
+	public List<Enemy> getEnemies() {
 		return this.enemies;
 	}
 	
 	/**
-	 * Renders the current state of the world to the screen
+	 * @return number of projectiles currently in flight
+	 */
+	public int getBulletCount() {
+		return this.bullets.size();
+	}
+	
+	/**
+	 * @return number of sprites drawn in the last frame
+	 */
+	public int getSpritesDrawn() {
+		return this.spritesDrawn;
+	}
+	
+	/**
+	 * @return number of sprites skipped in the last frame, for being out of view or inactive
+	 */
+	public int getSpritesCulled() {
+		return this.spritesCulled;
+	}
+	
+	/**
+	 * Copies the sprites and results of the world as of the last update.
+	 * Must be called from within the update thread.
+	 * @param frame
+	 */
+	void capture(SceneSnapshot frame)
+	{
+		this.player.capture(frame.player);
+		
+		frame.enemies.clear();
+		for (int i = 0; i < enemies.size(); i++)
+		{
+			enemies.get(i).capture(frame.enemies.add());
+		}
+		
+		this.bulletFactory.getLook().capture(frame.bullet);
+		frame.bullets.copy(this.bullets);
+		
+		frame.wavesSurvived = this.currentWave;
+		frame.secondsSurvived = (int)this.time;
+		frame.timeBonus = this.timeBonus;
+		frame.totalScore = this.score + this.timeBonus;
+	}
+	
+	/**
+	 * Renders a captured state of the world to the screen.  Only the
+	 * level is drawn from the world itself, it keeps tile changes from the
+	 * next update out while it draws, so this may run alongside that update.
 	 * @param g
+	 * @param alpha - interpolation between the last and current update
+	 * @param view - area of the world that is on screen, sprites outside of it are skipped
+	 * @param frame - sprites to draw, from {@link #capture(SceneSnapshot)}
 	 */
-	public void display(Graphics2D g)
+	void display(Graphics2D g, float alpha, Rectangle2D view, SceneSnapshot frame)
 	{
 		this.level.display(g);
-		this.player.drawSprite(g);
 		
-		for (Enemy e : enemies)
+		int wrap = this.getWidth();
+		int drawn = 0, culled = 0;
+		if (frame.player.draw(g, alpha, view, wrap))
+			drawn++;
+		else
+			culled++;
+		
+		for (int i = 0; i < frame.enemies.size(); i++)
 		{
-			e.drawSprite(g);
+			if (frame.enemies.get(i).draw(g, alpha, view, wrap))
+				drawn++;
+			else
+				culled++;
 		}
 		
-		while (lock);
-		lock = true;
+		BulletStore bullets = frame.bullets;
 		for (int i = 0; i < bullets.size(); i++)
 		{
-			Bullet b = bullets.get(i);
-			b.drawSprite(g);
+			frame.bullet.place(bullets.getLastXPosn(i), bullets.getLastYPosn(i), 
+							   bullets.getXPosn(i), bullets.getYPosn(i), bullets.getOrientation(i));
+			if (frame.bullet.draw(g, alpha, view, wrap))
+				drawn++;
+			else
+				culled++;
 		}
-		lock = false;
+		this.spritesDrawn = drawn;
+		this.spritesCulled = culled;
 	}
 
-	public void add(Bullet b) {
-		this.bullets.add(b);
-	}
-	
 	public void add(Enemy e) {
 		this.enemies.add(e);
 		this.allActors.add(e);
 	}
 
 	/**
-	 * Handle notifications from the controller
+	 * @return the event bus the world, its actors and the controller talk through
+	 */
+	public EventBus getEvents() {
+		return this.events;
+	}
+
+	/**
+	 * Handle attacks from the controller.
+	 * <p/>
+	 * These arrive on the input thread, so they are only queued here
+	 * and get applied by the next call to {@link #update()}
 	 */
 	@Override
-	public void update(Observable o, Object args) {
-		if (o instanceof Controller)
-		{
-			if (args instanceof PlayerAttackNotification)
-			{
-				if (player.hasAmmo() && !player.isJumping())
-				{
-					this.add(bulletFactory.spawnBullet());
-				}
-			}
-		}
+	public void handle(PlayerAttackNotification attack) {
+		attacks.offer(attack);
 	}
 }
@@ -1,14 +1,14 @@
 package revert.MainScene.notifications;
 
-import java.util.ArrayList;
+import java.util.List;
 
 import revert.Entities.Actor;
 
 public class ActorsAdded {
 
-	public ArrayList<? extends Actor> actors;
+	public List<Actor> actors;
 	
-	public ActorsAdded(ArrayList<? extends Actor> a)
+	public ActorsAdded(List<Actor> a)
 	{
 		actors = a;
 	}
@@ -1,14 +1,14 @@
 package revert.MainScene.notifications;
 
-import java.util.Set;
+import java.util.List;
 
 import revert.Entities.Actor;
 
 public class ActorsRemoved 
 {
-	public Set<Actor> actors;
+	public List<Actor> actors;
 	
-	public ActorsRemoved(Set<Actor> a)
+	public ActorsRemoved(List<Actor> a)
 	{
 		actors = a;
 	}
@@ -14,9 +14,29 @@ import com.kgp.util.Vector2;
 public abstract class BrickManager {
 
 	/**
-	 * Mask in column row order
+	 * How far boxes may overlap a tile and still only count as touching it,
+	 * so rounding can't sink a box resting against a tile into it
 	 */
-	protected boolean[][] collisionMask;
+	private static final float SKIN = 1f / 64f;
+	
+	/**
+	 * Solid tiles of the map, one bit per tile in row order
+	 */
+	protected TileMask collisionMask;
+	/**
+	 * The collision mask turned on its side, each of its rows is a column of
+	 * the map, so floors and ceilings are found a word at a time
+	 */
+	private TileMask columnMask;
+	/**
+	 * Pre-rendered chunks of the map, made the first time it is drawn
+	 */
+	private TileRenderer renderer;
+	/**
+	 * Held while the map is drawn and while a tile is changed, the map is
+	 * drawn on the render thread while tiles change on the update thread
+	 */
+	private final Object tileLock = new Object();
 	/**
 	 * Bricks with tile id
 	 */
@@ -39,16 +59,14 @@ public abstract class BrickManager {
 	 */
 	public boolean insideBrick(int x, int y, boolean real) {
 
-		Vector2 loc;
+		int col = x, row = y;
 		if (real) {
-			loc = worldToMap(x, y);
-		}
-		else {
-			loc = new Vector2(x, y);
+			col = worldToMapX(x);
+			row = worldToMapY(y);
 		}
 
-		if (loc.x > -1 && loc.y > -1 && loc.x < numCols && loc.y < numRows)
-			return collisionMask[(int) loc.x][(int) loc.y];
+		if (col > -1 && row > -1 && col < numCols && row < numRows)
+			return isSolid(col, row);
 		return false;
 	}
 
@@ -58,8 +76,26 @@ public abstract class BrickManager {
 	 * @return
 	 */
 	public Vector2 worldToMap(float xWorld, float yWorld) {
-		// System.out.println("World: " + xWorld + ", " + yWorld);
+		return worldToMap(xWorld, yWorld, new Vector2());
+	}
+
+	/**
+	 * convert world coord (x,y) to a map index tuple, storing it in out
+	 * 
+	 * @return out
+	 */
+	public Vector2 worldToMap(float xWorld, float yWorld, Vector2 out) {
+		out.set(worldToMapX(xWorld), worldToMapY(yWorld));
+		return out;
+	}
 
+	/**
+	 * convert a world x coordinate to a map column, wrapping around the map
+	 * 
+	 * @param xWorld
+	 * @return column index
+	 */
+	public int worldToMapX(float xWorld) {
 		int mapX = (int) (xWorld / (float) this.getBrickWidth());
 		if (mapX < 0) {
 			mapX += numCols;
@@ -67,21 +103,23 @@ public abstract class BrickManager {
 		else if (mapX >= numCols) {
 			mapX -= numCols;
 		}
+		return mapX;
+	}
 
-		int mapY;
+	/**
+	 * convert a world y coordinate to a map row
+	 * 
+	 * @param yWorld
+	 * @return row index, -1 when above the map
+	 */
+	public int worldToMapY(float yWorld) {
 		if (yWorld < yOffset) {
-			mapY = -1;
+			return -1;
 		}
 		else if (yWorld > this.getRealHeight()) {
-			mapY = numRows - 1;
+			return numRows - 1;
 		}
-		else {
-			yWorld -= yOffset;
-			mapY = (int) (yWorld / (float) this.getBrickHeight());
-		}
-
-		// System.out.println("Map: " + mapX + ", " + mapY);
-		return new Vector2(mapX, mapY);
+		return (int) ((yWorld - yOffset) / (float) this.getBrickHeight());
 	}
 
 	/**
@@ -91,11 +129,28 @@ public abstract class BrickManager {
 	 * @return
 	 */
 	public Vector2 mapToWorld(Vector2 map) {
-		Vector2 world = new Vector2();
-		world.x = map.x * this.getBrickWidth();
-		world.y = map.y * this.getBrickHeight();
-		world.y += yOffset;
-		return world;
+		return mapToWorld(map, new Vector2());
+	}
+
+	/**
+	 * Translates a map point into a world coordinate, storing it in out
+	 * 
+	 * @param map
+	 * @param out - vector to write to, may be map
+	 * @return out
+	 */
+	public Vector2 mapToWorld(Vector2 map, Vector2 out) {
+		out.x = map.x * this.getBrickWidth();
+		out.y = map.y * this.getBrickHeight() + yOffset;
+		return out;
+	}
+
+	/**
+	 * @param row
+	 * @return world y coordinate of the top of a map row
+	 */
+	public float mapToWorldY(int row) {
+		return row * this.getBrickHeight() + yOffset;
 	}
 
 	/**
@@ -104,26 +159,91 @@ public abstract class BrickManager {
 	 * @param xWorld
 	 * @param yWorld
 	 * @param real - world coordinates or map coordinates
+	 * @return world y coordinate of the top of the floor, or of the given
+	 *         location if there is no floor below it
 	 */
 	public float findFloor(int x, int y, boolean real) {
-		Vector2 loc;
+		int col = x, row = y;
 		if (real) {
-			loc = worldToMap(x, y);
+			col = worldToMapX(x);
+			row = worldToMapY(y);
 		}
-		else {
-			loc = new Vector2(x, y);
+		
+		int floor = floorRow(clampToMap(col), Math.max(row, 0));
+		if (floor < numRows) {
+			row = floor;
 		}
-
-		boolean b;
-		for (int i = (int) loc.y; i < numCols && loc.y == -1; i++) {
-			b = collisionMask[(int) loc.x][i];
-			if (b)
-				loc.y = i; // reduce locY (i.e. move up)
+		return mapToWorldY(row);
+	}
+	
+	/**
+	 * Takes on the tiles of a loaded level
+	 * 
+	 * @param data
+	 */
+	protected void setTiles(LevelData data) {
+		numCols = data.cols;
+		numRows = data.rows;
+		collisionMask = data.mask;
+		bricks = data.bricks;
+		if (data.spawns != null) {
+			spawnPoints = data.spawns;
 		}
-		return loc.y * this.getBrickHeight() + yOffset;
-
+		buildColumnMask();
 	}
-
+	
+	/**
+	 * Builds the column ordered copy of the collision mask.  Must be called
+	 * once the mask has been filled in.
+	 */
+	protected void buildColumnMask() {
+		columnMask = new TileMask(numRows, numCols);
+		for (int row = 0; row < numRows; row++) {
+			for (int col = collisionMask.nextSolid(0, row); col != -1; col = collisionMask.nextSolid(col + 1, row)) {
+				columnMask.set(row, col, true);
+			}
+		}
+	}
+	
+	/**
+	 * Changes if a tile is solid, keeping the column mask up to date
+	 * 
+	 * @param col - map column, wraps around the map
+	 * @param row - map row
+	 * @param solid
+	 */
+	public void setSolid(int col, int row, boolean solid) {
+		col = clampToMap(col);
+		if (collisionMask.get(col, row) != solid) {
+			synchronized (tileLock) {
+				collisionMask.set(col, row, solid);
+				if (renderer != null)
+					renderer.invalidate(col, row);
+			}
+			columnMask.set(row, col, solid);
+		}
+	}
+	
+	/**
+	 * @param col - map column
+	 * @param row - map row
+	 * @return row of the nearest solid tile at or below the tile, the height of
+	 *         the map if there is none
+	 */
+	public int floorRow(int col, int row) {
+		int floor = columnMask.nextSolid(row, col);
+		return (floor != -1) ? floor : numRows;
+	}
+	
+	/**
+	 * @param col - map column
+	 * @param row - map row
+	 * @return row of the nearest solid tile at or above the tile, -1 if there is none
+	 */
+	public int ceilingRow(int col, int row) {
+		return columnMask.prevSolid(row, col);
+	}
+	
 	/**
 	 * @return the pixel width of a brick
 	 */
@@ -171,53 +291,471 @@ public abstract class BrickManager {
 	}
 
 	/**
-	 * Used when the player is jumping.
+	 * @param map - brick location in the map
+	 * @return boolean indicating if a brick is located within this map
+	 */
+	public boolean brickExists(Vector2 map) {
+		return brickExists((int)map.x, (int)map.y);
+	}
+
+	/**
+	 * @param x - map column, wraps around the map
+	 * @param y - map row
+	 * @return boolean indicating if a brick is located within this map
+	 */
+	public boolean brickExists(int x, int y) {
+		//map does not loop vertically, so we clamp to failure
+		if (y < 0)
+			return false;
+
+		return this.isSolid(clampToMap(x), y);
+	}
+	
+	/**
+	 * Checks if anything solid lies on the line between two world points.
+	 * Every tile the line passes through is visited once, at any angle, so
+	 * nothing can slip through between the tiles that are checked.  The line
+	 * is taken as given and may run off either side of the map, columns wrap
+	 * around while rows outside of the map are open.
+	 * <p/>
+	 * The tiles the line starts and ends in are not checked.
+	 * 
+	 * @param x0 - world x coordinate of the start
+	 * @param y0 - world y coordinate of the start
+	 * @param x1 - world x coordinate of the end
+	 * @param y1 - world y coordinate of the end
+	 * @return true if no solid tile lies between the two points
+	 */
+	public boolean lineOfSight(float x0, float y0, float x1, float y1) {
+		float w = this.getBrickWidth();
+		float h = this.getBrickHeight();
+		return castRay(x0 / w, (y0 - yOffset) / h, x1 / w, (y1 - yOffset) / h, false) == Sweep.MISS;
+	}
+	
+	/**
+	 * Finds where a point moving between two world points first runs into
+	 * a solid tile.  Like {@link #lineOfSight(float, float, float, float)}
+	 * every tile on the way is visited, but the tiles at either end count
+	 * too, so this tells if a fast mover went through a wall during a step.
 	 * 
-	 * Checks to see if their next step will be within a brick, and if it is
-	 * calculate the distance been them and the bottom of the brick so they can
-	 * bounce their head off properly.
-	 */
-	public float checkBrickBase(float xWorld, float yWorld, float vertStep) {
-		Vector2 map = worldToMap(xWorld, yWorld - vertStep);
-		if (this.brickExists(map)) {
-			Vector2 world = mapToWorld(map);
-			world.y += this.getBrickHeight();
-			int distance = (int) (yWorld - world.y);
-
-			return distance;
+	 * @param x0 - world x coordinate of the start
+	 * @param y0 - world y coordinate of the start
+	 * @param x1 - world x coordinate of the end
+	 * @param y1 - world y coordinate of the end
+	 * @return how far along the way, from 0 to 1, the point enters the first
+	 *         solid tile, or {@link Sweep#MISS} if it never does
+	 */
+	public float sweepPoint(float x0, float y0, float x1, float y1) {
+		float w = this.getBrickWidth();
+		float h = this.getBrickHeight();
+		return castRay(x0 / w, (y0 - yOffset) / h, x1 / w, (y1 - yOffset) / h, true);
+	}
+	
+	/**
+	 * Finds where a box moving in a straight line first runs into a solid
+	 * tile.  Every tile the box could reach on the way is tested, so the
+	 * result is the same however far it moves at once.  Moving along one axis
+	 * at a time is the cheapest, only the nearest solid tile in each row or
+	 * column ahead of the box is looked up.
+	 * <p/>
+	 * Tiles the box is only touching don't stop it from sliding along them,
+	 * so a box standing on a floor can walk across it.  A box that is already
+	 * partly inside a tile is kept from going any deeper, but is free to back
+	 * out of it.  Running sideways into a column of tiles reports the highest
+	 * one in the way, so a step can be told apart from a wall.  Columns wrap
+	 * around the map while rows outside of it are open.
+	 * 
+	 * @param left - world coordinates of the box's edges
+	 * @param top
+	 * @param right
+	 * @param bottom
+	 * @param dx - distance to move the box
+	 * @param dy
+	 * @param hit - filled in with the first tile the box runs into, if any
+	 * @return how far along the movement, from 0 to 1, the box reaches the
+	 *         first solid tile, or {@link Sweep#MISS} if it never does
+	 */
+	public float sweepBox(float left, float top, float right, float bottom, float dx, float dy, Contact hit) {
+		hit.time = Sweep.MISS;
+		if (dy == 0) {
+			if (dx != 0) {
+				sweepAcross(left, top, right, bottom, dx, hit);
+			}
 		}
-		return vertStep;
+		else if (dx == 0) {
+			sweepUpDown(left, top, right, bottom, dy, hit);
+		}
+		else {
+			sweepTiles(left, top, right, bottom, dx, dy, hit);
+		}
+		return hit.time;
 	}
-
+	
+	/**
+	 * Sweeps a box sideways.  All of a column's tiles beside the box are
+	 * reached at once, so only the highest solid one needs to be found.
+	 */
+	private void sweepAcross(float left, float top, float right, float bottom, float dx, Contact hit) {
+		float w = this.getBrickWidth();
+		float h = this.getBrickHeight();
+		
+		// rows the box is in, not counting the ones it only touches
+		int firstRow = Math.max(0, (int) Math.floor((top + SKIN - yOffset) / h));
+		int lastRow = Math.min(numRows - 1, (int) Math.ceil((bottom - SKIN - yOffset) / h) - 1);
+		if (firstRow > lastRow) {
+			return;
+		}
+		
+		// columns ahead, nearest first
+		int step = (dx > 0) ? 1 : -1;
+		int col = (int) Math.floor(((dx > 0) ? right - SKIN : left + SKIN) / w);
+		int last = (int) Math.floor((((dx > 0) ? right : left) + dx) / w);
+		for (;; col += step) {
+			float tileLeft = col * w;
+			float t = enter(left, right, dx, tileLeft, tileLeft + w);
+			if (t > 1f && t != Sweep.MISS) {
+				return;
+			}
+			if (t >= 0f && t != Sweep.MISS) {
+				int wrapped = col % numCols;
+				int row = floorRow((wrapped < 0) ? wrapped + numCols : wrapped, firstRow);
+				if (row <= lastRow) {
+					hit.time = t;
+					hit.col = col;
+					hit.row = row;
+					hit.normalX = -step;
+					hit.normalY = 0;
+					return;
+				}
+			}
+			if (col == last) {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Sweeps a box up or down, only looking at the nearest floors or ceilings
+	 * in each column under or over the box
+	 */
+	private void sweepUpDown(float left, float top, float right, float bottom, float dy, Contact hit) {
+		float w = this.getBrickWidth();
+		float h = this.getBrickHeight();
+		
+		// columns the box is in, not counting the ones it only touches
+		int firstCol = (int) Math.floor((left + SKIN) / w);
+		int lastCol = (int) Math.ceil((right - SKIN) / w) - 1;
+		
+		int from, to;
+		if (dy > 0) {
+			from = Math.max(0, (int) Math.floor((bottom - SKIN - yOffset) / h));
+			to = Math.min(numRows - 1, (int) Math.floor((bottom + dy - yOffset) / h));
+		}
+		else {
+			from = Math.min(numRows - 1, (int) Math.floor((top + SKIN - yOffset) / h));
+			to = Math.max(0, (int) Math.floor((top + dy - yOffset) / h));
+		}
+		if ((dy > 0) ? from > to : from < to) {
+			return;
+		}
+		
+		for (int col = firstCol; col <= lastCol; col++) {
+			int wrapped = col % numCols;
+			if (wrapped < 0) {
+				wrapped += numCols;
+			}
+			
+			int row = (dy > 0) ? floorRow(wrapped, from) : ceilingRow(wrapped, from);
+			while ((dy > 0) ? row <= to : row >= to) {
+				float tileTop = row * h + yOffset;
+				float t = enter(top, bottom, dy, tileTop, tileTop + h);
+				if (t != Float.NEGATIVE_INFINITY) {
+					if (t <= 1f && t < hit.time) {
+						hit.time = t;
+						hit.col = col;
+						hit.row = row;
+						hit.normalX = 0;
+						hit.normalY = (dy > 0) ? -1 : 1;
+					}
+					break;
+				}
+				// the box is backing out of this one, look past it
+				if (dy > 0) {
+					row = (row + 1 < numRows) ? floorRow(wrapped, row + 1) : numRows;
+				}
+				else {
+					row = (row > 0) ? ceilingRow(wrapped, row - 1) : -1;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Sweeps a box diagonally, testing every tile it could reach
+	 */
+	private void sweepTiles(float left, float top, float right, float bottom, float dx, float dy, Contact hit) {
+		float w = this.getBrickWidth();
+		float h = this.getBrickHeight();
+		
+		int firstCol = (int) Math.floor(Math.min(left, left + dx) / w);
+		int lastCol = (int) Math.floor(Math.max(right, right + dx) / w);
+		int firstRow = Math.max(0, (int) Math.floor((Math.min(top, top + dy) - yOffset) / h));
+		int lastRow = Math.min(numRows - 1, (int) Math.floor((Math.max(bottom, bottom + dy) - yOffset) / h));
+		
+		for (int row = firstRow; row <= lastRow; row++) {
+			float tileTop = row * h + yOffset;
+			float enterY = enter(top, bottom, dy, tileTop, tileTop + h);
+			if (enterY == Sweep.MISS) {
+				continue;
+			}
+			float exitY = exit(top, bottom, dy, tileTop, tileTop + h);
+			
+			for (int col = firstCol; col <= lastCol; col++) {
+				if (!blocksSight(col, row)) {
+					continue;
+				}
+				float tileLeft = col * w;
+				float enterX = enter(left, right, dx, tileLeft, tileLeft + w);
+				if (enterX == Sweep.MISS) {
+					continue;
+				}
+				float exitX = exit(left, right, dx, tileLeft, tileLeft + w);
+				
+				// the box is only in the tile while it is within both of its spans
+				float t = Math.max(enterX, enterY);
+				if (t == Float.NEGATIVE_INFINITY || t > 1f || t >= Math.min(exitX, exitY) || t >= hit.time) {
+					continue;
+				}
+				
+				hit.time = t;
+				hit.col = col;
+				hit.row = row;
+				if (enterY >= enterX) {
+					hit.normalX = 0;
+					hit.normalY = (dy > 0) ? -1 : 1;
+				}
+				else {
+					hit.normalX = (dx > 0) ? -1 : 1;
+					hit.normalY = 0;
+				}
+			}
+		}
+	}
+	
 	/**
-	 * Used when the player is falling.
+	 * When a span moving along an axis comes to overlap a tile's span
 	 * 
-	 * Checks to see if their next step will be within a brick, and if it is
-	 * calculate the distance been them and the top of the brick so they can
-	 * land properly.
-	 */
-	public float checkBrickTop(float xWorld, float yWorld, float vertStep) {
-		Vector2 map = worldToMap(xWorld, yWorld + vertStep);
-		// System.out.println(map.y);
-		if (this.brickExists(map)) {
-			//System.out.println(map);
-			Vector2 world = mapToWorld(map);
-			int distance = (int) (yWorld - world.y);
-			return distance;
+	 * @param lo - span of the box
+	 * @param hi
+	 * @param d - distance the box moves
+	 * @param a - span of the tile
+	 * @param b
+	 * @return time the box reaches the tile, negative infinity if it overlaps
+	 *         the tile all along, or {@link Sweep#MISS} if it never reaches it
+	 */
+	private static float enter(float lo, float hi, float d, float a, float b) {
+		if (d == 0) {
+			return (hi > a + SKIN && lo < b - SKIN) ? Float.NEGATIVE_INFINITY : Sweep.MISS;
+		}
+		
+		float gap = (d > 0) ? a - hi : lo - b;
+		if (gap >= -SKIN) {
+			return Math.max(gap, 0f) / Math.abs(d);
+		}
+		if (hi <= a + SKIN || lo >= b - SKIN) {
+			// already past the tile
+			return Sweep.MISS;
 		}
-		return vertStep;
+		// already partly inside, only moving deeper in is stopped
+		boolean deeper = (d > 0) ? lo + hi < a + b : lo + hi > a + b;
+		return deeper ? 0f : Float.NEGATIVE_INFINITY;
 	}
-
+	
 	/**
-	 * @param map - brick location in the map
-	 * @return boolean indicating if a brick is located within this map
+	 * When a span moving along an axis stops overlapping a tile's span
+	 * 
+	 * @return time the box leaves the tile, infinite if it never does
 	 */
-	public boolean brickExists(Vector2 map) {
-		//map does not loop vertically, so we clamp to failure
-		if (map.y < 0)
+	private static float exit(float lo, float hi, float d, float a, float b) {
+		if (d == 0) {
+			return Float.POSITIVE_INFINITY;
+		}
+		return ((d > 0) ? b - lo : hi - a) / Math.abs(d);
+	}
+	
+	/**
+	 * Checks if anything solid lies on the line between the centers of two
+	 * tiles, going whichever way around the map is shorter.
+	 * 
+	 * @param col0 - map column of the start
+	 * @param row0 - map row of the start
+	 * @param col1 - map column of the end
+	 * @param row1 - map row of the end
+	 * @return true if no solid tile lies between the two tiles
+	 */
+	public boolean lineOfSight(int col0, int row0, int col1, int row1) {
+		int cols = col1 - col0;
+		if (cols > numCols / 2) {
+			cols -= numCols;
+		}
+		else if (cols < -numCols / 2) {
+			cols += numCols;
+		}
+		int rows = row1 - row0;
+		int stepCol = (cols > 0) ? 1 : -1;
+		int stepRow = (rows > 0) ? 1 : -1;
+		cols = Math.abs(cols);
+		rows = Math.abs(rows);
+		
+		// with both ends in the middle of a tile the i-th column edge is
+		// crossed (2i + 1) / (2 cols) of the way along, so comparing which
+		// edge comes next can be done exactly, the same in either direction
+		int col = col0, row = row0;
+		long nextX = rows, nextY = cols;
+		int n = cols + rows;
+		while (n > 1) {
+			if (nextX == nextY) {
+				col += stepCol;
+				row += stepRow;
+				nextX += 2L * rows;
+				nextY += 2L * cols;
+				n -= 2;
+			}
+			else if (nextX < nextY) {
+				col += stepCol;
+				nextX += 2L * rows;
+				n--;
+			}
+			else {
+				row += stepRow;
+				nextY += 2L * cols;
+				n--;
+			}
+			
+			if (n > 0 && blocksSight(col, row)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Walks the tiles along a line in map space, stepping across whichever
+	 * tile edge the line reaches first (Amanatides &amp; Woo)
+	 * 
+	 * @param ends - true to check the tiles the line starts and ends in as well
+	 * @return how far along the line the first solid tile is entered, or
+	 *         {@link Sweep#MISS} if there is none
+	 */
+	private float castRay(float x0, float y0, float x1, float y1, boolean ends) {
+		int col = (int) Math.floor(x0);
+		int row = (int) Math.floor(y0);
+		if (ends && blocksSight(col, row)) {
+			return 0f;
+		}
+		int endCol = (int) Math.floor(x1);
+		int endRow = (int) Math.floor(y1);
+		
+		float dx = x1 - x0;
+		float dy = y1 - y0;
+		int stepCol = (dx > 0) ? 1 : -1;
+		int stepRow = (dy > 0) ? 1 : -1;
+		
+		// distance along the line, as a fraction of its length, to cross a
+		// whole tile and to reach the next tile edge of each axis
+		float deltaX = (dx == 0) ? Float.POSITIVE_INFINITY : Math.abs(1f / dx);
+		float deltaY = (dy == 0) ? Float.POSITIVE_INFINITY : Math.abs(1f / dy);
+		float nextX = (dx == 0) ? Float.POSITIVE_INFINITY : ((dx > 0) ? col + 1 - x0 : x0 - col) * deltaX;
+		float nextY = (dy == 0) ? Float.POSITIVE_INFINITY : ((dy > 0) ? row + 1 - y0 : y0 - row) * deltaY;
+		
+		// tile edges left to cross, the last one lands on the end tile
+		int n = Math.abs(endCol - col) + Math.abs(endRow - row);
+		int last = ends ? 0 : 1;
+		while (n > last) {
+			float t;
+			if (nextX == nextY && col != endCol && row != endRow) {
+				// passing exactly through a corner only touches the tiles beside it
+				t = nextX;
+				col += stepCol;
+				row += stepRow;
+				nextX += deltaX;
+				nextY += deltaY;
+				n -= 2;
+			}
+			else if (row == endRow || (col != endCol && nextX < nextY)) {
+				t = nextX;
+				col += stepCol;
+				nextX += deltaX;
+				n--;
+			}
+			else {
+				t = nextY;
+				row += stepRow;
+				nextY += deltaY;
+				n--;
+			}
+			
+			if ((n > 0 || ends) && blocksSight(col, row)) {
+				return Math.min(t, 1f);
+			}
+		}
+		return Sweep.MISS;
+	}
+	
+	/**
+	 * @param col - map column, any number of times around the map
+	 * @param row - map row, open outside of the map
+	 * @return true if the tile is solid
+	 */
+	private boolean blocksSight(int col, int row) {
+		if (row < 0 || row >= numRows) {
 			return false;
-
-		return this.collisionMask[clampToMap((int)map.x)][(int)map.y];
+		}
+		col %= numCols;
+		return isSolid((col < 0) ? col + numCols : col, row);
+	}
+	
+	/**
+	 * Looks up a tile without any wrapping or range checks
+	 * 
+	 * @param col - map column
+	 * @param row - map row
+	 * @return true if the tile is solid
+	 */
+	protected boolean isSolid(int col, int row) {
+		return this.collisionMask.get(col, row);
+	}
+	
+	/**
+	 * Gets the tiles of an area ready to be read during the next shared read.
+	 * Levels that are entirely in memory have nothing to do.
+	 * 
+	 * @param left - world coordinates of the area's edges
+	 * @param top
+	 * @param right
+	 * @param bottom
+	 */
+	public void preload(float left, float top, float right, float bottom) {
+	}
+	
+	/**
+	 * Starts a stretch where tiles may be read from several threads at once.
+	 * Nothing may change the level until {@link #endSharedRead()}.
+	 */
+	public void beginSharedRead() {
+	}
+	
+	/**
+	 * Ends a stretch started by {@link #beginSharedRead()}
+	 */
+	public void endSharedRead() {
+	}
+	
+	/**
+	 * @return the solid tiles of the map, null if the map isn't kept entirely in memory
+	 */
+	final public TileMask getCollisionMask() {
+		return collisionMask;
 	}
 	
 	/**
@@ -242,6 +780,45 @@ public abstract class BrickManager {
 	 */
 	public abstract void display(Graphics2D g);
 
+	/**
+	 * Draws the tiles of the map that are within the clip of the graphics,
+	 * through a cache of pre-rendered chunks.  Tiles can't be changed while
+	 * the map is being drawn, so it may be drawn from another thread than the
+	 * one changing them.
+	 * 
+	 * @param g - graphics context, transformed into world coordinates
+	 */
+	protected void drawMap(Graphics2D g) {
+		synchronized (tileLock) {
+			if (renderer == null)
+				renderer = new TileRenderer(this);
+			renderer.draw(g);
+		}
+	}
+
+	/**
+	 * Draws a block of tiles with the block's top left tile at the origin.
+	 * Levels that can be drawn override this to fill the chunks of their
+	 * {@link TileRenderer}.
+	 * 
+	 * @param g - graphics context
+	 * @param col - first column of the block
+	 * @param row - first row of the block
+	 * @param cols - width of the block in tiles, never past the edge of the map
+	 * @param rows - height of the block in tiles, never past the edge of the map
+	 * @return number of tiles drawn
+	 */
+	protected int drawTiles(Graphics2D g, int col, int row, int cols, int rows) {
+		return 0;
+	}
+
+	/**
+	 * @return the renderer drawing the map, null if it hasn't been drawn yet
+	 */
+	final public TileRenderer getTileRenderer() {
+		return renderer;
+	}
+
 	final public Vector2[] getSpawnPoints() {
 		return spawnPoints;
 	}
@@ -0,0 +1,37 @@
+package revert.util;
+
+/**
+ * Where a box moving through the level first runs into a solid tile, filled in
+ * by {@link BrickManager#sweepBox(float, float, float, float, float, float, Contact)}.
+ * <p/>
+ * Contacts are meant to be reused from sweep to sweep, each sweep replaces all
+ * of what was in it.
+ *
+ * @author nhydock
+ */
+public final class Contact {
+
+	/**
+	 * How far along the movement the box touches the tile, from 0 to 1, or
+	 * {@link Sweep#MISS} if it never does
+	 */
+	public float time = Sweep.MISS;
+
+	/**
+	 * Direction the side of the tile that was touched faces, one of the two is
+	 * always 0 and the other -1 or 1.  A box landing on a floor gets (0, -1).
+	 */
+	public int normalX, normalY;
+
+	/**
+	 * Tile that was touched, the column is not wrapped around the map
+	 */
+	public int col, row;
+
+	/**
+	 * @return true if the box ran into something
+	 */
+	public boolean hit() {
+		return time != Sweep.MISS;
+	}
+}
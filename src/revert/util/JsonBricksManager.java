@@ -2,38 +2,384 @@ package revert.util;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Reader;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.kgp.core.AssetsManager;
 import com.kgp.util.Vector2;
 
 /**
  * Parses a CSV style Tiled Map XML File into a collision mask for levels
+ * <p/>
+ * The first tile layer of the map is used for collision, and the first
+ * polyline of the first object layer for spawn points.  Layer data may be a
+ * plain array of tile ids or base64, optionally zlib or gzip compressed.
  * 
  * @author Nicholas Hydock
  */
 public class JsonBricksManager extends BrickManager {
 
 	private static String TMX_DIR = "Levels/";
+	
+	//Tiled stores flipping in the top bits of a tile id
+	private static final long GID_MASK = 0x1FFFFFFFL;
+	
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final Charset ASCII = Charset.forName("US-ASCII");
 
 	private int stepX = 32;
 	private int stepY = 32;
 
-	public static JsonBricksManager load(String file, Gson gson)
+	/**
+	 * Streams a level in from the level folder.  A compiled version of the
+	 * level is used instead when there is one.
+	 * 
+	 * @param file - name of the level, without extension
+	 * @return the loaded level
+	 */
+	public static JsonBricksManager load(String file)
 	{
+		JsonBricksManager t = null;
+		try {
+			LevelData data = LevelData.load(TMX_DIR + file + LevelData.EXTENSION);
+			if (data != null) {
+				t = new JsonBricksManager();
+				t.stepX = data.tileWidth;
+				t.stepY = data.tileHeight;
+				t.setTiles(data);
+				if (t.spawnPoints == null) {
+					t.spawnPoints = new Vector2[0];
+				}
+			}
+		}
+		catch (IOException e) {
+			System.out.println("Ignoring compiled level: " + e.getMessage());
+		}
+		if (t == null) {
+			t = stream(file);
+		}
+		
+		return t;
+	}
+	
+	/**
+	 * Streams a level's json in from the level folder
+	 */
+	private static JsonBricksManager stream(String file)
+	{
+		JsonBricksManager t;
 		InputStream input = AssetsManager.getResource(TMX_DIR + file + ".json");
-		Reader data = new InputStreamReader(input);
-		return gson.fromJson(data, JsonBricksManager.class);
+		if (input == null) {
+			throw new JsonIOException("Level not found: " + TMX_DIR + file + ".json");
+		}
+		LayerDataReader data = new LayerDataReader(new BufferedReader(new InputStreamReader(input, UTF8)));
+		JsonReader reader = new JsonReader(data);
+		try {
+			t = read(reader, data);
+		}
+		catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+		finally {
+			try {
+				reader.close();
+			}
+			catch (IOException e) {
+				// nothing left to read
+			}
+		}
+		
+		return t;
+	}
+	
+	/**
+	 * Reads a Tiled JSON map one token at a time, without building a tree of the document
+	 * 
+	 * @param reader
+	 * @return the loaded level
+	 * @throws IOException
+	 */
+	public static JsonBricksManager read(JsonReader reader) throws IOException
+	{
+		return read(reader, null);
+	}
+	
+	/**
+	 * @param reader
+	 * @param data - decodes base64 layer data as the reader passes it, or null
+	 * if the reader hands it over as a string
+	 */
+	private static JsonBricksManager read(JsonReader reader, LayerDataReader data) throws IOException
+	{
+		JsonBricksManager t = new JsonBricksManager();
+		TileStream collision = null;
+		int[] size = {-1, -1};
+		int mapWidth = -1, mapHeight = -1;
+		
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (name.equals("layers")) {
+				reader.beginArray();
+				while (reader.hasNext()) {
+					if (collision == null) {
+						collision = readLayer(reader, t, size, data);
+					}
+					else {
+						readLayer(reader, t, null, null);
+					}
+				}
+				reader.endArray();
+			}
+			else if (name.equals("width")) {
+				mapWidth = reader.nextInt();
+			}
+			else if (name.equals("height")) {
+				mapHeight = reader.nextInt();
+			}
+			else if (name.equals("tilewidth")) {
+				t.stepX = reader.nextInt();
+			}
+			else if (name.equals("tileheight")) {
+				t.stepY = reader.nextInt();
+			}
+			else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		
+		if (collision == null) {
+			throw new JsonSyntaxException("Level has no tile layer to use for collision");
+		}
+		t.setCollision(collision, (size[0] > 0) ? size[0] : mapWidth, (size[1] > 0) ? size[1] : mapHeight);
+		if (t.spawnPoints == null) {
+			t.spawnPoints = new Vector2[0];
+		}
+		
+		return t;
+	}
+	
+	/**
+	 * Reads a single layer of the map
+	 * 
+	 * @param reader
+	 * @param t - level being loaded, receives the spawn points
+	 * @param size - receives the layer's width and height, null to skip the layer's tiles
+	 * @param data - where the layer's base64 data was decoded to, null if it comes as a string
+	 * @return the layer's tiles, null if it has none or they were skipped
+	 * @throws IOException
+	 */
+	private static TileStream readLayer(JsonReader reader, JsonBricksManager t, int[] size, LayerDataReader data) throws IOException
+	{
+		TileStream tiles = null;
+		InputStream decoded = null;
+		String encoded = null;
+		String encoding = null;
+		String compression = null;
+		
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (name.equals("data") && size != null) {
+				if (reader.peek() == JsonToken.STRING) {
+					encoded = reader.nextString();
+					if (data != null) {
+						// the data was decoded on its way past, the reader only saw ""
+						tiles = data.takeTiles();
+						decoded = data.takeBytes();
+					}
+				}
+				else {
+					tiles = new TileStream();
+					reader.beginArray();
+					while (reader.hasNext()) {
+						tiles.add(isSolid(reader.nextLong()));
+					}
+					reader.endArray();
+				}
+			}
+			else if (name.equals("encoding")) {
+				encoding = reader.nextString();
+			}
+			else if (name.equals("compression")) {
+				compression = reader.nextString();
+			}
+			else if (name.equals("width") && size != null) {
+				size[0] = reader.nextInt();
+			}
+			else if (name.equals("height") && size != null) {
+				size[1] = reader.nextInt();
+			}
+			else if (name.equals("objects") && t.spawnPoints == null) {
+				reader.beginArray();
+				while (reader.hasNext()) {
+					readObject(reader, t);
+				}
+				reader.endArray();
+			}
+			else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		
+		if (encoded != null) {
+			if (!"base64".equals(encoding)) {
+				throw new JsonSyntaxException("Unsupported layer encoding: " + encoding);
+			}
+			if (decoded != null) {
+				// the compression came after the data
+				tiles = decode(decoded, compression);
+			}
+			else if (tiles == null) {
+				tiles = decode(encoded, encoding, compression);
+			}
+		}
+		return tiles;
+	}
+	
+	/**
+	 * Reads a map object, taking its polyline as the level's spawn points
+	 * if they haven't been found yet
+	 */
+	private static void readObject(JsonReader reader, JsonBricksManager t) throws IOException
+	{
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if (reader.nextName().equals("polyline") && t.spawnPoints == null) {
+				List<Vector2> points = new ArrayList<Vector2>();
+				reader.beginArray();
+				while (reader.hasNext()) {
+					Vector2 v = new Vector2();
+					reader.beginObject();
+					while (reader.hasNext()) {
+						String name = reader.nextName();
+						if (name.equals("x")) {
+							v.x = (float) reader.nextDouble();
+						}
+						else if (name.equals("y")) {
+							v.y = (float) reader.nextDouble();
+						}
+						else {
+							reader.skipValue();
+						}
+					}
+					reader.endObject();
+					points.add(v);
+				}
+				reader.endArray();
+				t.spawnPoints = points.toArray(new Vector2[points.size()]);
+			}
+			else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+	}
+	
+	/**
+	 * @param gid - Tiled tile id
+	 * @return true if the tile should be collided with
+	 */
+	private static boolean isSolid(long gid) {
+		return (gid & GID_MASK) != 1;
+	}
+	
+	/**
+	 * Decodes a base64 layer into tiles, inflating it if it's compressed
+	 * 
+	 * @param data - base64 of little endian 32 bit tile ids
+	 * @param encoding - must be base64
+	 * @param compression - zlib, gzip or null
+	 * @return the layer's tiles
+	 */
+	private static TileStream decode(String data, String encoding, String compression) throws IOException
+	{
+		if (!"base64".equals(encoding)) {
+			throw new JsonSyntaxException("Unsupported layer encoding: " + encoding);
+		}
+		return decode(Base64.getMimeDecoder().wrap(new ByteArrayInputStream(data.getBytes(ASCII))), compression);
+	}
+	
+	/**
+	 * Reads tiles out of a layer's bytes, inflating them if they're compressed
+	 * 
+	 * @param in - little endian 32 bit tile ids, closed once they're read
+	 * @param compression - zlib, gzip or null
+	 * @return the layer's tiles
+	 */
+	static TileStream decode(InputStream in, String compression) throws IOException
+	{
+		if ("zlib".equals(compression)) {
+			in = new InflaterInputStream(in);
+		}
+		else if ("gzip".equals(compression)) {
+			in = new GZIPInputStream(in);
+		}
+		else if (compression != null && compression.length() > 0) {
+			throw new JsonSyntaxException("Unsupported layer compression: " + compression);
+		}
+		in = new BufferedInputStream(in);
+		
+		TileStream tiles = new TileStream();
+		try {
+			byte[] buffer = new byte[4096];
+			int filled = 0;
+			for (int read; (read = in.read(buffer, filled, buffer.length - filled)) != -1;) {
+				filled += read;
+				int end = filled & ~3;
+				for (int i = 0; i < end; i += 4) {
+					long gid = (buffer[i] & 0xFFL) | (buffer[i + 1] & 0xFFL) << 8
+							| (buffer[i + 2] & 0xFFL) << 16 | (buffer[i + 3] & 0xFFL) << 24;
+					tiles.add(isSolid(gid));
+				}
+				// keep any partial tile id for the next read
+				System.arraycopy(buffer, end, buffer, 0, filled - end);
+				filled -= end;
+			}
+			if (filled != 0) {
+				throw new JsonSyntaxException("Layer data is not a whole number of tile ids");
+			}
+		}
+		finally {
+			in.close();
+		}
+		return tiles;
+	}
+	
+	/**
+	 * Lays out the collision layer's tiles into this level's mask
+	 */
+	private void setCollision(TileStream tiles, int width, int height) {
+		if (width <= 0 || height <= 0 || (long) width * height != tiles.size()) {
+			throw new JsonSyntaxException("Collision layer has " + tiles.size() + " tiles, expected " + width + "x" + height);
+		}
+		this.collisionMask = tiles.toMask(width, height);
+		this.numCols = width;
+		this.numRows = height;
+		this.buildColumnMask();
 	}
 
 	@Override
@@ -42,11 +388,25 @@ public class JsonBricksManager extends BrickManager {
 		// TMX files are just being used for collision, do not draw with them
 		
 		// TODO DEBUG DRAWING, PLEASE COMMENT OUT OF PRODUCTION VERSION
+		drawMap(g);
+	}
+
+	@Override
+	protected int drawTiles(Graphics2D g, int col, int row, int cols, int rows) {
+		int drawn = 0;
+		int stop = col + cols;
 		g.setColor(Color.white);
-		for (int x = 0, col = 0; col < numCols; col++, x += stepX)
-			for (int y = 0, row = 0; row < numRows; row++, y+= stepY)
-				if (collisionMask[col][row])
-					g.fillRect(x, y, stepX, stepY);
+		// fill each horizontal run of solid tiles at once
+		for (int y = 0, r = row; r < row + rows; r++, y += stepY)
+			for (int start = collisionMask.nextSolid(col, r); start != -1 && start < stop;) {
+				int end = collisionMask.nextFree(start, r);
+				if (end == -1 || end > stop)
+					end = stop;
+				g.fillRect((start - col) * stepX, y, (end - start) * stepX, stepY);
+				drawn += end - start;
+				start = collisionMask.nextSolid(end, r);
+			}
+		return drawn;
 	}
 
 	@Override
@@ -64,6 +424,10 @@ public class JsonBricksManager extends BrickManager {
 		// TODO Auto-generated method stub
 	}
 
+	/**
+	 * Builds a level from an already parsed json tree, for loading through Gson.
+	 * Prefer {@link JsonBricksManager#load(String)} for big maps.
+	 */
 	public static class JsonBricksDeserializer implements JsonDeserializer<JsonBricksManager> {
 		public JsonBricksManager deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
 			JsonBricksManager t = new JsonBricksManager();
@@ -73,16 +437,25 @@ public class JsonBricksManager extends BrickManager {
 			//first layer must be the collision layer
 			JsonObject collisionLayer = layers.get(0).getAsJsonObject();
 			
-			//deserialize data as a collision mask
-			int[] layerData = context.deserialize(collisionLayer.get("data"), int[].class);
-			int width = collisionLayer.get("width").getAsInt();
-			int height = collisionLayer.get("height").getAsInt();
-			t.collisionMask = new boolean[width][height];
-			t.numCols = width;
-			t.numRows = height;
-			for (int row = 0, i = 0; row < height; row++)
-				for (int col = 0; col < width; col++, i++)
-					t.collisionMask[col][row] = layerData[i] != 1;
+			//deserialize data straight into the collision mask
+			JsonElement layerData = collisionLayer.get("data");
+			TileStream tiles;
+			if (layerData.isJsonArray()) {
+				tiles = new TileStream();
+				for (JsonElement gid : layerData.getAsJsonArray())
+					tiles.add(isSolid(gid.getAsLong()));
+			}
+			else {
+				try {
+					tiles = decode(layerData.getAsString(),
+							collisionLayer.has("encoding") ? collisionLayer.get("encoding").getAsString() : null,
+							collisionLayer.has("compression") ? collisionLayer.get("compression").getAsString() : null);
+				}
+				catch (IOException e) {
+					throw new JsonParseException(e);
+				}
+			}
+			t.setCollision(tiles, collisionLayer.get("width").getAsInt(), collisionLayer.get("height").getAsInt());
 			
 			//second layer is an object of collision points
 			JsonObject pointLayer = layers.get(1).getAsJsonObject();
@@ -106,4 +479,4 @@ public class JsonBricksManager extends BrickManager {
 			return t;
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,281 @@
+package revert.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.JsonSyntaxException;
+
+/**
+ * Sits between a Tiled JSON map and the {@link com.google.gson.stream.JsonReader}
+ * reading it, and decodes the collision layer's base64 data as it goes by.
+ * <p/>
+ * The JsonReader only ever sees an empty string in place of the data, so a
+ * huge layer is never held as one string.  The tiles are picked up afterwards
+ * with {@link #takeTiles()}.
+ * <p/>
+ * Tiled writes a layer's keys in alphabetical order, so its compression is
+ * known by the time its data arrives and the tiles come straight out of the
+ * inflater.  When the compression only comes after the data, the decoded bytes
+ * are kept until it is known, see {@link #takeBytes()}.
+ *
+ * @author nhydock
+ */
+final class LayerDataReader extends Reader {
+
+	// layers are objects in the map's layers array
+	private static final int LAYER_DEPTH = 3;
+	// keys and values worth remembering are all short
+	private static final int TEXT_LIMIT = 16;
+	private static final int CHUNK_BYTES = 1 << 16;
+
+	private final Reader in;
+	private final char[] buffer = new char[8192];
+	private int pos, end;
+
+	private int depth;
+	private boolean inString, escaped;
+	private final StringBuilder text = new StringBuilder();
+	// key of the value being read at layer depth, null when it isn't a value
+	private String valueOf;
+	// last string at layer depth, which is the key if a colon follows
+	private String lastString;
+	private boolean expectingValue;
+	private String compression;
+
+	// the first layer with data is used for collision, only its data is taken
+	private boolean watching = true;
+	// quote that closes the diverted data, still to be passed on
+	private boolean closeQuote;
+	private TileStream tiles;
+	private List<InputStream> bytes;
+
+	/**
+	 * @param in - raw json of the map
+	 */
+	LayerDataReader(Reader in) {
+		this.in = in;
+	}
+
+	/**
+	 * @return tiles of the diverted layer, or null if they were never decoded
+	 */
+	TileStream takeTiles() {
+		TileStream t = tiles;
+		tiles = null;
+		return t;
+	}
+
+	/**
+	 * @return the diverted layer's base64 decoded but still compressed data,
+	 * or null if it was decoded straight into tiles
+	 */
+	InputStream takeBytes() {
+		if (bytes == null) {
+			return null;
+		}
+		InputStream b = new SequenceInputStream(Collections.enumeration(bytes));
+		bytes = null;
+		return b;
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		int n = 0;
+		if (closeQuote) {
+			cbuf[off + n++] = '"';
+			closeQuote = false;
+		}
+		while (n < len) {
+			if (pos == end && !fill()) {
+				break;
+			}
+			char c = buffer[pos++];
+			cbuf[off + n++] = c;
+			if (scan(c)) {
+				divert();
+				closeQuote = true;
+				break;
+			}
+		}
+		return (n == 0) ? -1 : n;
+	}
+
+	private boolean fill() throws IOException {
+		int read = in.read(buffer, 0, buffer.length);
+		if (read <= 0) {
+			return false;
+		}
+		pos = 0;
+		end = read;
+		return true;
+	}
+
+	/**
+	 * Follows the structure of the json one character at a time
+	 *
+	 * @return true if the character opens the data to divert
+	 */
+	private boolean scan(char c) {
+		if (inString) {
+			if (escaped) {
+				escaped = false;
+			}
+			else if (c == '\\') {
+				escaped = true;
+			}
+			else if (c == '"') {
+				inString = false;
+				if (depth == LAYER_DEPTH) {
+					String s = (text.length() <= TEXT_LIMIT) ? text.toString() : null;
+					if (valueOf == null) {
+						lastString = s;
+					}
+					else if (valueOf.equals("compression")) {
+						compression = s;
+					}
+				}
+				valueOf = null;
+			}
+			else if (depth == LAYER_DEPTH && text.length() <= TEXT_LIMIT) {
+				text.append(c);
+			}
+			return false;
+		}
+
+		switch (c) {
+		case '"':
+			inString = true;
+			text.setLength(0);
+			valueOf = (depth == LAYER_DEPTH && expectingValue) ? lastString : null;
+			expectingValue = false;
+			return watching && "data".equals(valueOf);
+		case ':':
+			expectingValue = depth == LAYER_DEPTH;
+			return false;
+		case '{':
+		case '[':
+			if (watching && depth == LAYER_DEPTH && expectingValue && "data".equals(lastString)) {
+				// the collision layer is a plain array, which the json reader streams fine
+				watching = false;
+			}
+			depth++;
+			if (depth == LAYER_DEPTH) {
+				compression = null;
+			}
+			expectingValue = false;
+			return false;
+		case '}':
+		case ']':
+			depth--;
+			expectingValue = false;
+			return false;
+		case ' ':
+		case '\t':
+		case '\r':
+		case '\n':
+			return false;
+		default:
+			expectingValue = false;
+			return false;
+		}
+	}
+
+	/**
+	 * Decodes the data string the reader is in, leaving it on the closing quote
+	 */
+	private void divert() throws IOException {
+		watching = false;
+		inString = false;
+		valueOf = null;
+
+		InputStream data = Base64.getMimeDecoder().wrap(new InputStream() {
+			@Override
+			public int read() throws IOException {
+				return nextDataChar();
+			}
+		});
+		try {
+			if (compression != null) {
+				tiles = JsonBricksManager.decode(data, compression);
+			}
+			else {
+				// compression may still follow, hold on to the bytes until it's known
+				bytes = new ArrayList<InputStream>();
+				for (byte[] chunk = new byte[CHUNK_BYTES];; chunk = new byte[CHUNK_BYTES]) {
+					int filled = 0;
+					for (int read; filled < chunk.length && (read = data.read(chunk, filled, chunk.length - filled)) != -1;) {
+						filled += read;
+					}
+					bytes.add(new ByteArrayInputStream(chunk, 0, filled));
+					if (filled < chunk.length) {
+						break;
+					}
+				}
+			}
+		}
+		finally {
+			// skip whatever the decoder left, such as a gzip trailer
+			while (nextDataChar() != -1);
+		}
+	}
+
+	/**
+	 * @return next character of the data string, or -1 once its closing quote is passed
+	 */
+	private int nextDataChar() throws IOException {
+		if (closeQuote) {
+			return -1;
+		}
+		int c = nextChar();
+		if (c == '"') {
+			closeQuote = true;
+			return -1;
+		}
+		if (c != '\\') {
+			return c;
+		}
+		c = nextChar();
+		switch (c) {
+		case 'u':
+			int code = 0;
+			for (int i = 0; i < 4; i++) {
+				code = (code << 4) | Character.digit(nextChar(), 16);
+			}
+			return code;
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 't':
+			return '\t';
+		case 'b':
+			return '\b';
+		case 'f':
+			return '\f';
+		default:
+			return c;
+		}
+	}
+
+	private int nextChar() throws IOException {
+		if (pos == end && !fill()) {
+			throw new JsonSyntaxException("Layer data ends before its closing quote");
+		}
+		return buffer[pos++];
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
@@ -0,0 +1,490 @@
+package revert.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import com.kgp.core.AssetsManager;
+import com.kgp.util.Vector2;
+
+/**
+ * Everything a level needs to be played, independent of the format it was
+ * made in, along with a compact binary form of it that loads without any
+ * parsing.
+ * <p/>
+ * Compiled level layout, all values little endian:
+ *
+ * <pre>
+ * int    magic ("RVLV")
+ * short  version, flags (has tile ids, has image strip, has spawn points)
+ * int    columns, rows, tile width, tile height
+ * int    strip length, followed by the strip line in UTF-8 (padded to 4 bytes)
+ * int    spawn point count, followed by that many float x, y pairs
+ * int    bytes per tile id (0, 1, 2 or 4)
+ * ...    padding to 8 bytes
+ * long[] collision mask, in {@link TileMask} row order
+ * long[] columns with a solid tile, a mask row for every 64 rows of the mask
+ *        holding every solid tile of those rows
+ * ...    tile ids in row order, padded to 4 bytes
+ * int    CRC32 of everything before it
+ * </pre>
+ *
+ * @author nhydock
+ */
+public class LevelData {
+
+	/**
+	 * Extension of compiled level files
+	 */
+	public static final String EXTENSION = ".lvl";
+
+	private static final int MAGIC = 0x564C5652;
+	private static final short VERSION = 2;
+
+	private static final short HAS_BRICKS = 1;
+	private static final short HAS_STRIP = 2;
+	private static final short HAS_SPAWNS = 4;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	// most of a level held at once while writing it
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	/**
+	 * Solid tiles of a level, handed over one row at a time as it's written
+	 */
+	public interface MaskRows {
+		/**
+		 * @param row - rows are asked for in order, from the top of the level
+		 * @param words - cleared row to fill, bit n of word w is set when
+		 *            column w*64+n is solid
+		 */
+		void fill(int row, long[] words);
+	}
+
+	public int cols;
+	public int rows;
+	/**
+	 * Size of a tile in pixels, 0 if it comes from the level's images
+	 */
+	public int tileWidth;
+	public int tileHeight;
+	/**
+	 * Image strip line the tile ids refer to, null if the level isn't drawn with tiles
+	 */
+	public String strip;
+	/**
+	 * null if the level doesn't define any
+	 */
+	public Vector2[] spawns;
+	public TileMask mask;
+	/**
+	 * Tile ids in [row][column] order, 0 for no tile, null if the level has none
+	 */
+	public int[][] bricks;
+	
+	// bytes per tile id in the compiled level, as read from its header
+	int idBytes;
+
+	public LevelData() {
+	}
+
+	/**
+	 * Captures the tiles of an already loaded level
+	 *
+	 * @param level
+	 */
+	public LevelData(BrickManager level) {
+		this.cols = level.numCols;
+		this.rows = level.numRows;
+		this.tileWidth = level.getBrickWidth();
+		this.tileHeight = level.getBrickHeight();
+		this.spawns = level.spawnPoints;
+		this.bricks = level.bricks;
+		this.mask = level.collisionMask;
+		if (this.mask == null) {
+			this.mask = new TileMask(cols, rows);
+			for (int row = 0; row < rows; row++) {
+				for (int col = 0; col < cols; col++) {
+					if (level.isSolid(col, row)) {
+						this.mask.set(col, row, true);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads a compiled level from the level folder.  The file is mapped
+	 * straight into memory when it lives on disk.
+	 *
+	 * @param name - path of the level within the resources, including its extension
+	 * @return the level, null if there is no compiled version of it
+	 * @throws IOException if the file is damaged or from another version
+	 */
+	public static LevelData load(String name) throws IOException {
+		URL url = AssetsManager.class.getClassLoader().getResource(name);
+		if (url == null) {
+			return null;
+		}
+		File file = find(url);
+		if (file != null) {
+			return map(file);
+		}
+
+		// packed in a jar, so it has to be copied out
+		InputStream in = url.openStream();
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			for (int n; (n = in.read(buffer)) != -1;) {
+				bytes.write(buffer, 0, n);
+			}
+			return read(ByteBuffer.wrap(bytes.toByteArray()), name);
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Finds a compiled level in the level folder on disk, for opening it
+	 * without reading it all, such as with {@link PagedBrickManager}
+	 *
+	 * @param name - path of the level within the resources, including its extension
+	 * @return the level's file, null if there is no compiled version of it or
+	 *         it's packed in a jar
+	 * @throws IOException
+	 */
+	public static File find(String name) throws IOException {
+		URL url = AssetsManager.class.getClassLoader().getResource(name);
+		return (url != null) ? find(url) : null;
+	}
+
+	private static File find(URL url) throws IOException {
+		if (!url.getProtocol().equals("file")) {
+			return null;
+		}
+		try {
+			return new File(url.toURI());
+		}
+		catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Maps a compiled level file into memory and reads it
+	 *
+	 * @param file
+	 * @return the level
+	 * @throws IOException if the file is damaged or from another version
+	 */
+	public static LevelData map(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.getName());
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads a compiled level
+	 *
+	 * @param buffer - the whole compiled level
+	 * @param name - name to report errors with
+	 * @return the level
+	 * @throws IOException if the data is damaged or from another version
+	 */
+	public static LevelData read(ByteBuffer buffer, String name) throws IOException {
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		int length = buffer.remaining();
+		if (length < 8 || buffer.getInt(0) != MAGIC) {
+			throw new IOException(name + " is not a compiled level");
+		}
+		if (buffer.getShort(4) != VERSION) {
+			throw new IOException(name + " is version " + buffer.getShort(4) + ", expected " + VERSION);
+		}
+
+		if ((int) checksum(buffer, length - 4) != buffer.getInt(length - 4)) {
+			throw new IOException(name + " is damaged, checksum does not match");
+		}
+
+		LevelData data = readHeader(buffer, name);
+
+		data.mask = new TileMask(data.cols, data.rows);
+		data.mask.read(buffer);
+		// the solid columns are only there for paging
+		buffer.position(buffer.position() + (int) bandBytes(data.cols, data.rows));
+
+		if (data.idBytes > 0) {
+			data.bricks = new int[data.rows][data.cols];
+			for (int[] row : data.bricks) {
+				for (int col = 0; col < row.length; col++) {
+					if (data.idBytes == 1) {
+						row[col] = buffer.get() & 0xFF;
+					}
+					else if (data.idBytes == 2) {
+						row[col] = buffer.getShort() & 0xFFFF;
+					}
+					else {
+						row[col] = buffer.getInt();
+					}
+				}
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Reads everything of a compiled level that comes before its tiles,
+	 * without checking the level against its checksum
+	 *
+	 * @param buffer - the compiled level, read from the start
+	 * @param name - name to report errors with
+	 * @return the level without its mask or tile ids, the buffer is left at
+	 * the start of the mask, which is laid out like a {@link TileMask}
+	 * @throws IOException if the data is not a compiled level of this version
+	 */
+	static LevelData readHeader(ByteBuffer buffer, String name) throws IOException {
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.limit() < 8 || buffer.getInt(0) != MAGIC) {
+			throw new IOException(name + " is not a compiled level");
+		}
+		if (buffer.getShort(4) != VERSION) {
+			throw new IOException(name + " is version " + buffer.getShort(4) + ", expected " + VERSION);
+		}
+
+		LevelData data = new LevelData();
+		try {
+			buffer.position(6);
+			short flags = buffer.getShort();
+			data.cols = buffer.getInt();
+			data.rows = buffer.getInt();
+			data.tileWidth = buffer.getInt();
+			data.tileHeight = buffer.getInt();
+
+			int stripLength = buffer.getInt();
+			if ((flags & HAS_STRIP) != 0) {
+				byte[] strip = new byte[stripLength];
+				buffer.get(strip);
+				data.strip = new String(strip, UTF8);
+			}
+			else {
+				buffer.position(buffer.position() + stripLength);
+			}
+			align(buffer, 4);
+
+			int spawns = buffer.getInt();
+			if ((flags & HAS_SPAWNS) != 0) {
+				data.spawns = new Vector2[spawns];
+				for (int i = 0; i < spawns; i++) {
+					data.spawns[i] = new Vector2(buffer.getFloat(), buffer.getFloat());
+				}
+			}
+
+			int idBytes = buffer.getInt();
+			data.idBytes = ((flags & HAS_BRICKS) != 0) ? idBytes : 0;
+			align(buffer, 8);
+		}
+		catch (BufferUnderflowException e) {
+			throw new IOException(name + " is truncated");
+		}
+		catch (IllegalArgumentException e) {
+			// skipping past the end of it
+			throw new IOException(name + " is truncated");
+		}
+		return data;
+	}
+
+	/**
+	 * @return size of the solid columns that follow the mask of a compiled level
+	 */
+	static long bandBytes(int cols, int rows) {
+		return (long) ((cols + 63) >> 6) * ((rows + 63) >> 6) * 8;
+	}
+
+	/**
+	 * @param buffer - compiled level
+	 * @param end - number of bytes from the start of the buffer to check
+	 * @return CRC32 of the start of the buffer
+	 */
+	static long checksum(ByteBuffer buffer, int end) {
+		CRC32 crc = new CRC32();
+		ByteBuffer body = buffer.duplicate();
+		body.position(0).limit(end);
+		crc.update(body);
+		return crc.getValue();
+	}
+
+	/**
+	 * Compiles this level into a file
+	 *
+	 * @param file - file to write to, replaced if it exists
+	 * @throws IOException
+	 */
+	public void write(File file) throws IOException {
+		final TileMask mask = this.mask;
+		write(file, new MaskRows() {
+			@Override
+			public void fill(int row, long[] words) {
+				mask.getRow(row, words);
+			}
+		});
+	}
+
+	/**
+	 * Compiles this level into a file, taking its collision mask a row at a
+	 * time from a source instead of from {@link #mask}.  Only a row of the
+	 * level and a sixty-fourth of its mask are held at once, so levels far
+	 * bigger than memory can be written.
+	 *
+	 * @param file - file to write to, replaced if it exists
+	 * @param source - solid tiles of the level
+	 * @throws IOException
+	 */
+	public void write(File file, MaskRows source) throws IOException {
+		byte[] strip = (this.strip != null) ? this.strip.getBytes(UTF8) : new byte[0];
+		int spawnCount = (spawns != null) ? spawns.length : 0;
+
+		int idBytes = 0;
+		if (bricks != null) {
+			int max = 0;
+			for (int[] row : bricks) {
+				for (int id : row) {
+					max = Math.max(max, id);
+				}
+			}
+			idBytes = (max <= 0xFF) ? 1 : (max <= 0xFFFF) ? 2 : 4;
+		}
+
+		int header = (int) pad(28 + pad(strip.length, 4) + 4 + spawnCount * 8L + 4, 8);
+		ByteBuffer out = ByteBuffer.allocate(Math.max(header, BUFFER_BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+		short flags = 0;
+		if (bricks != null) {
+			flags |= HAS_BRICKS;
+		}
+		if (this.strip != null) {
+			flags |= HAS_STRIP;
+		}
+		if (spawns != null) {
+			flags |= HAS_SPAWNS;
+		}
+		out.putInt(MAGIC).putShort(VERSION).putShort(flags);
+		out.putInt(cols).putInt(rows).putInt(tileWidth).putInt(tileHeight);
+		out.putInt(strip.length).put(strip);
+		align(out, 4);
+		out.putInt(spawnCount);
+		for (int i = 0; i < spawnCount; i++) {
+			out.putFloat(spawns[i].x).putFloat(spawns[i].y);
+		}
+		out.putInt(idBytes);
+		align(out, 8);
+
+		FileOutputStream stream = new FileOutputStream(file);
+		try {
+			FileChannel channel = stream.getChannel();
+			CRC32 crc = new CRC32();
+
+			int stride = (cols + 63) >> 6;
+			long[] words = new long[stride];
+			// every 64 rows folded into one, written after the mask
+			long[] bands = new long[(int) (bandBytes(cols, rows) / 8)];
+			// padding past the last column stays clear
+			long last = ((cols & 63) == 0) ? -1L : (1L << cols) - 1;
+			for (int row = 0; row < rows; row++) {
+				Arrays.fill(words, 0);
+				source.fill(row, words);
+				if (stride > 0) {
+					words[stride - 1] &= last;
+				}
+				int band = (row >> 6) * stride;
+				for (int w = 0; w < stride; w++) {
+					if (out.remaining() < 8) {
+						flush(channel, out, crc);
+					}
+					out.putLong(words[w]);
+					bands[band + w] |= words[w];
+				}
+			}
+			for (long w : bands) {
+				if (out.remaining() < 8) {
+					flush(channel, out, crc);
+				}
+				out.putLong(w);
+			}
+
+			long ids = 0;
+			if (bricks != null) {
+				for (int[] row : bricks) {
+					for (int id : row) {
+						if (out.remaining() < 4) {
+							flush(channel, out, crc);
+						}
+						if (idBytes == 1) {
+							out.put((byte) id);
+						}
+						else if (idBytes == 2) {
+							out.putShort((short) id);
+						}
+						else {
+							out.putInt(id);
+						}
+					}
+				}
+				ids = (long) idBytes * cols * rows;
+			}
+			if (out.remaining() < 8) {
+				flush(channel, out, crc);
+			}
+			// the header and mask are whole longs, so only the ids need padding
+			for (long n = ids; n % 4 != 0; n++) {
+				out.put((byte) 0);
+			}
+			flush(channel, out, crc);
+
+			out.putInt((int) crc.getValue());
+			out.flip();
+			while (out.hasRemaining()) {
+				channel.write(out);
+			}
+		}
+		finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Writes out what's in the buffer, adding it to the checksum, and empties it
+	 */
+	private static void flush(FileChannel channel, ByteBuffer out, CRC32 crc) throws IOException {
+		out.flip();
+		crc.update(out.array(), 0, out.limit());
+		while (out.hasRemaining()) {
+			channel.write(out);
+		}
+		out.clear();
+	}
+
+	private static long pad(long n, int to) {
+		return (n + to - 1) / to * to;
+	}
+
+	private static void align(ByteBuffer buffer, int to) {
+		buffer.position((int) pad(buffer.position(), to));
+	}
+}
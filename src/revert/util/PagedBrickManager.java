@@ -0,0 +1,516 @@
+package revert.util;
+
+import java.awt.Graphics2D;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import com.kgp.util.Vector2;
+
+/**
+ * Level whose tiles are kept in a compiled level file on disk and paged into
+ * memory as they're needed, for levels too big to keep loaded all at once.
+ * <p/>
+ * The map is cut into {@value #CHUNK_SIZE}x{@value #CHUNK_SIZE} tile chunks.
+ * Only a fixed number of them are held in memory, the least recently used one
+ * is dropped when another has to be loaded.  Chunks around the level's current
+ * position are loaded ahead of time whenever the level is updated.
+ * <p/>
+ * Chunks are read straight out of the collision mask of a file written by
+ * {@link LevelData#write(File)}, a chunk being as wide as one word of a mask
+ * row.  Finding the floor or ceiling of a tile only loads the chunks the
+ * file says have a solid tile in its column, so it loads two at most.  The
+ * file's checksum is not checked when it's opened, since that would
+ * read the whole level, and is brought up to date when a writable level is
+ * closed.  Tile ids are never read.
+ * <p/>
+ * While tiles are read from several threads at once, between
+ * {@link #beginSharedRead()} and {@link #endSharedRead()}, chunks are neither
+ * loaded nor reordered.  Tiles of chunks that aren't in memory are then read
+ * straight from the mapped file, so a shared read costs more the fewer of
+ * the chunks it needs were {@link #preload(float, float, float, float) preloaded}.
+ * <p/>
+ * Paged levels are for playing headless, see HeadlessRunner.  They can't be
+ * drawn, drawing would have the render thread loading chunks while the
+ * update thread reads them, so the windowed game only plays levels that are
+ * fully loaded.
+ *
+ * @author nhydock
+ */
+public class PagedBrickManager extends BrickManager implements Closeable {
+
+	/**
+	 * Tiles along each side of a chunk
+	 */
+	public static final int CHUNK_SIZE = 64;
+	private static final int CHUNK_SHIFT = 6;
+
+	// bytes held by each mapping, mask words never straddle two of them
+	private static final int SEGMENT_SHIFT = 30;
+
+	// marks a chunk column with no solid tile above or below a row
+	private static final byte NONE = -1;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+	private final long size;
+	private final boolean writable;
+	private boolean dirty;
+
+	private final int brickWidth;
+	private final int brickHeight;
+	private final int chunksX;
+	private final int chunksY;
+	// where the collision mask starts in the file, and longs per mask row
+	private final long maskStart;
+	private final int stride;
+	// where the columns of each chunk with a solid tile are kept in the file
+	private final long bandStart;
+
+	private final Chunk[] resident;
+	// most and least recently used chunks
+	private Chunk head;
+	private Chunk tail;
+	private int count;
+	private final int capacity;
+	private int prefetch = 1;
+
+	private long loads;
+	private long evictions;
+
+	// set while tiles are read from several threads, handed over to them by
+	// whatever starts the threads
+	private boolean shared;
+	// chunks preloaded for the next shared read, and the read they're for
+	private int preloaded;
+	private int read = 1;
+
+	/**
+	 * Opens a compiled level as a paged level
+	 *
+	 * @param file - level written by {@link LevelData#write(File)}
+	 * @param capacity - most chunks to keep in memory at once
+	 * @param writable - allow tile edits, which are written back to the file
+	 * @throws IOException if the file can't be read or isn't a compiled level
+	 */
+	public PagedBrickManager(File file, int capacity, boolean writable) throws IOException {
+		if (capacity < 9) {
+			throw new IllegalArgumentException("At least 9 chunks must fit in memory");
+		}
+		this.capacity = capacity;
+		this.writable = writable;
+
+		RandomAccessFile raf = new RandomAccessFile(file, writable ? "rw" : "r");
+		this.channel = raf.getChannel();
+		try {
+			size = channel.size();
+			FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+			segments = new MappedByteBuffer[(int) (Math.max(size - 1, 0) >> SEGMENT_SHIFT) + 1];
+			for (int i = 0; i < segments.length; i++) {
+				long first = (long) i << SEGMENT_SHIFT;
+				segments[i] = channel.map(mode, first, Math.min(size - first, 1L << SEGMENT_SHIFT));
+				segments[i].order(ByteOrder.LITTLE_ENDIAN);
+			}
+
+			ByteBuffer header = segments[0].duplicate();
+			LevelData data = LevelData.readHeader(header, file.getName());
+			if (data.tileWidth <= 0 || data.tileHeight <= 0) {
+				throw new IOException(file + " takes its tile size from images");
+			}
+			numCols = data.cols;
+			numRows = data.rows;
+			brickWidth = data.tileWidth;
+			brickHeight = data.tileHeight;
+			spawnPoints = (data.spawns != null) ? data.spawns : new Vector2[0];
+
+			maskStart = header.position();
+			stride = (numCols + 63) >> 6;
+			bandStart = maskStart + (long) stride * numRows * 8;
+			// the checksum isn't checked, but the file has to be as long as its header says
+			long ids = ((long) data.idBytes * numCols * numRows + 3) & ~3L;
+			if (size != bandStart + LevelData.bandBytes(numCols, numRows) + ids + 4) {
+				throw new IOException(file + " is damaged, its size does not match its header");
+			}
+
+			chunksX = (numCols + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+			chunksY = (numRows + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+			resident = new Chunk[chunksX * chunksY];
+		}
+		catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return where in the file the mask word of a row covering a chunk column is
+	 */
+	private long word(int cx, int row) {
+		return maskStart + ((long) row * stride + cx) * 8;
+	}
+
+	/**
+	 * @return columns of a chunk that have a solid tile, bit n for column n
+	 */
+	private long solidColumns(int cx, int cy) {
+		return getWord(bandStart + ((long) cy * stride + cx) * 8);
+	}
+
+	private long getWord(long position) {
+		return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & ((1 << SEGMENT_SHIFT) - 1)));
+	}
+
+	private void putWord(long position, long bits) {
+		segments[(int) (position >>> SEGMENT_SHIFT)].putLong((int) (position & ((1 << SEGMENT_SHIFT) - 1)), bits);
+	}
+
+	/**
+	 * Gets a chunk, loading it from the file if it isn't in memory
+	 */
+	private Chunk chunk(int cx, int cy) {
+		int index = cy * chunksX + cx;
+		Chunk c = resident[index];
+		if (c == null) {
+			c = load(index);
+		}
+		else if (c != head) {
+			unlink(c);
+			push(c);
+		}
+		return c;
+	}
+
+	private Chunk load(int index) {
+		Chunk c;
+		if (count < capacity) {
+			c = new Chunk();
+			count++;
+		}
+		else {
+			c = tail;
+			unlink(c);
+			resident[c.index] = null;
+			evictions++;
+		}
+
+		int cx = index % chunksX;
+		for (int r = 0, row = (index / chunksX) << CHUNK_SHIFT; r < CHUNK_SIZE; r++, row++) {
+			c.rows[r] = (row < numRows) ? getWord(word(cx, row)) : 0;
+		}
+		for (int col = 0; col < CHUNK_SIZE; col++) {
+			c.updateColumn(col);
+		}
+		c.index = index;
+		resident[index] = c;
+		push(c);
+		loads++;
+		return c;
+	}
+
+	private void unlink(Chunk c) {
+		if (c.prev != null) {
+			c.prev.next = c.next;
+		}
+		else {
+			head = c.next;
+		}
+		if (c.next != null) {
+			c.next.prev = c.prev;
+		}
+		else {
+			tail = c.prev;
+		}
+		c.prev = null;
+		c.next = null;
+	}
+
+	private void push(Chunk c) {
+		c.next = head;
+		if (head != null) {
+			head.prev = c;
+		}
+		head = c;
+		if (tail == null) {
+			tail = c;
+		}
+	}
+
+	/**
+	 * Gets a chunk for reading a tile, during a shared read only if it's
+	 * already in memory
+	 *
+	 * @return the chunk, null if the tile has to be read from the file
+	 */
+	private Chunk reading(int cx, int cy) {
+		return shared ? resident[cy * chunksX + cx] : chunk(cx, cy);
+	}
+
+	@Override
+	protected boolean isSolid(int col, int row) {
+		int cx = col >> CHUNK_SHIFT;
+		Chunk c = reading(cx, row >> CHUNK_SHIFT);
+		long bits = (c != null) ? c.rows[row & (CHUNK_SIZE - 1)] : getWord(word(cx, row));
+		return (bits & (1L << col)) != 0;
+	}
+
+	@Override
+	public int floorRow(int col, int row) {
+		int cx = col >> CHUNK_SHIFT;
+		int c = col & (CHUNK_SIZE - 1);
+		for (int cy = row >> CHUNK_SHIFT, r = row & (CHUNK_SIZE - 1); cy < chunksY; cy++, r = 0) {
+			if ((solidColumns(cx, cy) & (1L << c)) == 0) {
+				continue;
+			}
+			Chunk chunk = reading(cx, cy);
+			int floor = NONE;
+			if (chunk != null) {
+				long below = chunk.columns[c] & (-1L << r);
+				if (below != 0) {
+					floor = Long.numberOfTrailingZeros(below);
+				}
+			}
+			else {
+				int base = cy << CHUNK_SHIFT;
+				for (int last = Math.min(CHUNK_SIZE, numRows - base); r < last && floor == NONE; r++) {
+					if ((getWord(word(cx, base + r)) & (1L << c)) != 0) {
+						floor = r;
+					}
+				}
+			}
+			if (floor != NONE) {
+				return (cy << CHUNK_SHIFT) + floor;
+			}
+		}
+		return numRows;
+	}
+
+	@Override
+	public int ceilingRow(int col, int row) {
+		int cx = col >> CHUNK_SHIFT;
+		int c = col & (CHUNK_SIZE - 1);
+		for (int cy = row >> CHUNK_SHIFT, r = row & (CHUNK_SIZE - 1); cy >= 0; cy--, r = CHUNK_SIZE - 1) {
+			if ((solidColumns(cx, cy) & (1L << c)) == 0) {
+				continue;
+			}
+			Chunk chunk = reading(cx, cy);
+			int ceiling = NONE;
+			if (chunk != null) {
+				long above = chunk.columns[c] & (-1L >>> (CHUNK_SIZE - 1 - r));
+				if (above != 0) {
+					ceiling = CHUNK_SIZE - 1 - Long.numberOfLeadingZeros(above);
+				}
+			}
+			else {
+				int base = cy << CHUNK_SHIFT;
+				for (; r >= 0 && ceiling == NONE; r--) {
+					if ((getWord(word(cx, base + r)) & (1L << c)) != 0) {
+						ceiling = r;
+					}
+				}
+			}
+			if (ceiling != NONE) {
+				return (cy << CHUNK_SHIFT) + ceiling;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Loads the chunks an area covers, as long as they fit in memory along
+	 * with the others preloaded for the same read
+	 */
+	@Override
+	public void preload(float left, float top, float right, float bottom) {
+		int col = (int) Math.floor(left / brickWidth);
+		int span = Math.min((int) Math.floor(right / brickWidth) - col, numCols - 1);
+		col %= numCols;
+		if (col < 0) {
+			col += numCols;
+		}
+		int first = col >> CHUNK_SHIFT;
+		int across = Math.min(((col + span) >> CHUNK_SHIFT) - first + 1, chunksX);
+		int firstY = worldToChunkY(top);
+		int lastY = worldToChunkY(bottom);
+
+		for (int x = 0, cx = first; x < across; x++, cx = (cx + 1 == chunksX) ? 0 : cx + 1) {
+			for (int cy = firstY; cy <= lastY; cy++) {
+				Chunk c = resident[cy * chunksX + cx];
+				if (c != null && c.read == read) {
+					continue;
+				}
+				// the least recently used chunks are dropped first, so as long
+				// as no more are touched than fit none of them are dropped
+				if (preloaded == capacity) {
+					return;
+				}
+				chunk(cx, cy).read = read;
+				preloaded++;
+			}
+		}
+	}
+
+	private int worldToChunkY(float y) {
+		int row = (int) Math.floor((y - yOffset) / brickHeight);
+		return Math.min(Math.max(row, 0), numRows - 1) >> CHUNK_SHIFT;
+	}
+
+	@Override
+	public void beginSharedRead() {
+		shared = true;
+	}
+
+	@Override
+	public void endSharedRead() {
+		shared = false;
+		preloaded = 0;
+		read++;
+	}
+
+	/**
+	 * Changes if a tile is solid, writing it through to the level file
+	 *
+	 * @throws UnsupportedOperationException if the level was opened read only
+	 */
+	@Override
+	public void setSolid(int col, int row, boolean solid) {
+		if (!writable) {
+			throw new UnsupportedOperationException("Level was opened read only");
+		}
+		col = clampToMap(col);
+		int cx = col >> CHUNK_SHIFT;
+		int cy = row >> CHUNK_SHIFT;
+		Chunk c = chunk(cx, cy);
+		int r = row & (CHUNK_SIZE - 1);
+		if (solid) {
+			c.rows[r] |= 1L << col;
+		}
+		else {
+			c.rows[r] &= ~(1L << col);
+		}
+		c.updateColumn(col & (CHUNK_SIZE - 1));
+
+		putWord(word(cx, row), c.rows[r]);
+		long columns = 0;
+		for (long bits : c.rows) {
+			columns |= bits;
+		}
+		putWord(bandStart + ((long) cy * stride + cx) * 8, columns);
+		dirty = true;
+	}
+
+	/**
+	 * Loads the chunks around the current position
+	 */
+	@Override
+	protected void update() {
+		int cx = worldToMapX(currentPos.x) >> CHUNK_SHIFT;
+		int row = Math.min(Math.max(worldToMapY(currentPos.y), 0), numRows - 1);
+		int cy = row >> CHUNK_SHIFT;
+		for (int y = Math.max(cy - 1, 0); y <= Math.min(cy + 1, chunksY - 1); y++) {
+			for (int x = cx - prefetch; x <= cx + prefetch; x++) {
+				chunk((x + chunksX) % chunksX, y);
+			}
+		}
+	}
+
+	/**
+	 * @param chunks - number of chunks to either side of the current position
+	 *            to keep loaded
+	 */
+	public void setPrefetch(int chunks) {
+		if ((chunks * 2 + 1) * 3 > capacity) {
+			throw new IllegalArgumentException("Prefetching " + chunks + " chunks would not fit in memory");
+		}
+		this.prefetch = chunks;
+	}
+
+	/**
+	 * @return number of chunks read from the file
+	 */
+	public long getLoads() {
+		return loads;
+	}
+
+	/**
+	 * @return number of chunks dropped from memory to make room for others
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return number of chunks currently in memory
+	 */
+	public int getResidentChunks() {
+		return count;
+	}
+
+	@Override
+	public int getBrickWidth() {
+		return brickWidth;
+	}
+
+	@Override
+	public int getBrickHeight() {
+		return brickHeight;
+	}
+
+	/**
+	 * @throws UnsupportedOperationException always, rather than showing an
+	 *             empty world, see class notes
+	 */
+	@Override
+	public void display(Graphics2D g) {
+		throw new UnsupportedOperationException("Paged levels can only be played headless");
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (dirty) {
+			// edits have left the checksum behind
+			CRC32 crc = new CRC32();
+			for (int i = 0; i < segments.length; i++) {
+				ByteBuffer body = segments[i].duplicate();
+				body.limit((int) Math.min(body.limit(), size - 4 - ((long) i << SEGMENT_SHIFT)));
+				crc.update(body);
+			}
+			long end = size - 4;
+			segments[(int) (end >>> SEGMENT_SHIFT)].putInt((int) (end & ((1 << SEGMENT_SHIFT) - 1)), (int) crc.getValue());
+		}
+		if (writable) {
+			for (MappedByteBuffer segment : segments) {
+				segment.force();
+			}
+		}
+		channel.close();
+	}
+
+	/**
+	 * Tiles of one chunk, kept both a row and a column to a word so floors
+	 * and ceilings are found within it a word at a time
+	 */
+	private static final class Chunk {
+		int index = -1;
+		// shared read the chunk was last preloaded for
+		int read;
+		final long[] rows = new long[CHUNK_SIZE];
+		// bit n of column c is row n
+		final long[] columns = new long[CHUNK_SIZE];
+		Chunk prev;
+		Chunk next;
+
+		void updateColumn(int col) {
+			long column = 0;
+			for (int r = 0; r < CHUNK_SIZE; r++) {
+				column |= ((rows[r] >>> col) & 1L) << r;
+			}
+			columns[col] = column;
+		}
+	}
+}
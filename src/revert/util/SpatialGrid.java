@@ -0,0 +1,278 @@
+package revert.util;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.List;
+
+import com.kgp.imaging.Sprite;
+
+/**
+ * Broad-phase index that buckets sprites by cells laid over a level.
+ * <p/>
+ * Sprites are inserted into every cell their bounding box overlaps, or just
+ * the cell of their position, so a test along a line or around a point only
+ * needs to look at the sprites sharing its cells instead of every sprite in
+ * the world.  Only cells with something in them take up room,
+ * they are kept in a hash table keyed by cell, so the grid's memory follows the
+ * number of sprites and not the size of the level.  Buckets are intrusive
+ * linked lists in flat arrays, so clearing and refilling the grid every tick
+ * creates no garbage once it has grown to fit the world.
+ *
+ * @author nhydock
+ */
+public class SpatialGrid<T extends Sprite> {
+
+	private final float cellWidth;
+	private final float cellHeight;
+	private final float top;
+
+	private final int cols;
+	private final int rows;
+
+	// open addressed table of the cells in use, each slot tagged with the
+	// stamp it was filled under above its cell, so it's only taken while the
+	// stamp is current
+	private long[] tags;
+	private int[] heads;
+	private int cells;
+	private int stamp = 1;
+
+	// entry storage
+	private int[] next;
+	private Object[] items;
+	private int size;
+
+	/**
+	 * Creates a grid over a level with cells of about the given size.  The
+	 * cells are narrowed so a whole number of them spans the level, letting
+	 * the columns wrap around the world with it.
+	 * @param level
+	 * @param cellWidth - widest a cell may be, in pixels
+	 * @param cellHeight - height of a cell in pixels
+	 */
+	public SpatialGrid(BrickManager level, float cellWidth, float cellHeight) {
+		int width = Math.max(1, level.getMapWidth());
+		this.cols = Math.max(1, (int) Math.ceil(width / cellWidth));
+		this.rows = Math.max(1, (int) Math.ceil(level.getMapHeight() / cellHeight));
+		this.cellWidth = width / (float) cols;
+		this.cellHeight = cellHeight;
+		this.top = level.mapToWorldY(0);
+
+		this.tags = new long[64];
+		this.heads = new int[64];
+		this.next = new int[64];
+		this.items = new Object[64];
+	}
+
+	/**
+	 * Empties all buckets of the grid
+	 */
+	public void clear() {
+		// invalidate every bucket at once instead of emptying the table
+		stamp++;
+		if (stamp == 0) {
+			Arrays.fill(tags, 0);
+			stamp = 1;
+		}
+		cells = 0;
+		Arrays.fill(items, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Adds a sprite to all buckets that its bounding box overlaps
+	 * @param s
+	 */
+	public void insert(T s) {
+		Rectangle r = s.getMyRectangle();
+
+		int left = col(r.x);
+		int right = col(r.x + r.width);
+		// sprites reaching off the map are kept in its edge rows
+		int top = clampRow(row(r.y));
+		int bottom = clampRow(row(r.y + r.height));
+
+		// columns wrap around the world
+		int span = Math.min(right - left, cols - 1);
+		for (int c = 0, col = wrap(left); c <= span; c++, col = nextCol(col)) {
+			for (int row = top; row <= bottom; row++) {
+				push(tag(col, row), s);
+			}
+		}
+	}
+
+	/**
+	 * Adds a sprite to the bucket of its position alone, so looking around a
+	 * point finds it at most once
+	 * @param s
+	 */
+	public void insertPosition(T s) {
+		push(tag(wrap(col(s.getXPosn())), clampRow(row(s.getYPosn()))), s);
+	}
+
+	private void push(long tag, T s) {
+		int slot = slot(tag);
+		if (tags[slot] != tag) {
+			// keep the table at most half full so probes stay short
+			if ((cells + 1) * 2 > tags.length) {
+				rehash(tags.length * 2);
+				slot = slot(tag);
+			}
+			tags[slot] = tag;
+			heads[slot] = -1;
+			cells++;
+		}
+
+		if (size == items.length) {
+			items = Arrays.copyOf(items, size * 2);
+			next = Arrays.copyOf(next, size * 2);
+		}
+
+		items[size] = s;
+		next[size] = heads[slot];
+		heads[slot] = size;
+		size++;
+	}
+
+	/**
+	 * @return index of the first entry in a cell's bucket, or -1 if it is empty
+	 */
+	private int head(int col, int row) {
+		long tag = tag(col, row);
+		int slot = slot(tag);
+		return (tags[slot] == tag) ? heads[slot] : -1;
+	}
+
+	/**
+	 * @return the slot of the table holding a cell, or the free slot it would go in
+	 */
+	private int slot(long tag) {
+		int mask = tags.length - 1;
+		int slot = (int) ((tag * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		for (long t = tags[slot]; t != tag && (int) (t >>> 32) == stamp; t = tags[slot]) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldTags = tags;
+		int[] oldHeads = heads;
+		tags = new long[capacity];
+		heads = new int[capacity];
+		for (int i = 0; i < oldTags.length; i++) {
+			if ((int) (oldTags[i] >>> 32) == stamp) {
+				int slot = slot(oldTags[i]);
+				tags[slot] = oldTags[i];
+				heads[slot] = oldHeads[i];
+			}
+		}
+	}
+
+	/**
+	 * @return a cell's key in the table under the current stamp
+	 */
+	private long tag(int col, int row) {
+		return ((long) stamp << 32) | (((long) row * cols + col) & 0xFFFFFFFFL);
+	}
+
+	private int col(float x) {
+		return (int) Math.floor(x / cellWidth);
+	}
+
+	private int row(float y) {
+		return (int) Math.floor((y - top) / cellHeight);
+	}
+
+	private int clampRow(int row) {
+		return Math.max(0, Math.min(rows - 1, row));
+	}
+
+	private int wrap(int col) {
+		col %= cols;
+		return (col < 0) ? col + cols : col;
+	}
+
+	private int nextCol(int col) {
+		return (col + 1 == cols) ? 0 : col + 1;
+	}
+
+	/**
+	 * Collects the sprites that may be within a distance of a point.  Every
+	 * sprite within the distance is found, along with some that are farther
+	 * away but share a cell with them.  A sprite inserted into more than one
+	 * of those cells is added once for each of them.
+	 * @param x - world x coordinate
+	 * @param y - world y coordinate
+	 * @param radius - distance to look around the point
+	 * @param out - list the sprites are added to
+	 */
+	@SuppressWarnings("unchecked")
+	public void near(float x, float y, float radius, List<? super T> out) {
+		int left = col(x - radius);
+		int span = Math.min(col(x + radius) - left, cols - 1);
+		int top = clampRow(row(y - radius));
+		int bottom = clampRow(row(y + radius));
+
+		for (int c = 0, col = wrap(left); c <= span; c++, col = nextCol(col)) {
+			for (int row = top; row <= bottom; row++) {
+				for (int i = head(col, row); i != -1; i = next[i]) {
+					out.add((T) items[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collects the sprites in every bucket a line passes through, which takes
+	 * in every sprite whose bounding box the line crosses.  A sprite covering
+	 * more than one of those cells is added once for each of them.
+	 *
+	 * @param x0 - world coordinates of the start of the line
+	 * @param y0
+	 * @param x1 - world coordinates of the end of the line
+	 * @param y1
+	 * @param out - list the sprites are added to
+	 */
+	@SuppressWarnings("unchecked")
+	public void along(float x0, float y0, float x1, float y1, List<? super T> out) {
+		x0 /= cellWidth;
+		x1 /= cellWidth;
+		y0 = (y0 - top) / cellHeight;
+		y1 = (y1 - top) / cellHeight;
+
+		int col = (int) Math.floor(x0);
+		int row = (int) Math.floor(y0);
+		int endCol = (int) Math.floor(x1);
+		int endRow = (int) Math.floor(y1);
+		float dx = x1 - x0;
+		float dy = y1 - y0;
+		int stepCol = (dx > 0) ? 1 : -1;
+		int stepRow = (dy > 0) ? 1 : -1;
+		float deltaX = (dx == 0) ? Float.POSITIVE_INFINITY : Math.abs(1f / dx);
+		float deltaY = (dy == 0) ? Float.POSITIVE_INFINITY : Math.abs(1f / dy);
+		float nextX = (dx == 0) ? Float.POSITIVE_INFINITY : ((dx > 0) ? col + 1 - x0 : x0 - col) * deltaX;
+		float nextY = (dy == 0) ? Float.POSITIVE_INFINITY : ((dy > 0) ? row + 1 - y0 : y0 - row) * deltaY;
+
+		// same walk as the level's line of sight, but through a corner both
+		// cells beside it are taken, there's no harm in looking at too many
+		int n = Math.abs(endCol - col) + Math.abs(endRow - row);
+		for (;;) {
+			// sprites reaching off the map are kept in its edge rows
+			for (int i = head(wrap(col), clampRow(row)); i != -1; i = next[i]) {
+				out.add((T) items[i]);
+			}
+			if (n-- == 0) {
+				break;
+			}
+			if (row == endRow || (col != endCol && nextX < nextY)) {
+				col += stepCol;
+				nextX += deltaX;
+			}
+			else {
+				row += stepRow;
+				nextY += deltaY;
+			}
+		}
+	}
+}
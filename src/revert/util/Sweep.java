@@ -0,0 +1,75 @@
+package revert.util;
+
+/**
+ * Collision tests for things moving in a straight line over an update, so
+ * nothing is missed no matter how far they move in a single step.
+ * <p/>
+ * Results are given as how far along the movement the contact happens, from
+ * 0 at the start to 1 at the end, or {@link #MISS} if there is none.
+ *
+ * @author nhydock
+ */
+public final class Sweep {
+
+	/**
+	 * Returned when the movement never makes contact
+	 */
+	public static final float MISS = Float.POSITIVE_INFINITY;
+
+	private Sweep() {
+	}
+
+	/**
+	 * Finds where a point moving along a line first touches a box
+	 *
+	 * @param x0 - start of the movement
+	 * @param y0
+	 * @param x1 - end of the movement
+	 * @param y1
+	 * @param left - edges of the box
+	 * @param top
+	 * @param right
+	 * @param bottom
+	 * @return how far along the movement the point enters the box, 0 if it
+	 *         starts inside, or {@link #MISS}
+	 */
+	public static float segmentBox(float x0, float y0, float x1, float y1,
+								   float left, float top, float right, float bottom) {
+		float enter = 0f;
+		float exit = 1f;
+
+		// narrow down when the point is between each pair of edges (slabs)
+		float dx = x1 - x0;
+		if (dx == 0) {
+			if (x0 < left || x0 > right) {
+				return MISS;
+			}
+		}
+		else {
+			float near = ((dx > 0 ? left : right) - x0) / dx;
+			float far = ((dx > 0 ? right : left) - x0) / dx;
+			enter = Math.max(enter, near);
+			exit = Math.min(exit, far);
+			if (enter > exit) {
+				return MISS;
+			}
+		}
+
+		float dy = y1 - y0;
+		if (dy == 0) {
+			if (y0 < top || y0 > bottom) {
+				return MISS;
+			}
+		}
+		else {
+			float near = ((dy > 0 ? top : bottom) - y0) / dy;
+			float far = ((dy > 0 ? bottom : top) - y0) / dy;
+			enter = Math.max(enter, near);
+			exit = Math.min(exit, far);
+			if (enter > exit) {
+				return MISS;
+			}
+		}
+		return enter;
+	}
+}
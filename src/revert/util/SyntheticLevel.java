@@ -0,0 +1,93 @@
+package revert.util;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.kgp.util.Vector2;
+
+/**
+ * Made up level of rolling ground with ledges over it, for trying out levels
+ * of any size without having to draw one.
+ * <p/>
+ * The level is worked out from a seed as it is written, a row at a time, so
+ * only the height of the ground in each column is kept.  The same seed
+ * always makes the same level.
+ *
+ * @author nhydock
+ */
+public final class SyntheticLevel implements LevelData.MaskRows {
+
+	private static final int TILE = 16;
+	// columns between the points the ground's height is rolled at
+	private static final int HILL = 32;
+
+	private final LevelData level;
+	private final long seed;
+	// top row of the ground in each column
+	private final int[] ground;
+
+	/**
+	 * @param cols - width of the level in tiles
+	 * @param rows - height of the level in tiles
+	 * @param seed - seed the ground and ledges are rolled from
+	 */
+	public SyntheticLevel(int cols, int rows, long seed) {
+		this.seed = seed;
+
+		ground = new int[cols];
+		int hills = (cols + HILL - 1) / HILL;
+		for (int col = 0; col < cols; col++) {
+			// blend between the heights of the hills on either side, the last
+			// hill leads back into the first so the level wraps smoothly
+			int hill = col / HILL;
+			float t = (col % HILL) / (float) HILL;
+			float h = height(hill) * (1 - t) + height((hill + 1) % hills) * t;
+			ground[col] = rows - 1 - (int) (h * rows / 2);
+		}
+
+		level = new LevelData();
+		level.cols = cols;
+		level.rows = rows;
+		level.tileWidth = TILE;
+		level.tileHeight = TILE;
+		level.spawns = new Vector2[Math.max(1, cols / 1000)];
+		for (int i = 0; i < level.spawns.length; i++) {
+			int col = (int) (hash(i, -1) % cols);
+			level.spawns[i] = new Vector2(col * TILE, (ground[col] - 2) * TILE);
+		}
+	}
+
+	/**
+	 * Compiles the level into a file
+	 *
+	 * @param file - file to write to, replaced if it exists
+	 * @throws IOException
+	 */
+	public void write(File file) throws IOException {
+		level.write(file, this);
+	}
+
+	/**
+	 * @return height of a hill, from 0 to 1 of the lower half of the level
+	 */
+	private float height(int hill) {
+		return (hash(hill, 0) % 1024) / 1024f;
+	}
+
+	private long hash(long x, long y) {
+		long h = seed ^ (x * 0x9E3779B97F4A7C15L) ^ (y * 0xC2B2AE3D27D4EB4FL);
+		h = (h ^ (h >>> 31)) * 0xBF58476D1CE4E5B9L;
+		return (h ^ (h >>> 29)) & Long.MAX_VALUE;
+	}
+
+	@Override
+	public void fill(int row, long[] words) {
+		for (int col = 0; col < ground.length; col++) {
+			// a ledge every few rows, broken into pieces
+			boolean ledge = row % 8 == 0 && row < ground[col] - 4 && hash(col / 8, row) % 6 == 0;
+			if (row >= ground[col] || ledge) {
+				words[col >> 6] |= 1L << col;
+			}
+		}
+	}
+}
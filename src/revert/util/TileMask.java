@@ -0,0 +1,196 @@
+package revert.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Solid/free flags for every tile of a level, packed one bit per tile.
+ * <p/>
+ * Rows are laid out one after the other, each padded to a whole number of
+ * longs, so a row scan walks contiguous memory and can skip 64 tiles at a
+ * time.  A 1000x1000 tile level takes about 125KB instead of a megabyte of
+ * booleans spread over a thousand column arrays.
+ * <p/>
+ * Lookups do not range check beyond what the backing array does, callers
+ * are expected to wrap and clamp coordinates to the map first.
+ *
+ * @author nhydock
+ */
+public final class TileMask {
+
+	private static final int SHIFT = 6;
+	private static final int MASK = 63;
+
+	private final long[] words;
+	private final int cols;
+	private final int rows;
+	//longs per row
+	private final int stride;
+
+	/**
+	 * Creates a mask with every tile free
+	 *
+	 * @param cols - width of the map in tiles
+	 * @param rows - height of the map in tiles
+	 */
+	public TileMask(int cols, int rows) {
+		this.cols = cols;
+		this.rows = rows;
+		this.stride = (cols + MASK) >> SHIFT;
+		this.words = new long[stride * rows];
+	}
+
+	/**
+	 * @return width of the mask in tiles
+	 */
+	public int getWidth() {
+		return cols;
+	}
+
+	/**
+	 * @return height of the mask in tiles
+	 */
+	public int getHeight() {
+		return rows;
+	}
+
+	/**
+	 * @return number of bytes the mask takes up when written
+	 */
+	long byteSize() {
+		return words.length * 8L;
+	}
+
+	/**
+	 * Fills the mask from a buffer written by {@link #write(ByteBuffer)},
+	 * advancing the buffer past it
+	 */
+	void read(ByteBuffer buffer) {
+		buffer.asLongBuffer().get(words);
+		buffer.position(buffer.position() + words.length * 8);
+	}
+
+	/**
+	 * Copies the words of one row, bit n of word w being column w*64+n
+	 *
+	 * @param row
+	 * @param out - takes the row's words, at least as long as a row
+	 */
+	void getRow(int row, long[] out) {
+		System.arraycopy(words, row * stride, out, 0, stride);
+	}
+
+	/**
+	 * Writes the mask out in the buffer's byte order, advancing the buffer past it
+	 */
+	void write(ByteBuffer buffer) {
+		buffer.asLongBuffer().put(words);
+		buffer.position(buffer.position() + words.length * 8);
+	}
+
+	/**
+	 * @param col
+	 * @param row
+	 * @return true if the tile is solid
+	 */
+	public boolean get(int col, int row) {
+		return (words[row * stride + (col >> SHIFT)] & (1L << col)) != 0;
+	}
+
+	/**
+	 * Flags a tile as solid or free
+	 *
+	 * @param col
+	 * @param row
+	 * @param solid
+	 */
+	public void set(int col, int row, boolean solid) {
+		int i = row * stride + (col >> SHIFT);
+		if (solid) {
+			words[i] |= (1L << col);
+		}
+		else {
+			words[i] &= ~(1L << col);
+		}
+	}
+
+	/**
+	 * Finds the first solid tile in a row at or to the right of a column,
+	 * without wrapping around the map
+	 *
+	 * @param col
+	 * @param row
+	 * @return column of the solid tile, -1 if there is none
+	 */
+	public int nextSolid(int col, int row) {
+		if (col >= cols) {
+			return -1;
+		}
+		int base = row * stride;
+		int w = col >> SHIFT;
+		long word = words[base + w] & (-1L << col);
+		while (true) {
+			if (word != 0) {
+				return (w << SHIFT) + Long.numberOfTrailingZeros(word);
+			}
+			if (++w == stride) {
+				return -1;
+			}
+			word = words[base + w];
+		}
+	}
+
+	/**
+	 * Finds the first free tile in a row at or to the right of a column,
+	 * without wrapping around the map
+	 *
+	 * @param col
+	 * @param row
+	 * @return column of the free tile, -1 if there is none
+	 */
+	public int nextFree(int col, int row) {
+		if (col >= cols) {
+			return -1;
+		}
+		int base = row * stride;
+		int w = col >> SHIFT;
+		long word = ~words[base + w] & (-1L << col);
+		while (true) {
+			if (word != 0) {
+				int found = (w << SHIFT) + Long.numberOfTrailingZeros(word);
+				// padding past the last column reads as free
+				return (found < cols) ? found : -1;
+			}
+			if (++w == stride) {
+				return -1;
+			}
+			word = ~words[base + w];
+		}
+	}
+
+	/**
+	 * Finds the first solid tile in a row at or to the left of a column,
+	 * without wrapping around the map
+	 *
+	 * @param col
+	 * @param row
+	 * @return column of the solid tile, -1 if there is none
+	 */
+	public int prevSolid(int col, int row) {
+		if (col < 0) {
+			return -1;
+		}
+		col = Math.min(col, cols - 1);
+		int base = row * stride;
+		int w = col >> SHIFT;
+		long word = words[base + w] & (-1L >>> (MASK - (col & MASK)));
+		while (true) {
+			if (word != 0) {
+				return (w << SHIFT) + MASK - Long.numberOfLeadingZeros(word);
+			}
+			if (--w < 0) {
+				return -1;
+			}
+			word = words[base + w];
+		}
+	}
+}
@@ -0,0 +1,301 @@
+package revert.util;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+/**
+ * Draws the tiles of a level that fall within view, keeping square chunks of
+ * the map pre-rendered into images so a frame only costs a handful of image
+ * copies no matter how many tiles are on screen.
+ * <p/>
+ * The view is taken from the clip of the graphics being drawn to, in world
+ * coordinates, or from the whole device when there is no clip.  The map
+ * wraps horizontally, so chunks past either edge are drawn again from the
+ * other side.
+ * <p/>
+ * Only a limited number of chunk images are kept, the least recently drawn
+ * being reused first.  When the view needs more chunks than that, such as
+ * when zoomed far out, the extra chunks are drawn straight from the level
+ * instead of being cached.
+ * <p/>
+ * A renderer is not thread safe, its level draws it and invalidates it while
+ * holding a lock so tiles can change on another thread than the one drawing.
+ *
+ * @author nhydock
+ */
+public final class TileRenderer {
+
+	/**
+	 * Width and height of a chunk in tiles
+	 */
+	public static final int CHUNK_TILES = 16;
+
+	/**
+	 * Most memory the chunk images may take up
+	 */
+	private static final long CACHE_BYTES = 32L << 20;
+
+	private final BrickManager level;
+	private final int chunkWidth;
+	private final int chunkHeight;
+	// chunks across and down the map
+	private final int across;
+	private final int down;
+
+	private final Chunk[] chunks;
+	private final ArrayList<Chunk> cached = new ArrayList<Chunk>();
+	private final int capacity;
+
+	// image given up by a chunk that turned out to be empty
+	private BufferedImage spare;
+
+	private int frame;
+	private int drawn;
+
+	private static final class Chunk {
+		final int col;
+		final int row;
+		final int cols;
+		final int rows;
+
+		BufferedImage image;
+		// nothing to draw, so no image is needed
+		boolean empty;
+		boolean dirty = true;
+		int lastDrawn = -1;
+
+		Chunk(int col, int row, int cols, int rows) {
+			this.col = col;
+			this.row = row;
+			this.cols = cols;
+			this.rows = rows;
+		}
+	}
+
+	/**
+	 * @param level - level to draw, its tiles are drawn with
+	 *            {@link BrickManager#drawTiles(Graphics2D, int, int, int, int)}
+	 */
+	public TileRenderer(BrickManager level) {
+		this.level = level;
+		this.chunkWidth = CHUNK_TILES * level.getBrickWidth();
+		this.chunkHeight = CHUNK_TILES * level.getBrickHeight();
+		this.across = (level.getWidth() + CHUNK_TILES - 1) / CHUNK_TILES;
+		this.down = (level.getHeight() + CHUNK_TILES - 1) / CHUNK_TILES;
+		this.chunks = new Chunk[across * down];
+		this.capacity = (int) Math.max(16, CACHE_BYTES / (4L * chunkWidth * chunkHeight));
+	}
+
+	/**
+	 * Marks the chunk holding a tile as needing to be drawn again
+	 *
+	 * @param col - map column
+	 * @param row - map row
+	 */
+	public void invalidate(int col, int row) {
+		Chunk chunk = chunks[(row / CHUNK_TILES) * across + col / CHUNK_TILES];
+		if (chunk != null) {
+			chunk.dirty = true;
+		}
+	}
+
+	/**
+	 * Marks every chunk as needing to be drawn again
+	 */
+	public void invalidate() {
+		for (Chunk chunk : chunks) {
+			if (chunk != null) {
+				chunk.dirty = true;
+			}
+		}
+	}
+
+	/**
+	 * @return number of chunks drawn in the last frame
+	 */
+	public int getChunksDrawn() {
+		return drawn;
+	}
+
+	/**
+	 * @return number of chunk images currently kept
+	 */
+	public int getCachedChunks() {
+		return cached.size();
+	}
+
+	/**
+	 * Draws the tiles within view
+	 *
+	 * @param g - graphics context, transformed into world coordinates
+	 */
+	public void draw(Graphics2D g) {
+		Rectangle view = g.getClipBounds();
+		if (view == null) {
+			view = deviceView(g);
+			if (view == null) {
+				return;
+			}
+		}
+
+		frame++;
+		drawn = 0;
+
+		int mapWidth = level.getMapWidth();
+		int top = Math.max(0, Math.floorDiv(view.y - level.yOffset, chunkHeight));
+		int bottom = Math.min(down - 1, Math.floorDiv(view.y + view.height - level.yOffset, chunkHeight));
+		if (top > bottom || mapWidth <= 0) {
+			return;
+		}
+
+		// every copy of the map the view overlaps as it wraps around
+		int first = Math.floorDiv(view.x, mapWidth);
+		int last = Math.floorDiv(view.x + view.width, mapWidth);
+		for (int copy = first; copy <= last; copy++) {
+			int offset = copy * mapWidth;
+			int left = Math.max(0, (view.x - offset) / chunkWidth);
+			int right = Math.min(across - 1, Math.floorDiv(view.x + view.width - offset, chunkWidth));
+			for (int cy = top; cy <= bottom; cy++) {
+				for (int cx = left; cx <= right; cx++) {
+					draw(g, chunk(cx, cy), offset + cx * chunkWidth, level.yOffset + cy * chunkHeight);
+				}
+			}
+		}
+	}
+
+	private void draw(Graphics2D g, Chunk chunk, int x, int y) {
+		if (chunk.dirty && chunk.lastDrawn != frame) {
+			render(g, chunk);
+		}
+		chunk.lastDrawn = frame;
+		if (chunk.empty) {
+			return;
+		}
+		drawn++;
+
+		if (chunk.image != null) {
+			g.drawImage(chunk.image, x, y, null);
+		}
+		else {
+			// no room left in the cache
+			g.translate(x, y);
+			level.drawTiles(g, chunk.col, chunk.row, chunk.cols, chunk.rows);
+			g.translate(-x, -y);
+		}
+	}
+
+	/**
+	 * Redraws a chunk into its image, finding it one if it doesn't have any
+	 */
+	private void render(Graphics2D g, Chunk chunk) {
+		BufferedImage image = chunk.image;
+		if (image == null) {
+			image = claimImage(g);
+			if (image == null) {
+				// drawn straight from the level until an image frees up
+				chunk.empty = false;
+				return;
+			}
+		}
+		else {
+			clear(image);
+		}
+		chunk.dirty = false;
+
+		int count;
+		Graphics2D ig = image.createGraphics();
+		try {
+			count = level.drawTiles(ig, chunk.col, chunk.row, chunk.cols, chunk.rows);
+		}
+		finally {
+			ig.dispose();
+		}
+
+		chunk.empty = (count == 0);
+		if (chunk.empty) {
+			// hand the image on to the next chunk that needs one
+			if (chunk.image != null) {
+				chunk.image = null;
+				cached.remove(chunk);
+			}
+			spare = image;
+		}
+		else if (chunk.image == null) {
+			chunk.image = image;
+			cached.add(chunk);
+		}
+	}
+
+	/**
+	 * @return a clear image to draw a chunk into, null if every cached image
+	 *         has been drawn recently
+	 */
+	private BufferedImage claimImage(Graphics2D g) {
+		if (spare != null) {
+			BufferedImage image = spare;
+			spare = null;
+			clear(image);
+			return image;
+		}
+		if (cached.size() < capacity) {
+			return g.getDeviceConfiguration().createCompatibleImage(chunkWidth, chunkHeight, Transparency.TRANSLUCENT);
+		}
+
+		// chunks drawn in the last frame are likely to be drawn again in this one
+		Chunk oldest = null;
+		for (int i = 0; i < cached.size(); i++) {
+			Chunk c = cached.get(i);
+			if (c.lastDrawn < frame - 1 && (oldest == null || c.lastDrawn < oldest.lastDrawn)) {
+				oldest = c;
+			}
+		}
+		if (oldest == null) {
+			return null;
+		}
+		BufferedImage image = oldest.image;
+		oldest.image = null;
+		oldest.dirty = true;
+		cached.remove(oldest);
+		clear(image);
+		return image;
+	}
+
+	private static void clear(BufferedImage image) {
+		Graphics2D g = image.createGraphics();
+		g.setComposite(AlphaComposite.Clear);
+		g.fillRect(0, 0, image.getWidth(), image.getHeight());
+		g.dispose();
+	}
+
+	private Chunk chunk(int cx, int cy) {
+		int i = cy * across + cx;
+		Chunk chunk = chunks[i];
+		if (chunk == null) {
+			int col = cx * CHUNK_TILES;
+			int row = cy * CHUNK_TILES;
+			chunk = new Chunk(col, row, Math.min(CHUNK_TILES, level.getWidth() - col), Math.min(CHUNK_TILES, level.getHeight() - row));
+			chunks[i] = chunk;
+		}
+		return chunk;
+	}
+
+	/**
+	 * @return the whole device in world coordinates, null if the transform
+	 *         can't be undone
+	 */
+	private static Rectangle deviceView(Graphics2D g) {
+		AffineTransform transform = g.getTransform();
+		try {
+			return transform.createInverse().createTransformedShape(g.getDeviceConfiguration().getBounds()).getBounds();
+		}
+		catch (NoninvertibleTransformException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package revert.util;
+
+/**
+ * Growable run of solid/free flags, filled in one tile at a time while a
+ * level is being read.
+ * <p/>
+ * Tiled writes a layer's data before its dimensions, so tiles can't be
+ * placed in a {@link TileMask} as they arrive.  They are kept here instead,
+ * one bit each in fixed size chunks, so even huge maps never need a full
+ * int per tile or one large contiguous buffer while loading.
+ *
+ * @author nhydock
+ */
+final class TileStream {
+
+	private static final int CHUNK_SHIFT = 16;
+	private static final int CHUNK_TILES = 1 << CHUNK_SHIFT;
+
+	private long[][] chunks = new long[16][];
+	private int size;
+
+	/**
+	 * Appends the next tile of the layer
+	 *
+	 * @param solid
+	 */
+	void add(boolean solid) {
+		int chunk = size >>> CHUNK_SHIFT;
+		if (chunk == chunks.length) {
+			long[][] grown = new long[chunks.length * 2][];
+			System.arraycopy(chunks, 0, grown, 0, chunks.length);
+			chunks = grown;
+		}
+		if (chunks[chunk] == null) {
+			chunks[chunk] = new long[CHUNK_TILES >> 6];
+		}
+		if (solid) {
+			chunks[chunk][(size & (CHUNK_TILES - 1)) >> 6] |= 1L << size;
+		}
+		size++;
+	}
+
+	/**
+	 * @return number of tiles added
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Lays the tiles out into a collision mask, reading them in row order
+	 *
+	 * @param width - width of the map in tiles
+	 * @param height - height of the map in tiles
+	 * @return the filled in mask
+	 */
+	TileMask toMask(int width, int height) {
+		TileMask mask = new TileMask(width, height);
+		for (int c = 0; c < chunks.length && chunks[c] != null; c++) {
+			long[] words = chunks[c];
+			int base = c << CHUNK_SHIFT;
+			for (int w = 0; w < words.length; w++) {
+				for (long word = words[w]; word != 0; word &= word - 1) {
+					int i = base + (w << 6) + Long.numberOfTrailingZeros(word);
+					mask.set(i % width, i / width, true);
+				}
+			}
+		}
+		return mask;
+	}
+}
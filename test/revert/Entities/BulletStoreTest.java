@@ -0,0 +1,114 @@
+package revert.Entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Handles have to keep pointing at their own bullet as bullets come and go,
+ * and never at a later bullet that took over its spot.
+ *
+ * @author nhydock
+ */
+public class BulletStoreTest {
+
+	// a spot is handed out this many times before it is retired
+	private static final int GENERATIONS = 2048;
+	private static final int SLOT_MASK = (1 << 20) - 1;
+
+	@Test
+	public void handlesFollowBulletsThatMove() {
+		BulletStore store = new BulletStore(2);
+		int a = store.add(1, 0, 0, 0, 0, Bullet.Mode.Gold);
+		int b = store.add(2, 0, 0, 0, 0, Bullet.Mode.Silver);
+		int c = store.add(3, 0, 0, 0, 0, Bullet.Mode.Copper);
+
+		store.remove(store.indexOf(a));
+
+		assertFalse(store.contains(a));
+		assertEquals(2, store.size());
+		assertEquals(2f, store.getXPosn(store.indexOf(b)), 0f);
+		assertEquals(3f, store.getXPosn(store.indexOf(c)), 0f);
+		assertEquals(Bullet.Mode.Copper, store.getType(store.indexOf(c)));
+		assertEquals(c, store.getHandle(store.indexOf(c)));
+	}
+
+	@Test
+	public void reusedSpotsGetNewHandles() {
+		BulletStore store = new BulletStore(1);
+		int first = store.add(0, 0, 0, 0, 0, Bullet.Mode.Gold);
+		store.remove(store.indexOf(first));
+		int second = store.add(0, 0, 0, 0, 0, Bullet.Mode.Gold);
+
+		assertEquals(first & SLOT_MASK, second & SLOT_MASK);
+		assertNotEquals(first, second);
+		assertFalse(store.contains(first));
+		assertTrue(store.contains(second));
+	}
+
+	@Test
+	public void spotsAreRetiredBeforeTheirHandlesComeBack() {
+		BulletStore store = new BulletStore(1);
+		Set<Integer> handles = new HashSet<Integer>();
+		int slot = -1;
+		for (int i = 0; i < GENERATIONS; i++) {
+			int handle = store.add(0, 0, 0, 0, 0, Bullet.Mode.Gold);
+			assertTrue(handle >= 0);
+			assertTrue(handles.add(handle));
+			if (slot == -1) {
+				slot = handle & SLOT_MASK;
+			}
+			assertEquals(slot, handle & SLOT_MASK);
+			store.remove(store.indexOf(handle));
+		}
+
+		// the spot is used up, so the next bullets go somewhere else
+		for (int i = 0; i < GENERATIONS; i++) {
+			int handle = store.add(0, 0, 0, 0, 0, Bullet.Mode.Gold);
+			assertNotEquals(slot, handle & SLOT_MASK);
+			assertTrue(handles.add(handle));
+			store.remove(store.indexOf(handle));
+		}
+		for (int handle : handles) {
+			assertFalse(store.contains(handle));
+		}
+	}
+
+	@Test
+	public void clearingRetiresEveryHandle() {
+		BulletStore store = new BulletStore();
+		int[] handles = new int[10];
+		for (int i = 0; i < handles.length; i++) {
+			handles[i] = store.add(i, 0, 0, 0, 0, Bullet.Mode.Gold);
+		}
+		store.clear();
+
+		assertEquals(0, store.size());
+		for (int handle : handles) {
+			assertFalse(store.contains(handle));
+		}
+		assertFalse(store.contains(BulletStore.NONE));
+	}
+
+	@Test
+	public void copiesKeepTheirHandles() {
+		BulletStore store = new BulletStore(1);
+		int a = store.add(1, 0, 0, 0, 0, Bullet.Mode.Gold);
+		int b = store.add(2, 0, 0, 0, 0, Bullet.Mode.Gold);
+		store.remove(store.indexOf(a));
+
+		BulletStore copy = new BulletStore(1);
+		copy.copy(store);
+
+		assertFalse(copy.contains(a));
+		assertEquals(2f, copy.getXPosn(copy.indexOf(b)), 0f);
+		// the spot freed before copying is reused by both the same way
+		assertEquals(store.add(0, 0, 0, 0, 0, Bullet.Mode.Gold), copy.add(0, 0, 0, 0, 0, Bullet.Mode.Gold));
+	}
+}
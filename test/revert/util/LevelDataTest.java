@@ -0,0 +1,151 @@
+package revert.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.kgp.util.Vector2;
+
+/**
+ * Compiled levels have to come back exactly as they were written, and damaged
+ * ones have to be turned away instead of played.
+ *
+ * @author nhydock
+ */
+public class LevelDataTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private LevelData level;
+	private File file;
+
+	@Before
+	public void writeLevel() throws IOException {
+		// wider than a mask word, so rows take more than one
+		level = new LevelData();
+		level.cols = 70;
+		level.rows = 5;
+		level.tileWidth = 16;
+		level.tileHeight = 12;
+		level.strip = "tiles.png 4";
+		level.spawns = new Vector2[] { new Vector2(1.5f, 2f), new Vector2(300f, 40f) };
+		level.mask = new TileMask(level.cols, level.rows);
+		level.bricks = new int[level.rows][level.cols];
+		for (int row = 0; row < level.rows; row++) {
+			for (int col = 0; col < level.cols; col++) {
+				if ((col * 7 + row * 3) % 5 == 0 || col == level.cols - 1) {
+					level.mask.set(col, row, true);
+					level.bricks[row][col] = 1 + (col + row) % 300;
+				}
+			}
+		}
+		file = folder.newFile("level" + LevelData.EXTENSION);
+		level.write(file);
+	}
+
+	@Test
+	public void readsBackWhatWasWritten() throws IOException {
+		LevelData read = LevelData.map(file);
+
+		assertEquals(level.cols, read.cols);
+		assertEquals(level.rows, read.rows);
+		assertEquals(level.tileWidth, read.tileWidth);
+		assertEquals(level.tileHeight, read.tileHeight);
+		assertEquals(level.strip, read.strip);
+		assertEquals(level.spawns.length, read.spawns.length);
+		for (int i = 0; i < level.spawns.length; i++) {
+			assertEquals(level.spawns[i].x, read.spawns[i].x, 0f);
+			assertEquals(level.spawns[i].y, read.spawns[i].y, 0f);
+		}
+		for (int row = 0; row < level.rows; row++) {
+			for (int col = 0; col < level.cols; col++) {
+				assertEquals("tile " + col + ", " + row, level.mask.get(col, row), read.mask.get(col, row));
+			}
+			assertArrayEquals(level.bricks[row], read.bricks[row]);
+		}
+	}
+
+	@Test
+	public void leavesOutWhatTheLevelDoesNotHave() throws IOException {
+		level.strip = null;
+		level.spawns = null;
+		level.bricks = null;
+		level.write(file);
+
+		LevelData read = LevelData.map(file);
+		assertEquals(null, read.strip);
+		assertEquals(null, read.spawns);
+		assertEquals(null, read.bricks);
+		assertEquals(level.mask.get(0, 0), read.mask.get(0, 0));
+	}
+
+	@Test
+	public void rejectsTruncatedLevels() throws IOException {
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		for (int length = 0; length < bytes.length; length++) {
+			try {
+				LevelData.read(ByteBuffer.wrap(Arrays.copyOf(bytes, length)), file.getName());
+				fail("read a level cut off after " + length + " of " + bytes.length + " bytes");
+			}
+			catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void rejectsCorruptedLevels() throws IOException {
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		for (int i = 0; i < bytes.length; i++) {
+			for (int bit = 0; bit < 8; bit++) {
+				byte[] damaged = bytes.clone();
+				damaged[i] ^= 1 << bit;
+				try {
+					LevelData.read(ByteBuffer.wrap(damaged), file.getName());
+					fail("read a level with bit " + bit + " of byte " + i + " flipped");
+				}
+				catch (IOException e) {
+					// expected
+				}
+			}
+		}
+	}
+
+	@Test
+	public void pagedLevelsRejectTruncatedFiles() throws IOException {
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		for (int length = 0; length < bytes.length; length++) {
+			File cut = folder.newFile("cut" + length + LevelData.EXTENSION);
+			Files.write(cut.toPath(), Arrays.copyOf(bytes, length));
+			try {
+				new PagedBrickManager(cut, 9, false).close();
+				fail("paged a level cut off after " + length + " of " + bytes.length + " bytes");
+			}
+			catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void pagedEditsKeepTheChecksum() throws IOException {
+		PagedBrickManager paged = new PagedBrickManager(file, 9, true);
+		paged.setSolid(3, 2, !level.mask.get(3, 2));
+		paged.close();
+
+		LevelData read = LevelData.map(file);
+		assertEquals(!level.mask.get(3, 2), read.mask.get(3, 2));
+	}
+}
@@ -0,0 +1,161 @@
+package revert.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Line of sight between tiles, traced with whole numbers from tile center to
+ * tile center.  Sight goes whichever way around the map is shorter, so the
+ * levels are more than twice as wide as the lines in them unless a line is
+ * meant to go around the edge.
+ *
+ * @author nhydock
+ */
+public class LineOfSightTest {
+
+	@Test
+	public void seesAcrossOpenGround() {
+		MaskLevel level = new MaskLevel(
+				"........",
+				"........",
+				"........",
+				"########");
+		assertTrue(level.lineOfSight(0, 0, 7, 2));
+		assertTrue(level.lineOfSight(3, 2, 3, 0));
+		assertTrue(level.lineOfSight(5, 1, 5, 1));
+	}
+
+	@Test
+	public void wallsBlockTheView() {
+		MaskLevel level = new MaskLevel(
+				"...#............",
+				"...#............",
+				"...#............");
+		for (int row = 0; row < 3; row++) {
+			assertFalse(level.lineOfSight(0, row, 6, 0));
+			assertFalse(level.lineOfSight(6, 2, 1, row));
+		}
+		assertTrue(level.lineOfSight(0, 0, 2, 2));
+	}
+
+	@Test
+	public void endsAreNotChecked() {
+		MaskLevel level = new MaskLevel(
+				"#..#....",
+				"........");
+		assertTrue(level.lineOfSight(0, 0, 3, 0));
+		assertTrue(level.lineOfSight(3, 0, 0, 1));
+	}
+
+	@Test
+	public void shallowLinesVisitEveryTileTheyCross() {
+		// from the center of (0, 0) to the center of (4, 1) the line crosses
+		// into row 1 halfway through column 2, so it passes (1, 0), (2, 0),
+		// (2, 1) and (3, 1)
+		String[] open = { "..........", ".........." };
+		int[][] crossed = { { 1, 0 }, { 2, 0 }, { 2, 1 }, { 3, 1 } };
+		for (int[] tile : crossed) {
+			assertFalse(withTile(open, tile[0], tile[1]).lineOfSight(0, 0, 4, 1));
+		}
+		int[][] missed = { { 3, 0 }, { 1, 1 }, { 0, 1 }, { 4, 0 } };
+		for (int[] tile : missed) {
+			assertTrue(withTile(open, tile[0], tile[1]).lineOfSight(0, 0, 4, 1));
+		}
+	}
+
+	@Test
+	public void diagonalsSlipBetweenTilesMeetingAtACorner() {
+		MaskLevel corners = new MaskLevel(
+				".#....",
+				"#.#...",
+				".#....");
+		assertTrue(corners.lineOfSight(0, 0, 2, 2));
+		assertTrue(corners.lineOfSight(2, 0, 0, 2));
+		assertTrue(corners.lineOfSight(2, 2, 0, 0));
+
+		MaskLevel center = new MaskLevel(
+				"......",
+				".#....",
+				"......");
+		assertFalse(center.lineOfSight(0, 0, 2, 2));
+		assertFalse(center.lineOfSight(2, 0, 0, 2));
+	}
+
+	@Test
+	public void shallowLinesMeetCornersPartWay() {
+		// from (0, 0) to (3, 1) the line goes through the corner between
+		// (1, 0), (2, 0), (1, 1) and (2, 1), going from (1, 0) to (2, 1)
+		// without touching the other two
+		String[] open = { "........", "........" };
+		assertTrue(withTile(open, 2, 0).lineOfSight(0, 0, 3, 1));
+		assertTrue(withTile(open, 1, 1).lineOfSight(0, 0, 3, 1));
+		assertTrue(withTile(open, 1, 1).lineOfSight(3, 1, 0, 0));
+		assertFalse(withTile(open, 1, 0).lineOfSight(0, 0, 3, 1));
+		assertFalse(withTile(open, 2, 1).lineOfSight(0, 0, 3, 1));
+		assertFalse(withTile(open, 2, 1).lineOfSight(3, 1, 0, 0));
+	}
+
+	@Test
+	public void looksTheShortWayAroundTheMap() {
+		MaskLevel middle = new MaskLevel(
+				".....#....",
+				"..........");
+		// columns 1 and 8 are three apart through the edge of the map
+		assertTrue(middle.lineOfSight(1, 0, 8, 0));
+		assertTrue(middle.lineOfSight(8, 1, 1, 0));
+
+		MaskLevel edge = new MaskLevel(
+				"#.........",
+				"..........");
+		assertFalse(edge.lineOfSight(1, 0, 8, 0));
+		assertFalse(edge.lineOfSight(8, 0, 1, 0));
+
+		MaskLevel last = new MaskLevel(
+				".........#",
+				"..........");
+		assertFalse(last.lineOfSight(1, 0, 8, 0));
+		assertTrue(last.lineOfSight(1, 1, 8, 1));
+	}
+
+	@Test
+	public void seesTheSameBothWays() {
+		Random random = new Random(20);
+		for (int n = 0; n < 50; n++) {
+			String[] rows = new String[8];
+			for (int row = 0; row < rows.length; row++) {
+				StringBuilder line = new StringBuilder();
+				for (int col = 0; col < 12; col++) {
+					line.append(random.nextInt(5) == 0 ? '#' : '.');
+				}
+				rows[row] = line.toString();
+			}
+			MaskLevel level = new MaskLevel(rows);
+			for (int i = 0; i < 200; i++) {
+				int col0 = random.nextInt(12), row0 = random.nextInt(8);
+				int col1 = random.nextInt(12), row1 = random.nextInt(8);
+				// exactly halfway around the map either way is as short
+				if (Math.abs(col1 - col0) == 6) {
+					continue;
+				}
+				assertEquals(col0 + "," + row0 + " to " + col1 + "," + row1,
+						level.lineOfSight(col0, row0, col1, row1), level.lineOfSight(col1, row1, col0, row0));
+			}
+		}
+	}
+
+	/**
+	 * @return an open level with a single solid tile
+	 */
+	private static MaskLevel withTile(String[] open, int col, int row) {
+		String[] rows = open.clone();
+		char[] line = rows[row].toCharArray();
+		line[col] = '#';
+		rows[row] = new String(line);
+		return new MaskLevel(rows);
+	}
+}
@@ -0,0 +1,49 @@
+package revert.util;
+
+import java.awt.Graphics2D;
+
+/**
+ * Level drawn out as text for tests, one string per row with '#' for a solid
+ * tile and anything else for an open one.
+ *
+ * @author nhydock
+ */
+final class MaskLevel extends BrickManager {
+
+	static final int TILE = 16;
+
+	MaskLevel(String... rows) {
+		LevelData data = new LevelData();
+		data.cols = rows[0].length();
+		data.rows = rows.length;
+		data.tileWidth = TILE;
+		data.tileHeight = TILE;
+		data.mask = new TileMask(data.cols, data.rows);
+		for (int row = 0; row < data.rows; row++) {
+			for (int col = 0; col < data.cols; col++) {
+				if (rows[row].charAt(col) == '#') {
+					data.mask.set(col, row, true);
+				}
+			}
+		}
+		setTiles(data);
+	}
+
+	@Override
+	public int getBrickWidth() {
+		return TILE;
+	}
+
+	@Override
+	public int getBrickHeight() {
+		return TILE;
+	}
+
+	@Override
+	public void display(Graphics2D g) {
+	}
+
+	@Override
+	protected void update() {
+	}
+}
@@ -0,0 +1,180 @@
+package revert.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+/**
+ * Boxes swept through a level, the way actors move.  Most of these keep the
+ * box's sides right on tile edges, where a box touching a tile must be able
+ * to slide along it without snagging.
+ *
+ * @author nhydock
+ */
+public class SweepBoxTest {
+
+	private static final float EPSILON = 1e-4f;
+	private static final int T = MaskLevel.TILE;
+
+	private final Contact hit = new Contact();
+
+	@Test
+	public void walksAlongTheFloorItStandsOn() {
+		MaskLevel level = new MaskLevel(
+				"................",
+				"................",
+				"################");
+		// bottom exactly on the top of the floor
+		assertEquals(Sweep.MISS, level.sweepBox(T, T, 2 * T, 2 * T, 5 * T, 0, hit), 0f);
+		assertEquals(Sweep.MISS, level.sweepBox(T, T, 2 * T, 2 * T, -5 * T, 0, hit), 0f);
+		assertFalse(hit.hit());
+	}
+
+	@Test
+	public void slidesUnderALedgeItTouches() {
+		MaskLevel level = new MaskLevel(
+				"....######......",
+				"................",
+				"################");
+		// top exactly on the bottom of the ledge, bottom on the floor
+		assertEquals(Sweep.MISS, level.sweepBox(T, T, 2 * T, 2 * T, 10 * T, 0, hit), 0f);
+		// a box one pixel taller runs into the ledge
+		assertEquals((4 * T - 2 * T) / (10f * T), level.sweepBox(T, T - 1, 2 * T, 2 * T, 10 * T, 0, hit), EPSILON);
+		assertContact(4, 0, -1, 0);
+	}
+
+	@Test
+	public void runsIntoWallsBesideIt() {
+		MaskLevel level = new MaskLevel(
+				"................",
+				"......#.........",
+				"################");
+		assertEquals(0.8f, level.sweepBox(T, T, 2 * T, 2 * T, 5 * T, 0, hit), EPSILON);
+		assertContact(6, 1, -1, 0);
+		// from the other side
+		assertEquals(0.5f, level.sweepBox(9 * T, T, 10 * T, 2 * T, -4 * T, 0, hit), EPSILON);
+		assertContact(6, 1, 1, 0);
+		// already touching it, it can't move any closer
+		assertEquals(0f, level.sweepBox(5 * T, T, 6 * T, 2 * T, T, 0, hit), 0f);
+		// but can move away
+		assertEquals(Sweep.MISS, level.sweepBox(5 * T, T, 6 * T, 2 * T, -T, 0, hit), 0f);
+	}
+
+	@Test
+	public void reportsTheHighestTileOfAStep() {
+		MaskLevel level = new MaskLevel(
+				"................",
+				"......#.........",
+				"......#.........",
+				"################");
+		assertEquals(0.5f, level.sweepBox(3 * T, 0, 4 * T, 3 * T, 4 * T, 0, hit), EPSILON);
+		assertContact(6, 1, -1, 0);
+	}
+
+	@Test
+	public void fallsOntoTheFloor() {
+		MaskLevel level = new MaskLevel(
+				"................",
+				"................",
+				"................",
+				"################");
+		assertEquals(0.5f, level.sweepBox(T, 0, 2 * T, T, 0, 4 * T, hit), EPSILON);
+		assertContact(1, 3, 0, -1);
+		// landing at the very end of the move
+		assertEquals(1f, level.sweepBox(T, 0, 2 * T, T, 0, 2 * T, hit), EPSILON);
+		// jumping off of it
+		assertEquals(Sweep.MISS, level.sweepBox(T, 2 * T, 2 * T, 3 * T, 0, -2 * T, hit), 0f);
+	}
+
+	@Test
+	public void fallsPastTilesItsSidesTouch() {
+		MaskLevel level = new MaskLevel(
+				"................",
+				"......#.........",
+				"................",
+				"################");
+		// right on top of the tile's column
+		assertEquals(0.5f, level.sweepBox(6 * T, -T, 7 * T, 0, 0, 2 * T, hit), EPSILON);
+		assertContact(6, 1, 0, -1);
+		// on either side of it, with a side along its edge
+		assertEquals(1f, level.sweepBox(7 * T, -T, 8 * T, 0, 0, 3 * T, hit), EPSILON);
+		assertContact(7, 3, 0, -1);
+		assertEquals(1f, level.sweepBox(5 * T, -T, 6 * T, 0, 0, 3 * T, hit), EPSILON);
+		assertContact(5, 3, 0, -1);
+		// and up past it
+		assertEquals(Sweep.MISS, level.sweepBox(7 * T, 2 * T, 8 * T, 3 * T, 0, -3 * T, hit), 0f);
+	}
+
+	@Test
+	public void hitsItsHeadOnCeilings() {
+		MaskLevel level = new MaskLevel(
+				"................",
+				"....######......",
+				"................",
+				"................",
+				"################");
+		assertEquals(0.5f, level.sweepBox(5 * T, 3 * T, 6 * T, 4 * T, 0, -2 * T, hit), EPSILON);
+		assertContact(5, 1, 0, 1);
+	}
+
+	@Test
+	public void slidesDiagonallyAlongTheFloor() {
+		MaskLevel level = new MaskLevel(
+				"................",
+				"................",
+				"................",
+				"################");
+		// leaving the floor it stands on
+		assertEquals(Sweep.MISS, level.sweepBox(T, 2 * T, 2 * T, 3 * T, 2 * T, -T, hit), 0f);
+		// landing on it while moving sideways
+		assertEquals(0.5f, level.sweepBox(T, T, 2 * T, 2 * T, 2 * T, 2 * T, hit), EPSILON);
+		assertEquals(0, hit.normalX);
+		assertEquals(-1, hit.normalY);
+	}
+
+	@Test
+	public void skimsPastTheCornerOfATile() {
+		MaskLevel level = new MaskLevel(
+				"................",
+				"..#.............",
+				"................",
+				"################");
+		// rising away from the top of the tile as it comes level with it
+		assertEquals(Sweep.MISS, level.sweepBox(0, 0, T, T, 2 * T, -T, hit), 0f);
+		// sinking just below its top, it runs into its side
+		assertEquals(0.5f, level.sweepBox(0, 0, T, T, 2 * T, 0.5f, hit), EPSILON);
+		assertContact(2, 1, -1, 0);
+	}
+
+	@Test
+	public void wrapsAroundTheMap() {
+		MaskLevel level = new MaskLevel(
+				"...............#",
+				"################");
+		assertEquals(0.5f, level.sweepBox(T, 0, 2 * T, T, -2 * T, 0, hit), EPSILON);
+		assertContact(-1, 0, 1, 0);
+		assertEquals(0.5f, level.sweepBox(13 * T, 0, 14 * T, T, 2 * T, 0, hit), EPSILON);
+		assertContact(15, 0, -1, 0);
+	}
+
+	@Test
+	public void alreadyOverlappingBoxesCanBackOut() {
+		MaskLevel level = new MaskLevel(
+				"................",
+				"################");
+		// sunk half a pixel into the floor
+		assertEquals(Sweep.MISS, level.sweepBox(0, 0.5f, T, T + 0.5f, 0, -T, hit), 0f);
+		assertEquals(0f, level.sweepBox(0, 0.5f, T, T + 0.5f, 0, T, hit), 0f);
+		// sunk only as far as rounding could, it still walks along it
+		float sunk = 1f / 128f;
+		assertEquals(Sweep.MISS, level.sweepBox(0, sunk, T, T + sunk, 4 * T, 0, hit), 0f);
+	}
+
+	private void assertContact(int col, int row, int normalX, int normalY) {
+		assertEquals("col", col, hit.col);
+		assertEquals("row", row, hit.row);
+		assertEquals("normal x", normalX, hit.normalX);
+		assertEquals("normal y", normalY, hit.normalY);
+	}
+}
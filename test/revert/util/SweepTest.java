@@ -0,0 +1,117 @@
+package revert.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Points swept along a segment, against a single box and against the tiles of
+ * a level, the way bullets are moved.
+ *
+ * @author nhydock
+ */
+public class SweepTest {
+
+	private static final float EPSILON = 1e-5f;
+	private static final int T = MaskLevel.TILE;
+
+	@Test
+	public void segmentsHitBoxesInTheirWay() {
+		assertEquals(0.5f, Sweep.segmentBox(0, 5, 20, 5, 10, 0, 15, 10), EPSILON);
+		// from the other side, the far edge is reached first
+		assertEquals(0.25f, Sweep.segmentBox(20, 5, 0, 5, 10, 0, 15, 10), EPSILON);
+		assertEquals(0.5f, Sweep.segmentBox(5, 20, 5, 0, 0, 0, 10, 10), EPSILON);
+	}
+
+	@Test
+	public void segmentsStartingInsideHitRightAway() {
+		assertEquals(0f, Sweep.segmentBox(12, 5, 40, 5, 10, 0, 15, 10), 0f);
+		assertEquals(0f, Sweep.segmentBox(12, 5, 12, 5, 10, 0, 15, 10), 0f);
+	}
+
+	@Test
+	public void segmentsMissBoxesOutOfTheirWay() {
+		// short of it
+		assertEquals(Sweep.MISS, Sweep.segmentBox(0, 5, 9, 5, 10, 0, 15, 10), 0f);
+		// beside it
+		assertEquals(Sweep.MISS, Sweep.segmentBox(0, 11, 20, 11, 10, 0, 15, 10), 0f);
+		// past it
+		assertEquals(Sweep.MISS, Sweep.segmentBox(16, 5, 40, 5, 10, 0, 15, 10), 0f);
+		// not moving, outside
+		assertEquals(Sweep.MISS, Sweep.segmentBox(9, 5, 9, 5, 10, 0, 15, 10), 0f);
+	}
+
+	@Test
+	public void segmentsTouchingEdgesAndCornersHit() {
+		// ending right on the near edge
+		assertEquals(1f, Sweep.segmentBox(0, 5, 10, 5, 10, 0, 15, 10), EPSILON);
+		// sliding along the top edge
+		assertEquals(0.5f, Sweep.segmentBox(0, 0, 20, 0, 10, 0, 15, 10), EPSILON);
+		// through the top left corner only
+		assertEquals(0.5f, Sweep.segmentBox(0, 10, 10, 0, 5, 5, 10, 10), EPSILON);
+		// just past that corner
+		assertEquals(Sweep.MISS, Sweep.segmentBox(0, 9.5f, 9.5f, 0, 5, 5, 10, 10), 0f);
+	}
+
+	@Test
+	public void fastSegmentsDoNotTunnel() {
+		assertEquals(0.5f, Sweep.segmentBox(0, 5, 1000, 5, 500, 0, 501, 10), EPSILON);
+		assertEquals(0.5f, Sweep.segmentBox(0, 0, 1000, 1000, 500, 500, 501, 501), EPSILON);
+	}
+
+	@Test
+	public void pointsStopAtTheFirstSolidTile() {
+		MaskLevel level = new MaskLevel(
+				".....#..#.......",
+				"................");
+		float y = T / 2;
+		// a single step across both walls stops at the near one
+		assertEquals((5 * T - 8f) / (12 * T), level.sweepPoint(8, y, 8 + 12 * T, y), EPSILON);
+		assertEquals((16 * T - 9 * T - 8f) / (10 * T), level.sweepPoint(16 * T - 8, y, 6 * T - 8, y), EPSILON);
+		assertEquals(Sweep.MISS, level.sweepPoint(8, T + y, 8 + 12 * T, T + y), 0f);
+	}
+
+	@Test
+	public void pointsCountTheTilesAtEitherEnd() {
+		MaskLevel level = new MaskLevel(
+				".....#..........",
+				"................");
+		float y = T / 2;
+		assertEquals(0f, level.sweepPoint(5 * T + 4, y, 2 * T, y), 0f);
+		assertEquals(1f, level.sweepPoint(8, y, 5 * T, y), EPSILON);
+		assertEquals((5 * T - 8f) / (5 * T + 4 - 8f), level.sweepPoint(8, y, 5 * T + 4, y), EPSILON);
+	}
+
+	@Test
+	public void pointsWrapAroundTheMap() {
+		MaskLevel level = new MaskLevel(
+				"...............#",
+				"................");
+		float y = T / 2;
+		// heading left off the map runs into the last column
+		assertEquals(8f / 48f, level.sweepPoint(8, y, -40, y), EPSILON);
+		// and heading right off of it comes around to the first ones
+		assertEquals(Sweep.MISS, level.sweepPoint(17 * T, T + y, 20 * T, T + y), 0f);
+		assertEquals((31 * T - 20 * T - 8f) / (12 * T), level.sweepPoint(20 * T + 8, y, 32 * T + 8, y), EPSILON);
+	}
+
+	@Test
+	public void pointsPassOverAndUnderTheMap() {
+		MaskLevel level = new MaskLevel(
+				"################",
+				"################");
+		assertEquals(Sweep.MISS, level.sweepPoint(0, -8, 10 * T, -8), 0f);
+		assertEquals(Sweep.MISS, level.sweepPoint(0, 2 * T + 8, 10 * T, 2 * T + 8), 0f);
+		assertEquals(0.25f, level.sweepPoint(8, -T + 8, 8, T + 8), EPSILON);
+	}
+
+	@Test
+	public void pointsSlipBetweenTilesMeetingAtACorner() {
+		MaskLevel level = new MaskLevel(
+				".#..............",
+				"#...............",
+				"................");
+		assertEquals(Sweep.MISS, level.sweepPoint(8, 8, 2 * T + 8, 2 * T + 8), 0f);
+		assertEquals(Sweep.MISS, level.sweepPoint(2 * T + 8, 2 * T + 8, 8, 8), 0f);
+	}
+}